@@ -2,6 +2,7 @@ plugins {
     java
     id("org.springframework.boot") version "4.0.0"
     id("io.spring.dependency-management") version "1.1.7"
+    id("me.champeau.jmh") version "0.7.3"
 }
 
 group = "com.itmo.programming-club"
@@ -39,7 +40,7 @@ dependencies {
     compileOnly("org.projectlombok:lombok")
     developmentOnly("org.springframework.boot:spring-boot-devtools")
     developmentOnly("org.springframework.boot:spring-boot-docker-compose")
-    runtimeOnly("org.postgresql:postgresql")
+    implementation("org.postgresql:postgresql")
     annotationProcessor("org.projectlombok:lombok")
     testImplementation("org.springframework.boot:spring-boot-starter-data-jpa-test")
     testImplementation("org.springframework.boot:spring-boot-starter-liquibase-test")
@@ -54,3 +55,49 @@ dependencies {
 tasks.withType<Test> {
     useJUnitPlatform()
 }
+
+tasks.test {
+    useJUnitPlatform {
+        excludeTags("load", "explain")
+    }
+}
+
+// Editor load test against the application in test mode: ./gradlew loadTest -Dload.teams=50
+val loadTest by tasks.registering(Test::class) {
+    description = "Runs the editor WebSocket load test."
+    group = "verification"
+    testClassesDirs = sourceSets.test.get().output.classesDirs
+    classpath = sourceSets.test.get().runtimeClasspath
+    useJUnitPlatform {
+        includeTags("load")
+    }
+    System.getProperties().stringPropertyNames()
+        .filter { it.startsWith("load.") }
+        .forEach { systemProperty(it, System.getProperty(it)) }
+    testLogging {
+        showStandardStreams = true
+    }
+    outputs.upToDateWhen { false }
+}
+
+// Query plan checks of the event lookups on seeded data: ./gradlew explainTest -Dexplain.events-per-team=2000
+val explainTest by tasks.registering(Test::class) {
+    description = "Checks with EXPLAIN that the event queries use their indexes."
+    group = "verification"
+    testClassesDirs = sourceSets.test.get().output.classesDirs
+    classpath = sourceSets.test.get().runtimeClasspath
+    useJUnitPlatform {
+        includeTags("explain")
+    }
+    System.getProperties().stringPropertyNames()
+        .filter { it.startsWith("explain.") }
+        .forEach { systemProperty(it, System.getProperty(it)) }
+    outputs.upToDateWhen { false }
+}
+
+jmh {
+    jmhVersion = "1.37"
+    fork = 1
+    warmupIterations = 3
+    iterations = 5
+}
@@ -1,7 +1,7 @@
 import React, { useState, useEffect, useRef, useCallback } from 'react';
-import SockJS from 'sockjs-client';
+import { createWebSocket } from '../../services/websocket';
 import { Client, IMessage } from '@stomp/stompjs';
-import { CodeChangeMessage, AuthUser } from '../../types';
+import { CodeChangeMessage, CodeDeltaMessage, CodeSnapshotMessage, AuthUser } from '../../types';
 import styles from './CodeEditor.module.scss';
 
 interface CodeEditorProps {
@@ -20,6 +20,64 @@ interface UserCodeArea {
   isEditable: boolean; // Can current user edit this area
 }
 
+// Apply a change to the code of an area the same way the server applies it to its buffer
+const applyChangeToCode = (code: string, change: CodeChangeMessage): string => {
+  const content = change.content || '';
+  const type = change.type || 'REPLACE';
+  if (type === 'REPLACE' && (change.lineNumber == null || content.includes('\n'))) {
+    return content;
+  }
+  const lineIndex = (change.lineNumber ?? 0) - 1;
+  if (lineIndex < 0) {
+    return code;
+  }
+  const lines = code.split('\n');
+  if (type === 'INSERT' || type === 'DELETE') {
+    if (lineIndex >= lines.length) {
+      return code;
+    }
+    let offset = 0;
+    for (let i = 0; i < lineIndex; i++) {
+      offset += lines[i].length + 1;
+    }
+    offset += Math.max(0, Math.min(change.position ?? 0, lines[lineIndex].length));
+    return type === 'INSERT'
+      ? code.slice(0, offset) + content + code.slice(offset)
+      : code.slice(0, offset) + code.slice(offset + content.length);
+  }
+  // Single line update (legacy support)
+  while (lineIndex >= lines.length) {
+    lines.push('');
+  }
+  lines[lineIndex] = content;
+  return lines.join('\n');
+};
+
+// The edited range between two versions of a text: the part between their common prefix and suffix
+const diffRange = (oldCode: string, newCode: string) => {
+  let start = 0;
+  const maxPrefix = Math.min(oldCode.length, newCode.length);
+  while (start < maxPrefix && oldCode[start] === newCode[start]) {
+    start++;
+  }
+  let suffix = 0;
+  while (suffix < oldCode.length - start && suffix < newCode.length - start
+    && oldCode[oldCode.length - 1 - suffix] === newCode[newCode.length - 1 - suffix]) {
+    suffix++;
+  }
+  const before = oldCode.slice(0, start);
+  return {
+    lineNumber: before.split('\n').length,
+    position: start - (before.lastIndexOf('\n') + 1),
+    removed: oldCode.slice(start, oldCode.length - suffix),
+    inserted: newCode.slice(start, newCode.length - suffix),
+  };
+};
+
+// First wait for a sync reply, doubled on every retry up to SYNC_MAX_TIMEOUT_MS
+const SYNC_TIMEOUT_MS = 3000;
+const SYNC_MAX_TIMEOUT_MS = 30000;
+
 const CodeEditor: React.FC<CodeEditorProps> = ({ teamId, taskId, isElder, isCurator, onCodeChange }) => {
   // Map: userId -> UserCodeArea
   const [userCodeAreas, setUserCodeAreas] = useState<Map<string, UserCodeArea>>(new Map());
@@ -27,8 +85,20 @@ const CodeEditor: React.FC<CodeEditorProps> = ({ teamId, taskId, isElder, isCura
   const stompClientRef = useRef<Client | null>(null);
   const isConnectedRef = useRef(false);
   const currentTeamIdRef = useRef<number | null>(null);
-  const syncTimeoutRef = useRef<NodeJS.Timeout | null>(null);
-  const receivedCodesRef = useRef<Array<{ fromUserId: string; code: string; userRole?: string; timestamp: number }>>([]);
+  // Last team revision applied locally; changes with revision <= this are already included
+  const revisionRef = useRef<number>(0);
+  // Team the revision belongs to; reconnecting to the same team resumes from it
+  const revisionTeamIdRef = useRef<number | null>(null);
+  // Server document epoch of the revision; after a server restart the revisions start over in a new epoch
+  const epochRef = useRef<number | null>(null);
+  // Changes received while waiting for the snapshot, null when not waiting
+  const pendingChangesRef = useRef<CodeChangeMessage[] | null>(null);
+  // Re-sends the sync request if no snapshot or delta arrives in time
+  const syncTimeoutRef = useRef<ReturnType<typeof setTimeout> | null>(null);
+  // Our own area as the server has it; every edit is sent as a range change against it
+  const sentCodeRef = useRef<string>('');
+  // Our own area as it is shown, sent in full when the server asks for a resync
+  const localCodeRef = useRef<string>('');
   
   const userStr = localStorage.getItem('user');
   const user: AuthUser | null = userStr ? JSON.parse(userStr) : null;
@@ -78,44 +148,25 @@ const CodeEditor: React.FC<CodeEditorProps> = ({ teamId, taskId, isElder, isCura
       setUserCodeAreas((prev) => {
         const newAreas = new Map(prev);
         const existing = newAreas.get(change.userId);
-        
-        if (existing) {
-          const lines = existing.code.split('\n');
-          const lineIndex = change.lineNumber - 1;
-          
-          // Ensure line exists
-          while (lineIndex >= lines.length) {
-            lines.push('');
-          }
-          
-          if (lineIndex >= 0) {
-            lines[lineIndex] = change.content || '';
-            newAreas.set(change.userId, {
-              ...existing,
-              code: lines.join('\n'),
-            });
-          }
-        } else {
-          // Create new area if it doesn't exist
-          const lines: string[] = [];
-          while (lines.length <= change.lineNumber - 1) {
-            lines.push('');
-          }
-          lines[change.lineNumber - 1] = change.content || '';
-          newAreas.set(change.userId, {
-            userId: change.userId,
-            username: change.userId,
-            userRole: change.userRole || 'STUDENT',
-            code: lines.join('\n'),
-            isEditable: false,
-          });
-        }
-        
+        newAreas.set(change.userId, {
+          userId: change.userId,
+          username: existing?.username || change.userId,
+          userRole: change.userRole || existing?.userRole || 'STUDENT',
+          code: applyChangeToCode(existing?.code || '', change),
+          isEditable: false,
+        });
         return newAreas;
       });
     }
   }, [user]);
 
+  const clearSyncTimeout = () => {
+    if (syncTimeoutRef.current) {
+      clearTimeout(syncTimeoutRef.current);
+      syncTimeoutRef.current = null;
+    }
+  };
+
   // Notify parent component about elder's code change (for submission)
   useEffect(() => {
     if (onCodeChange && isElder && user) {
@@ -161,8 +212,15 @@ const CodeEditor: React.FC<CodeEditorProps> = ({ teamId, taskId, isElder, isCura
     console.log('Connecting WebSocket for team:', teamId);
     isConnectedRef.current = true;
     currentTeamIdRef.current = teamId;
+    if (revisionTeamIdRef.current !== teamId) {
+      revisionRef.current = 0;
+      revisionTeamIdRef.current = teamId;
+      epochRef.current = null;
+      sentCodeRef.current = '';
+      localCodeRef.current = '';
+    }
 
-    const socket = new SockJS('http://localhost:8181/ws');
+    const socket = createWebSocket();
     const client = new Client({
       webSocketFactory: () => socket,
       reconnectDelay: 0, // Disable automatic reconnection - we handle it manually
@@ -174,131 +232,128 @@ const CodeEditor: React.FC<CodeEditorProps> = ({ teamId, taskId, isElder, isCura
       onConnect: () => {
         console.log('WebSocket connected');
         
-        // Subscribe to code sync requests - when someone requests code, send ours
-        client.subscribe(`/topic/code/sync/request/${teamId}`, (message: IMessage) => {
+        // Apply a change from another user to their area
+        const applyRemoteChange = (change: CodeChangeMessage) => {
+          if (!change.userId || change.userId === user?.username) {
+            return;
+          }
+          console.log('Applying change from user:', change.userId);
+          setUserCodeAreas((prev) => {
+            const newAreas = new Map(prev);
+            const existing = newAreas.get(change.userId);
+            newAreas.set(change.userId, {
+              userId: change.userId,
+              username: existing?.username || change.userId,
+              userRole: change.userRole || existing?.userRole || 'STUDENT',
+              code: applyChangeToCode(existing?.code || '', change),
+              isEditable: false,
+            });
+            return newAreas;
+          });
+        };
+
+        // Subscribe to the snapshot served by the server for this user only
+        client.subscribe('/user/queue/code/sync', (message: IMessage) => {
           try {
-            const request = JSON.parse(message.body);
-            console.log('Received code sync request from:', request.requestingUserId);
-            
-            // Don't send code to ourselves
-            if (request.requestingUserId === user?.username) {
+            const snapshot: CodeSnapshotMessage = JSON.parse(message.body);
+            // A late reply to a request that has been re-sent meanwhile
+            if (snapshot.teamId !== teamId || pendingChangesRef.current === null) {
               return;
             }
+            clearSyncTimeout();
+            console.log('Received code snapshot at revision', snapshot.revision, 'areas:', snapshot.areas.length);
+
+            // Our next edit is diffed against the server's copy of our area, which brings it up to date
+            const ownArea = snapshot.areas.find((area) => area.userId === user?.username);
+            sentCodeRef.current = ownArea?.code || '';
+            if (!localCodeRef.current && ownArea?.code) {
+              localCodeRef.current = ownArea.code;
+            }
             
-            // Send our current code in the topic (broadcast)
-            // Get current area from state directly to avoid dependency issues
             setUserCodeAreas((prev) => {
-              const currentArea = prev.get(user?.username || '');
-              if (currentArea || true) { // Always send, even if empty
-                // Always send code, even if empty, so the new user knows about our area
-                console.log('Sending code in topic for requesting user:', request.requestingUserId);
-                client.publish({
-                  destination: `/app/code/sync/response/${teamId}`,
-                  body: JSON.stringify({
-                    teamId,
-                    code: currentArea?.code || '',
-                    fromUserId: user?.username,
-                    requestingUserId: request.requestingUserId, // Include requesting user ID so new user can filter
-                    userRole: getUserRole(), // Include user role
-                  }),
+              const newAreas = new Map(prev);
+              snapshot.areas.forEach((area) => {
+                const existing = newAreas.get(area.userId);
+                if (area.userId === user?.username) {
+                  // Restore our own code after reconnect, but never overwrite local edits
+                  if (existing && !existing.code) {
+                    newAreas.set(area.userId, { ...existing, code: area.code || '' });
+                  }
+                  return;
+                }
+                newAreas.set(area.userId, {
+                  userId: area.userId,
+                  username: existing?.username || area.userId,
+                  userRole: area.userRole || 'STUDENT',
+                  code: area.code || '',
+                  isEditable: false, // Not editable by current user
                 });
-              }
-              return prev; // Return unchanged
+              });
+              return newAreas;
             });
+            
+            // Apply only changes made after the snapshot
+            epochRef.current = snapshot.epoch;
+            revisionRef.current = snapshot.revision;
+            const pending = pendingChangesRef.current || [];
+            pendingChangesRef.current = null;
+            pending
+              .filter((change) => (change.revision ?? 0) > snapshot.revision)
+              .forEach((change) => {
+                revisionRef.current = change.revision ?? revisionRef.current;
+                applyRemoteChange(change);
+              });
           } catch (err) {
-            console.error('Error handling code sync request:', err);
+            console.error('Error parsing code snapshot:', err);
           }
         });
 
-        // Subscribe to code sync responses in topic - when participants send their code
-        client.subscribe(`/topic/code/sync/response/${teamId}`, (message: IMessage) => {
+        // Subscribe to the changes missed while disconnected, sent instead of a snapshot when resuming
+        client.subscribe('/user/queue/code/delta', (message: IMessage) => {
           try {
-            const sync = JSON.parse(message.body);
-            console.log('Received code sync response from:', sync.fromUserId, 'Code length:', sync.code?.length);
-            
-            // Only process if this response is for us (when we requested) or if requestingUserId is not set (legacy)
-            if (sync.requestingUserId && sync.requestingUserId !== user?.username) {
-              console.log('Ignoring code sync response not intended for us');
+            const delta: CodeDeltaMessage = JSON.parse(message.body);
+            if (delta.teamId !== teamId || delta.epoch !== epochRef.current || pendingChangesRef.current === null) {
               return;
             }
-            
-            // Ignore code from ourselves
-            if (sync.fromUserId === user?.username) {
-              console.log('Ignoring code sync from self');
-              return;
-            }
-            
-            // Store received code with timestamp and role
-            receivedCodesRef.current.push({
-              fromUserId: sync.fromUserId,
-              code: sync.code || '',
-              userRole: (sync as any).userRole,
-              timestamp: Date.now(),
-            });
-            
-            // Wait a bit to collect all responses, then apply them
-            if (syncTimeoutRef.current) {
-              clearTimeout(syncTimeoutRef.current);
-            }
-            
-            syncTimeoutRef.current = setTimeout(() => {
-              if (receivedCodesRef.current.length === 0) {
-                return;
-              }
-              
-              // Filter out codes from self (just in case)
-              const validCodes = receivedCodesRef.current.filter(
-                c => c.fromUserId !== user?.username
-              );
-              
-              if (validCodes.length === 0) {
-                console.warn('No valid code received from other participants');
-                receivedCodesRef.current = [];
-                return;
-              }
-              
-              console.log('Applying codes from', validCodes.length, 'participants');
-              
-              // Apply each code to its corresponding user area
-              // Also create areas for users we received code from
-              validCodes.forEach((codeData) => {
-                setUserCodeAreas((prev) => {
-                  const newAreas = new Map(prev);
-                  const existing = newAreas.get(codeData.fromUserId);
-                  if (existing) {
-                    newAreas.set(codeData.fromUserId, {
-                      ...existing,
-                      code: codeData.code,
-                    });
-                  } else {
-                    // Create new area for this user
-                    newAreas.set(codeData.fromUserId, {
-                      userId: codeData.fromUserId,
-                      username: codeData.fromUserId,
-                      userRole: codeData.userRole || 'STUDENT', // Use role from sync message
-                      code: codeData.code,
-                      isEditable: false, // Not editable by current user
-                    });
-                  }
-                  return newAreas;
-                });
+            clearSyncTimeout();
+            console.log('Resuming from revision', delta.fromRevision, 'with', delta.changes.length, 'changes');
+            delta.changes
+              .filter((change) => (change.revision ?? 0) > revisionRef.current)
+              .forEach(applyRemoteChange);
+            revisionRef.current = Math.max(revisionRef.current, delta.revision);
+            const pending = pendingChangesRef.current || [];
+            pendingChangesRef.current = null;
+            pending
+              .filter((change) => (change.revision ?? 0) > revisionRef.current)
+              .forEach((change) => {
+                revisionRef.current = change.revision ?? revisionRef.current;
+                applyRemoteChange(change);
               });
-              
-              receivedCodesRef.current = [];
-            }, 500); // Wait 500ms to collect all responses
           } catch (err) {
-            console.error('Error parsing code sync response:', err);
+            console.error('Error parsing code delta:', err);
           }
         });
 
-        // Request code from all participants
-        console.log('Requesting code from all participants');
-        client.publish({
-          destination: `/app/code/sync/request/${teamId}`,
-          body: JSON.stringify({
-            teamId,
-            requestingUserId: user?.username,
-          }),
+        // The server rejected one of our edits, its copy of our area differs: send the whole area
+        client.subscribe('/user/queue/code/resync', (message: IMessage) => {
+          const rejected: CodeChangeMessage = JSON.parse(message.body);
+          if (rejected.teamId !== teamId || !user) {
+            return;
+          }
+          console.log('Server asked for a resync of our area');
+          client.publish({
+            destination: `/app/code/change/${teamId}`,
+            body: JSON.stringify({
+              type: 'REPLACE',
+              teamId,
+              lineNumber: null,
+              content: localCodeRef.current,
+              position: 0,
+              userId: user.username,
+              userRole: getUserRole(),
+            }),
+          });
+          sentCodeRef.current = localCodeRef.current;
         });
 
         // Subscribe to code changes
@@ -306,77 +361,49 @@ const CodeEditor: React.FC<CodeEditorProps> = ({ teamId, taskId, isElder, isCura
           try {
             const change: CodeChangeMessage = JSON.parse(message.body);
             console.log('Received code change:', change);
-            // Apply changes from other users to their areas
-            if (change.userId && change.userId !== user?.username) {
-              console.log('Applying change from user:', change.userId);
-              // Apply change directly without using callback to avoid dependency issues
-              setUserCodeAreas((prev) => {
-                const newAreas = new Map(prev);
-                const existing = newAreas.get(change.userId);
-                
-                // Check if content contains newlines - if so, it's full code
-                const isFullCode = change.content && change.content.includes('\n');
-                
-                if (isFullCode) {
-                  // Full code update - replace entire code
-                  if (existing) {
-                    newAreas.set(change.userId, {
-                      ...existing,
-                      code: change.content || '',
-                      userRole: change.userRole || existing.userRole, // Update role if provided
-                    });
-                  } else {
-                    // Create new area with full code
-                    newAreas.set(change.userId, {
-                      userId: change.userId,
-                      username: change.userId,
-                      userRole: change.userRole || 'STUDENT',
-                      code: change.content || '',
-                      isEditable: false,
-                    });
-                  }
-                } else {
-                  // Single line update (legacy support)
-                  if (existing) {
-                    const lines = existing.code.split('\n');
-                    const lineIndex = change.lineNumber - 1;
-                    
-                    // Ensure line exists
-                    while (lineIndex >= lines.length) {
-                      lines.push('');
-                    }
-                    
-                    if (lineIndex >= 0) {
-                      lines[lineIndex] = change.content || '';
-                      newAreas.set(change.userId, {
-                        ...existing,
-                        code: lines.join('\n'),
-                      });
-                    }
-                  } else {
-                    // Create new area if it doesn't exist
-                    const lines: string[] = [];
-                    while (lines.length <= change.lineNumber - 1) {
-                      lines.push('');
-                    }
-                    lines[change.lineNumber - 1] = change.content || '';
-                    newAreas.set(change.userId, {
-                      userId: change.userId,
-                      username: change.userId,
-                      userRole: change.userRole || 'STUDENT',
-                      code: lines.join('\n'),
-                      isEditable: false,
-                    });
-                  }
-                }
-                
-                return newAreas;
-              });
+            
+            // Until the snapshot arrives we don't know which changes it already contains
+            if (pendingChangesRef.current) {
+              pendingChangesRef.current.push(change);
+              return;
+            }
+            if (change.revision !== undefined && change.revision <= revisionRef.current) {
+              return;
             }
+            if (change.revision !== undefined) {
+              revisionRef.current = change.revision;
+            }
+            applyRemoteChange(change);
           } catch (err) {
             console.error('Error parsing code change message:', err);
           }
         });
+
+        // Request current code of all participants from the server,
+        // or only the missed changes when we already have the code up to some revision.
+        // Live changes are buffered until the reply comes; if it is lost, the request is sent again.
+        const requestSync = (timeoutMs: number) => {
+          if (!client.connected || pendingChangesRef.current === null) {
+            return;
+          }
+          console.log('Requesting code sync from revision', revisionRef.current);
+          client.publish({
+            destination: `/app/code/sync/request/${teamId}`,
+            body: JSON.stringify({
+              teamId,
+              requestingUserId: user?.username,
+              revision: revisionRef.current > 0 ? revisionRef.current : null,
+              epoch: epochRef.current,
+            }),
+          });
+          clearSyncTimeout();
+          syncTimeoutRef.current = setTimeout(() => {
+            console.warn('No code sync reply within', timeoutMs, 'ms, requesting again');
+            requestSync(Math.min(timeoutMs * 2, SYNC_MAX_TIMEOUT_MS));
+          }, timeoutMs);
+        };
+        pendingChangesRef.current = [];
+        requestSync(SYNC_TIMEOUT_MS);
       },
       onStompError: (frame) => {
         console.error('STOMP error:', frame);
@@ -401,10 +428,8 @@ const CodeEditor: React.FC<CodeEditorProps> = ({ teamId, taskId, isElder, isCura
     return () => {
       if (currentTeamIdRef.current === teamId) {
         console.log('Cleaning up WebSocket connection for team:', teamId);
-        if (syncTimeoutRef.current) {
-          clearTimeout(syncTimeoutRef.current);
-        }
-        receivedCodesRef.current = [];
+        pendingChangesRef.current = null;
+        clearSyncTimeout();
         if (stompClientRef.current) {
           // Deactivate without reconnecting
           stompClientRef.current.deactivate().then(() => {
@@ -441,47 +466,44 @@ const CodeEditor: React.FC<CodeEditorProps> = ({ teamId, taskId, isElder, isCura
 
   const handleCodeChange = useCallback((userId: string, e: React.ChangeEvent<HTMLTextAreaElement>) => {
     const newCode = e.target.value;
-    const selectionStart = e.target.selectionStart;
-    const lines = newCode.split('\n');
-    let currentLine = 1;
-    let currentPos = 0;
-    
-    for (let i = 0; i < lines.length; i++) {
-      if (currentPos + lines[i].length + 1 > selectionStart) {
-        currentLine = i + 1;
-        currentPos = selectionStart - currentPos;
-        break;
-      }
-      currentPos += lines[i].length + 1;
-    }
 
     // Update local code immediately
     updateUserCode(userId, newCode);
+    if (user && userId === user.username) {
+      localCodeRef.current = newCode;
+    }
     
-    // Send full code to server when user edits their area
+    // Send only the edited range, as a DELETE of the replaced text and an INSERT of the new one
     if (stompClientRef.current?.connected && user && userId === user.username) {
-      const oldArea = userCodeAreas.get(userId);
-      const oldCode = oldArea?.code || '';
-      
-      // Only send if code actually changed
-      if (newCode !== oldCode) {
-        const changeMessage = {
-          type: 'REPLACE',
-          teamId,
-          lineNumber: 1, // Not used when sending full code, but kept for compatibility
-          content: newCode, // Send full code instead of single line
-          position: currentPos,
-          userId: user.username,
-          userRole: getUserRole(), // Include user role
+      const baseCode = sentCodeRef.current;
+      if (newCode !== baseCode) {
+        const { lineNumber, position, removed, inserted } = diffRange(baseCode, newCode);
+        const send = (type: 'INSERT' | 'DELETE', content: string, baseLength: number) => {
+          const changeMessage: CodeChangeMessage = {
+            type,
+            teamId,
+            lineNumber,
+            content,
+            position,
+            userId: user.username,
+            userRole: getUserRole(),
+            baseLength,
+          };
+          stompClientRef.current?.publish({
+            destination: `/app/code/change/${teamId}`,
+            body: JSON.stringify(changeMessage),
+          });
         };
-        console.log('Sending full code change to server, length:', newCode.length);
-        stompClientRef.current.publish({
-          destination: `/app/code/change/${teamId}`,
-          body: JSON.stringify(changeMessage),
-        });
+        if (removed) {
+          send('DELETE', removed, baseCode.length);
+        }
+        if (inserted) {
+          send('INSERT', inserted, baseCode.length - removed.length);
+        }
+        sentCodeRef.current = newCode;
       }
     }
-  }, [userCodeAreas, user, teamId, updateUserCode]);
+  }, [user, teamId, updateUserCode]);
 
   // Get role display name
   const getRoleDisplayName = (role: string): string => {
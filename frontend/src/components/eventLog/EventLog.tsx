@@ -1,6 +1,6 @@
 import React, { useEffect, useState, useRef } from 'react';
 import { Client, IMessage } from '@stomp/stompjs';
-import SockJS from 'sockjs-client';
+import { createWebSocket } from '../../services/websocket';
 import { classSessionAPI } from '../../services/api';
 import { Event, EventDTO } from '../../types';
 import styles from './EventLog.module.scss';
@@ -17,8 +17,16 @@ const EventLog: React.FC<EventLogProps> = ({ classId, onClose, inline = false })
   const [error, setError] = useState<string>('');
   const stompClientRef = useRef<Client | null>(null);
   const subscriptionRef = useRef<any>(null); // Store subscription to avoid duplicates
+  const lastSeqRef = useRef<number | null>(null); // Number of the last live event, to resume after a reconnect
+  const lastSeqEpochRef = useRef<number | null>(null); // Numbering of lastSeqRef, the server restarts it now and then
+  const subscribedRef = useRef<boolean>(false); // Whether this class was subscribed to before
+  const lastTimeRef = useRef<string | null>(null); // Time of the newest event we have
 
   useEffect(() => {
+    lastSeqRef.current = null;
+    lastSeqEpochRef.current = null;
+    lastTimeRef.current = null;
+    subscribedRef.current = false;
     loadInitialEvents();
     
     // Subscribe to WebSocket events if inline mode
@@ -30,7 +38,8 @@ const EventLog: React.FC<EventLogProps> = ({ classId, onClose, inline = false })
       
       return () => {
         clearTimeout(timeoutId);
-        if (stompClientRef.current && stompClientRef.current.connected) {
+        // Also stops a pending reconnect
+        if (stompClientRef.current) {
           stompClientRef.current.deactivate();
           stompClientRef.current = null;
         }
@@ -38,7 +47,7 @@ const EventLog: React.FC<EventLogProps> = ({ classId, onClose, inline = false })
     }
     
     return () => {
-      if (stompClientRef.current && stompClientRef.current.connected) {
+      if (stompClientRef.current) {
         stompClientRef.current.deactivate();
         stompClientRef.current = null;
       }
@@ -50,7 +59,12 @@ const EventLog: React.FC<EventLogProps> = ({ classId, onClose, inline = false })
       setLoading(true);
       setError('');
       const res = await classSessionAPI.getClassEvents(classId);
-      setEvents(Array.isArray(res.data) ? res.data : []);
+      const loaded = Array.isArray(res.data) ? res.data : [];
+      setEvents(loaded);
+      // Events come newest first
+      if (loaded.length > 0 && isNewer(loaded[0].time, lastTimeRef.current)) {
+        lastTimeRef.current = loaded[0].time;
+      }
     } catch (err: any) {
       setError(err.response?.data?.message || 'Ошибка загрузки событий');
       setEvents([]);
@@ -59,6 +73,80 @@ const EventLog: React.FC<EventLogProps> = ({ classId, onClose, inline = false })
     }
   };
 
+  const isNewer = (time: string, than: string | null): boolean =>
+    !than || new Date(time).getTime() > new Date(than).getTime();
+
+  const handleClassEvent = (message: IMessage) => {
+    // The server could not fill the gap since our last event: reload the whole log
+    if (message.headers['replay-reset']) {
+      loadInitialEvents();
+      return;
+    }
+    try {
+      const event: EventDTO = JSON.parse(message.body);
+      console.log('Received class event:', event);
+      if (event.seq != null) {
+        // A new numbering replaces ours, numbers of different epochs can't be compared
+        if (event.seqEpoch !== lastSeqEpochRef.current) {
+          lastSeqEpochRef.current = event.seqEpoch ?? null;
+          lastSeqRef.current = event.seq;
+        } else if (lastSeqRef.current == null || event.seq > lastSeqRef.current) {
+          lastSeqRef.current = event.seq;
+        }
+      }
+      if (isNewer(event.time, lastTimeRef.current)) {
+        lastTimeRef.current = event.time;
+      }
+      
+      // Add new event to the list
+      setEvents(prev => {
+        // Check if event already exists (avoid duplicates, replayed events may repeat known ones)
+        if (prev.some(e => e.id === event.id)) {
+          console.log('Event already exists, skipping:', event.id);
+          return prev;
+        }
+        
+        // Convert EventDTO to Event format (null -> undefined)
+        const newEvent: Event = {
+          id: event.id,
+          time: event.time,
+          type: event.type as any,
+          teamId: event.teamId ?? undefined,
+          userRoleId: event.userRoleId ?? undefined,
+          submissionId: event.submissionId ?? undefined,
+          classId: event.classId ?? undefined,
+          taskId: event.taskId ?? undefined,
+        };
+        
+        console.log('Adding new event to list:', newEvent);
+        // Keep the list most recent first, replayed events are older than live ones
+        return [newEvent, ...prev].sort((a, b) => new Date(b.time).getTime() - new Date(a.time).getTime());
+      });
+    } catch (err) {
+      console.error('Error parsing class event:', err);
+    }
+  };
+
+  const subscribeToClassEvents = (client: Client) => {
+    const topic = `/topic/class/${classId}/events`;
+    // After a reconnect, ask for the events published while we were away
+    const headers: Record<string, string> = {};
+    if (lastSeqRef.current != null && lastSeqEpochRef.current != null) {
+      headers['since-seq'] = String(lastSeqRef.current);
+      headers['since-epoch'] = String(lastSeqEpochRef.current);
+      if (lastTimeRef.current) {
+        headers['since-time'] = lastTimeRef.current;
+      }
+    }
+    subscriptionRef.current = client.subscribe(topic, handleClassEvent, headers);
+    console.log('Subscribed to class events:', topic, headers);
+    if (subscribedRef.current && !headers['since-seq']) {
+      // No live event to resume from, what was published while we were away is only in the log
+      loadInitialEvents();
+    }
+    subscribedRef.current = true;
+  };
+
   const setupWebSocketSubscription = () => {
     const token = localStorage.getItem('token');
     if (!token) {
@@ -73,52 +161,15 @@ const EventLog: React.FC<EventLogProps> = ({ classId, onClose, inline = false })
         subscriptionRef.current.unsubscribe();
         subscriptionRef.current = null;
       }
-      
-      const topic = `/topic/class/${classId}/events`;
-      console.log('Already connected, subscribing to class events:', topic);
-      
-      // Subscribe to class events
-      subscriptionRef.current = stompClientRef.current.subscribe(topic, (message: IMessage) => {
-        try {
-          const event: EventDTO = JSON.parse(message.body);
-          console.log('Received class event:', event);
-          
-          // Add new event to the list
-          setEvents(prev => {
-            // Check if event already exists (avoid duplicates)
-            if (prev.some(e => e.id === event.id)) {
-              console.log('Event already exists, skipping:', event.id);
-              return prev;
-            }
-            
-            // Convert EventDTO to Event format (null -> undefined)
-            const newEvent: Event = {
-              id: event.id,
-              time: event.time,
-              type: event.type as any,
-              teamId: event.teamId ?? undefined,
-              userRoleId: event.userRoleId ?? undefined,
-              submissionId: event.submissionId ?? undefined,
-              classId: event.classId ?? undefined,
-              taskId: event.taskId ?? undefined,
-            };
-            
-            console.log('Adding new event to list:', newEvent);
-            // Add to beginning of list (most recent first)
-            return [newEvent, ...prev];
-          });
-        } catch (err) {
-          console.error('Error parsing class event:', err);
-        }
-      });
+      subscribeToClassEvents(stompClientRef.current);
       return;
     }
 
     // Create new connection
-    const socket = new SockJS('http://localhost:8181/ws');
     const client = new Client({
-      webSocketFactory: () => socket,
-      reconnectDelay: 0,
+      // A fresh socket on every (re)connect
+      webSocketFactory: () => createWebSocket(),
+      reconnectDelay: 5000,
       heartbeatIncoming: 4000,
       heartbeatOutgoing: 4000,
       connectHeaders: {
@@ -126,43 +177,7 @@ const EventLog: React.FC<EventLogProps> = ({ classId, onClose, inline = false })
       },
       onConnect: () => {
         console.log('WebSocket connected for class events, classId:', classId);
-        
-        // Subscribe to class events
-        const topic = `/topic/class/${classId}/events`;
-        subscriptionRef.current = client.subscribe(topic, (message: IMessage) => {
-          try {
-            const event: EventDTO = JSON.parse(message.body);
-            console.log('Received class event:', event);
-            
-            // Add new event to the list
-            setEvents(prev => {
-              // Check if event already exists (avoid duplicates)
-              if (prev.some(e => e.id === event.id)) {
-                console.log('Event already exists, skipping:', event.id);
-                return prev;
-              }
-              
-              // Convert EventDTO to Event format (null -> undefined)
-              const newEvent: Event = {
-                id: event.id,
-                time: event.time,
-                type: event.type as any,
-                teamId: event.teamId ?? undefined,
-                userRoleId: event.userRoleId ?? undefined,
-                submissionId: event.submissionId ?? undefined,
-                classId: event.classId ?? undefined,
-                taskId: event.taskId ?? undefined,
-              };
-              
-              console.log('Adding new event to list:', newEvent);
-              // Add to beginning of list (most recent first)
-              return [newEvent, ...prev];
-            });
-          } catch (err) {
-            console.error('Error parsing class event:', err);
-          }
-        });
-        console.log('Subscribed to class events:', topic);
+        subscribeToClassEvents(client);
       },
       onStompError: (frame) => {
         console.error('STOMP error:', frame);
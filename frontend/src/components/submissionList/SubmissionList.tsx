@@ -1,6 +1,6 @@
 import React, { useEffect, useState, useRef, useCallback } from 'react';
 import { Client, IMessage, StompSubscription } from '@stomp/stompjs';
-import SockJS from 'sockjs-client';
+import { createWebSocket } from '../../services/websocket';
 import { classSessionAPI } from '../../services/api';
 import { Submission, EventDTO } from '../../types';
 import styles from './SubmissionList.module.scss';
@@ -64,7 +64,7 @@ const SubmissionList: React.FC<SubmissionListProps> = ({ teamId, inline = false
     }
 
     // Create new connection if not connected
-    const socket = new SockJS('http://localhost:8181/ws');
+    const socket = createWebSocket();
     const client = new Client({
       webSocketFactory: () => socket,
       reconnectDelay: 0,
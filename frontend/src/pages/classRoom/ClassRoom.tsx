@@ -1,7 +1,7 @@
 import React, { useState, useEffect, useCallback, useRef } from 'react';
 import { useParams, useNavigate } from 'react-router-dom';
 import { Client, IMessage } from '@stomp/stompjs';
-import SockJS from 'sockjs-client';
+import { createWebSocket } from '../../services/websocket';
 import Header from '../../components/header/Header';
 import CodeEditor from '../../components/codeEditor/CodeEditor';
 import TaskList from '../../components/taskList/TaskList';
@@ -9,7 +9,7 @@ import HandRaiseButton from '../../components/handRiseButton/HandRaiseButton';
 import EventLog from '../../components/eventLog/EventLog';
 import SubmissionList from '../../components/submissionList/SubmissionList';
 import { classAPI, taskAPI, teamAPI, classSessionAPI } from '../../services/api';
-import { Class, Task, Team, TeamResponseDTO, AuthUser, RoleEnum, EventDTO } from '../../types';
+import { Class, Task, Team, TeamResponseDTO, AuthUser, RoleEnum, EventDTO, TeamDashboardDTO } from '../../types';
 import { useAlert } from '../../hooks/useAlert';
 import styles from './ClassRoom.module.scss';
 
@@ -40,6 +40,10 @@ const ClassRoom: React.FC = () => {
   const stompClientRef = useRef<Client | null>(null);
   const subscribedTeamIdsRef = useRef<Set<number>>(new Set());
   const isConnectingRef = useRef<boolean>(false);
+  // Curator's dashboard deltas of the class, subscribed once per connection
+  const dashboardSubscribedRef = useRef<boolean>(false);
+  // Curator's UserRole ID from the dashboard, tells which teams they have joined
+  const viewerUserRoleIdRef = useRef<number | null>(null);
   
   const userStr = localStorage.getItem('user');
   const user: AuthUser | null = userStr ? JSON.parse(userStr) : null;
@@ -299,45 +303,30 @@ const ClassRoom: React.FC = () => {
   }, [classId, joined, isStudent, isCurator, navigate]);
 
   const loadTeamStatuses = useCallback(async () => {
-    // Load initial statuses for all teams - check if current curator is joined, blocked status, and hand raised status
-    if (!isCurator || allTeams.length === 0) return;
+    // Load initial statuses for all teams in one request - joined state of the current curator, blocked status, and hand raised status
+    if (!classId || !isCurator || allTeams.length === 0) return;
     
-    const statusPromises = allTeams.map(async (team) => {
-      try {
-        // Load all statuses in parallel
-        const [joinedRes, teamStatusRes] = await Promise.all([
-          classSessionAPI.isCuratorJoined(team.teamId),
-          classSessionAPI.getTeamStatus(team.teamId)
-        ]);
-        return {
-          teamId: team.teamId,
-          isCuratorJoined: joinedRes.data.isJoined,
-          isBlocked: teamStatusRes.data.isBlocked || false,
-          handRaised: teamStatusRes.data.handRaised || false,
-        };
-      } catch (err) {
-        console.error(`Error loading status for team ${team.teamId}:`, err);
-        return {
-          teamId: team.teamId,
-          isCuratorJoined: false,
-          isBlocked: false,
-          handRaised: false,
-        };
-      }
-    });
-    
-    const statuses = await Promise.all(statusPromises);
     const statusMap: Record<number, { isBlocked: boolean; isCuratorJoined: boolean; handRaised: boolean; loading: boolean }> = {};
-    statuses.forEach(({ teamId, isCuratorJoined, isBlocked, handRaised }) => {
-      statusMap[teamId] = { 
-        isBlocked, 
-        isCuratorJoined, 
-        handRaised,
-        loading: false 
-      };
-    });
+    try {
+      const res = await classSessionAPI.getClassDashboard(parseInt(classId));
+      const { viewerUserRoleId, teams } = res.data;
+      viewerUserRoleIdRef.current = viewerUserRoleId;
+      teams.forEach((team) => {
+        statusMap[team.teamId] = {
+          isBlocked: team.blocked,
+          isCuratorJoined: team.joinedCuratorIds.includes(viewerUserRoleId),
+          handRaised: team.handRaised,
+          loading: false
+        };
+      });
+    } catch (err) {
+      console.error('Error loading class dashboard:', err);
+      allTeams.forEach((team) => {
+        statusMap[team.teamId] = { isBlocked: false, isCuratorJoined: false, handRaised: false, loading: false };
+      });
+    }
     setTeamStatuses(statusMap);
-  }, [isCurator, allTeams]);
+  }, [isCurator, allTeams, classId]);
 
   // Load team statuses when curator opens the teams list (not in modal, but in main interface)
   useEffect(() => {
@@ -472,6 +461,25 @@ const ClassRoom: React.FC = () => {
 
   // loadJoinedCurators removed - curators list will be updated via WebSocket events
 
+  // Merge a team's new dashboard row, sent on /topic/class/{classId}/dashboard, into the curator's view
+  const handleDashboardDelta = useCallback((delta: TeamDashboardDTO) => {
+    setTeamStatuses(prev => {
+      const current = prev[delta.teamId] || { isBlocked: false, isCuratorJoined: false, handRaised: false, loading: false };
+      const viewerUserRoleId = viewerUserRoleIdRef.current;
+      return {
+        ...prev,
+        [delta.teamId]: {
+          ...current,
+          isBlocked: delta.blocked,
+          handRaised: delta.handRaised,
+          isCuratorJoined: viewerUserRoleId !== null
+            ? delta.joinedCuratorIds.includes(viewerUserRoleId)
+            : current.isCuratorJoined,
+        },
+      };
+    });
+  }, []);
+
   // Handle team events from WebSocket
   const handleTeamEvent = useCallback((event: EventDTO) => {
     if (!event.teamId) return;
@@ -611,6 +619,19 @@ const ClassRoom: React.FC = () => {
     const token = localStorage.getItem('token');
     if (!token) return;
     
+    // Curators follow the whole class through dashboard deltas
+    const subscribeToDashboard = (client: Client) => {
+      if (!isCurator || !classId || dashboardSubscribedRef.current) return;
+      client.subscribe(`/topic/class/${classId}/dashboard`, (message: IMessage) => {
+        try {
+          handleDashboardDelta(JSON.parse(message.body));
+        } catch (err) {
+          console.error('Error parsing dashboard delta:', err);
+        }
+      });
+      dashboardSubscribedRef.current = true;
+    };
+
     // Collect teams to subscribe to
     const teamsToSubscribe: number[] = [];
     if (team?.id) {
@@ -635,7 +656,7 @@ const ClassRoom: React.FC = () => {
     // Initialize WebSocket connection if not already connected
     if (!stompClientRef.current || !stompClientRef.current.connected) {
       isConnectingRef.current = true;
-      const socket = new SockJS('http://localhost:8181/ws');
+      const socket = createWebSocket();
       const client = new Client({
         webSocketFactory: () => socket,
         reconnectDelay: 0,
@@ -647,6 +668,8 @@ const ClassRoom: React.FC = () => {
         onConnect: () => {
           console.log('WebSocket connected for team events');
           isConnectingRef.current = false;
+          dashboardSubscribedRef.current = false;
+          subscribeToDashboard(client);
           
           // Subscribe to all relevant teams
           teamsToSubscribe.forEach(teamId => {
@@ -683,7 +706,8 @@ const ClassRoom: React.FC = () => {
       client.activate();
       stompClientRef.current = client;
     } else {
-      // Already connected, subscribe to new teams
+      // Already connected, subscribe to the dashboard and new teams
+      subscribeToDashboard(stompClientRef.current);
       teamsToSubscribe.forEach(teamId => {
         if (!subscribedTeamIdsRef.current.has(teamId)) {
           const topic = `/topic/team/${teamId}/events`;
@@ -712,7 +736,7 @@ const ClassRoom: React.FC = () => {
       // Don't cleanup on dependency changes, only on unmount
       // Cleanup will be handled by component unmount
     };
-  }, [team?.id, isCurator, allTeams, user, handleTeamEvent, isStudent, tasks]);
+  }, [team?.id, isCurator, allTeams, user, handleTeamEvent, handleDashboardDelta, isStudent, tasks, classId]);
   
   // Cleanup WebSocket on component unmount
   useEffect(() => {
@@ -722,6 +746,7 @@ const ClassRoom: React.FC = () => {
         stompClientRef.current.deactivate().catch(() => {});
         stompClientRef.current = null;
         subscribedTeamIdsRef.current.clear();
+        dashboardSubscribedRef.current = false;
       }
     };
   }, []);
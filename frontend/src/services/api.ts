@@ -17,6 +17,7 @@ import {
   ElderChangeRequest,
   ElderChangeRequestDTO,
   Task,
+  ClassDashboardDTO,
 } from '../types';
 
 const API_BASE_URL = process.env.REACT_APP_API_URL || 'http://localhost:8181/api';
@@ -248,6 +249,8 @@ export const classSessionAPI = {
     api.post(`/class-session/team/${teamId}/submit-solution/${taskId}`, { solution: solution || null, language: language || 'python' }),
   getClassEvents: (classId: number): Promise<AxiosResponse<any[]>> => 
     api.get(`/events/class/${classId}`),
+  getClassDashboard: (classId: number): Promise<AxiosResponse<ClassDashboardDTO>> => 
+    api.get(`/class-session/${classId}/dashboard`),
   getTeamStatus: (teamId: number): Promise<AxiosResponse<{ isBlocked: boolean; handRaised: boolean; selectedTaskId: number | null }>> => 
     api.get(`/class-session/team/${teamId}/status`),
   isCuratorJoined: (teamId: number): Promise<AxiosResponse<{ isJoined: boolean }>> => 
@@ -0,0 +1,26 @@
+import { IStompSocket } from '@stomp/stompjs';
+import SockJS from 'sockjs-client';
+
+const WS_BASE_URL = process.env.REACT_APP_WS_URL || 'http://localhost:8181';
+const NATIVE_FAILED_KEY = 'ws-native-failed';
+
+/**
+ * Socket for STOMP clients. Prefers the native WebSocket endpoint (/ws-native, permessage-deflate);
+ * once it has failed to open in this browser session, SockJS (/ws) is used instead.
+ */
+export const createWebSocket = (): IStompSocket => {
+  if (typeof WebSocket !== 'undefined' && sessionStorage.getItem(NATIVE_FAILED_KEY) !== 'true') {
+    const socket = new WebSocket(`${WS_BASE_URL.replace(/^http/, 'ws')}/ws-native`);
+    let opened = false;
+    socket.addEventListener('open', () => {
+      opened = true;
+    });
+    socket.addEventListener('close', () => {
+      if (!opened) {
+        sessionStorage.setItem(NATIVE_FAILED_KEY, 'true');
+      }
+    });
+    return socket as IStompSocket;
+  }
+  return new SockJS(`${WS_BASE_URL}/ws`) as unknown as IStompSocket;
+};
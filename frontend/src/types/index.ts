@@ -188,11 +188,60 @@ export interface RegisterRequest {
 export interface CodeChangeMessage {
   type: 'INSERT' | 'DELETE' | 'REPLACE';
   teamId: number;
-  lineNumber: number;
+  lineNumber: number | null; // null with REPLACE: content is the whole area
   content: string;
   position: number;
   userId: string;
   userRole?: string;
+  revision?: number; // Team document revision, set by server
+  baseLength?: number; // Length of the area the INSERT / DELETE was made against
+}
+
+export interface CodeSyncMessage {
+  teamId: number;
+  code: string;
+  userId: string;
+  userRole?: string;
+}
+
+export interface CodeSnapshotMessage {
+  teamId: number;
+  revision: number;
+  areas: CodeSyncMessage[];
+  epoch: number;
+}
+
+export interface CodeDeltaMessage {
+  teamId: number;
+  fromRevision: number;
+  revision: number;
+  changes: CodeChangeMessage[];
+  epoch: number;
+}
+
+export interface SubmissionDTO {
+  id: number;
+  complitionTime: string | null;
+  taskId: number | null;
+  teamId: number | null;
+  status: string;
+}
+
+export interface TeamDashboardDTO {
+  teamId: number;
+  blocked: boolean;
+  handRaised: boolean;
+  selectedTaskId: number | null;
+  joinedCuratorIds: number[];
+  lastVerdict: string | null;
+  lastVerdictSubmissionId: number | null;
+  submissions: SubmissionDTO[];
+}
+
+export interface ClassDashboardDTO {
+  classId: number;
+  viewerUserRoleId: number;
+  teams: TeamDashboardDTO[];
 }
 
 export interface EventDTO {
@@ -204,6 +253,8 @@ export interface EventDTO {
   submissionId: number | null;
   classId: number | null;
   taskId: number | null;
+  seq?: number | null;
+  seqEpoch?: number | null;
 }
 
 export interface LockMessage {
@@ -0,0 +1,89 @@
+package com.itmo.programmingclub.service.editor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.itmo.programmingclub.model.dto.websocket.CodeChangeMessage;
+import com.itmo.programmingclub.model.dto.websocket.CursorBatchMessage;
+import com.itmo.programmingclub.model.dto.websocket.CursorPositionMessage;
+
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Serialization cost of editor frames: {@link EditorBinaryCodec} against the Jackson 3 JSON mapper
+ * the STOMP message converter uses.
+ * Frame sizes are reported as the secondary results bytes and frames: bytes / frames is the size of one frame.
+ * Run with: ./gradlew jmh
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class EditorBinaryCodecBenchmark {
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private final UserDictionary dictionary = new UserDictionary();
+
+    private CodeChangeMessage change;
+    private CursorBatchMessage cursors;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class FrameSize {
+        public long bytes;
+        public long frames;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytes = 0;
+            frames = 0;
+        }
+
+        byte[] count(byte[] frame) {
+            bytes += frame.length;
+            frames++;
+            return frame;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        change = new CodeChangeMessage("INSERT", 42, 17, "x", 8, "student-with-long-name", "STUDENT", 12345L, 120);
+        List<CursorPositionMessage> positions = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            positions.add(new CursorPositionMessage(42, 10 + i, i * 3, "student" + i, i == 0 ? "ELDER" : "STUDENT"));
+        }
+        cursors = new CursorBatchMessage(42, positions);
+        positions.forEach(cursor -> dictionary.intern(cursor.getUserId(), cursor.getUserRole()));
+        dictionary.intern(change.getUserId(), change.getUserRole());
+    }
+
+    @Benchmark
+    public byte[] jsonChange(FrameSize size) {
+        return size.count(jsonMapper.writeValueAsBytes(change));
+    }
+
+    @Benchmark
+    public byte[] binaryChange(FrameSize size) {
+        return size.count(EditorBinaryCodec.encodeChange(change, dictionary::indexOf));
+    }
+
+    @Benchmark
+    public byte[] jsonCursors(FrameSize size) {
+        return size.count(jsonMapper.writeValueAsBytes(cursors));
+    }
+
+    @Benchmark
+    public byte[] binaryCursors(FrameSize size) {
+        return size.count(EditorBinaryCodec.encodeCursors(cursors, dictionary::indexOf));
+    }
+}
@@ -0,0 +1,101 @@
+package com.itmo.programmingclub.service.editor;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Compares line and range edits on {@link LineRope} with the previous
+ * split / Arrays.copyOf / String.join implementation of CodeEditorController.
+ * ropeRangeEdit is what a keystroke costs: the editor sends it as a DELETE / INSERT range edit;
+ * ropeFullReplace is the whole-area REPLACE it used to send instead.
+ * Run with: ./gradlew jmh
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LineRopeBenchmark {
+    @Param({"1000", "10000"})
+    private int lines;
+
+    private String legacyDocument;
+    private LineRope rope;
+    private int step;
+
+    @Setup
+    public void setUp() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            if (i > 0) {
+                builder.append('\n');
+            }
+            builder.append("    int value").append(i).append(" = compute(").append(i).append(");");
+        }
+        legacyDocument = builder.toString();
+        rope = LineRope.of(legacyDocument);
+    }
+
+    @Benchmark
+    public String legacyLineUpdate() {
+        int line = nextLine();
+        legacyDocument = legacyApplyChange(legacyDocument, line + 1, "    int updated = " + line + ";");
+        return legacyDocument;
+    }
+
+    @Benchmark
+    public LineRope ropeLineUpdate() {
+        int line = nextLine();
+        rope.setLine(line, "    int updated = " + line + ";");
+        return rope;
+    }
+
+    @Benchmark
+    public LineRope ropeRangeEdit() {
+        int line = nextLine();
+        int offset = rope.offsetOf(line) + 4;
+        // Type one character and delete it again, keeping the document size stable
+        rope.replace(offset, 0, "x");
+        rope.replace(offset, 1, "");
+        return rope;
+    }
+
+    @Benchmark
+    public LineRope ropeFullReplace() {
+        rope = LineRope.of(legacyDocument);
+        return rope;
+    }
+
+    @Benchmark
+    public String ropeSnapshot() {
+        return rope.toString();
+    }
+
+    private int nextLine() {
+        step = (step + 7919) % lines;
+        return step;
+    }
+
+    /**
+     * Copy of the previous CodeEditorController.applyChange
+     */
+    private static String legacyApplyChange(String currentCode, int lineNumber, String content) {
+        String[] codeLines = currentCode.split("\n", -1);
+        int lineIndex = lineNumber - 1;
+
+        while (codeLines.length <= lineIndex) {
+            codeLines = Arrays.copyOf(codeLines, codeLines.length + 1);
+            codeLines[codeLines.length - 1] = "";
+        }
+
+        codeLines[lineIndex] = content;
+        return String.join("\n", codeLines);
+    }
+}
@@ -0,0 +1,171 @@
+package com.itmo.programmingclub.config;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.SessionLimitExceededException;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Outbound queue of one WebSocket session.
+ * Frames are queued and written by a sender thread, so broker threads never wait for a slow client.
+ * A queued frame for a snapshot destination (see {@link SlowConsumerGuard}) is replaced by a newer frame
+ * for the same destination instead of queueing both, so a slow client only gets the latest cursors / code snapshot.
+ * Frames that cannot be dropped (code deltas, lock changes) count against the buffer limit;
+ * exceeding it or the send time limit closes the session, and the client resyncs on reconnect.
+ */
+@Slf4j
+public class CoalescingSessionDecorator extends WebSocketSessionDecorator {
+    private final SlowConsumerGuard guard;
+    private final Deque<Frame> queue = new ArrayDeque<>();
+    // Map: destination -> queued frame that a newer frame for the destination replaces
+    private final Map<String, Frame> pendingSnapshots = new HashMap<>();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private int bufferSize;
+    private volatile long sendStartTime;
+    private volatile boolean limitExceeded;
+
+    private static final class Frame {
+        private WebSocketMessage<?> message;
+        private final String snapshotKey;
+
+        private Frame(WebSocketMessage<?> message, String snapshotKey) {
+            this.message = message;
+            this.snapshotKey = snapshotKey;
+        }
+    }
+
+    public CoalescingSessionDecorator(WebSocketSession delegate, SlowConsumerGuard guard) {
+        super(delegate);
+        this.guard = guard;
+    }
+
+    @Override
+    public void sendMessage(WebSocketMessage<?> message) throws IOException {
+        if (limitExceeded) {
+            return;
+        }
+        enqueue(message);
+
+        if (draining.compareAndSet(false, true)) {
+            guard.getSenderExecutor().execute(this::drain);
+        } else {
+            // The sender is still busy with earlier frames of this session
+            checkLimits();
+        }
+    }
+
+    private void enqueue(WebSocketMessage<?> message) {
+        String snapshotKey = guard.snapshotKeyOf(message);
+        synchronized (queue) {
+            Frame pending = snapshotKey != null ? pendingSnapshots.get(snapshotKey) : null;
+            if (pending != null) {
+                bufferSize += message.getPayloadLength() - pending.message.getPayloadLength();
+                pending.message = message;
+                guard.recordCoalesced();
+                return;
+            }
+            Frame frame = new Frame(message, snapshotKey);
+            queue.add(frame);
+            if (snapshotKey != null) {
+                pendingSnapshots.put(snapshotKey, frame);
+            }
+            bufferSize += message.getPayloadLength();
+        }
+    }
+
+    private void drain() {
+        try {
+            while (!limitExceeded && isOpen()) {
+                WebSocketMessage<?> message = poll();
+                if (message == null) {
+                    draining.set(false);
+                    // A frame may have been queued after the poll but before the flag was cleared
+                    if (hasQueuedFrames() && draining.compareAndSet(false, true)) {
+                        continue;
+                    }
+                    return;
+                }
+                sendStartTime = System.currentTimeMillis();
+                try {
+                    getDelegate().sendMessage(message);
+                } finally {
+                    sendStartTime = 0;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            log.debug("Failed to send to session {}: {}", getId(), e.getMessage());
+            closeQuietly(CloseStatus.SESSION_NOT_RELIABLE);
+        }
+        draining.set(false);
+    }
+
+    private WebSocketMessage<?> poll() {
+        synchronized (queue) {
+            Frame frame = queue.poll();
+            if (frame == null) {
+                return null;
+            }
+            if (frame.snapshotKey != null) {
+                pendingSnapshots.remove(frame.snapshotKey);
+            }
+            bufferSize -= frame.message.getPayloadLength();
+            return frame.message;
+        }
+    }
+
+    private void checkLimits() {
+        long startTime = sendStartTime;
+        if (startTime > 0 && System.currentTimeMillis() - startTime > guard.getSendTimeLimit()) {
+            limitExceeded("Send time " + (System.currentTimeMillis() - startTime) + " (ms) exceeded the limit");
+        }
+        int size;
+        synchronized (queue) {
+            size = bufferSize;
+        }
+        if (size > guard.getSendBufferSizeLimit()) {
+            limitExceeded("Buffer size " + size + " bytes exceeded the limit");
+        }
+        guard.recordDelayed();
+    }
+
+    private void limitExceeded(String reason) {
+        limitExceeded = true;
+        synchronized (queue) {
+            queue.clear();
+            pendingSnapshots.clear();
+            bufferSize = 0;
+        }
+        guard.recordTerminated();
+        // Handled by SubProtocolWebSocketHandler, which closes the session
+        throw new SessionLimitExceededException(reason + " for session " + getId(), CloseStatus.SESSION_NOT_RELIABLE);
+    }
+
+    private boolean hasQueuedFrames() {
+        synchronized (queue) {
+            return !queue.isEmpty();
+        }
+    }
+
+    private void closeQuietly(CloseStatus status) {
+        try {
+            getDelegate().close(status);
+        } catch (IOException e) {
+            log.debug("Failed to close session {}", getId(), e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getDelegate().toString();
+    }
+}
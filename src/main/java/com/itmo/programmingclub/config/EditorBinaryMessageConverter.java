@@ -0,0 +1,52 @@
+package com.itmo.programmingclub.config;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.AbstractMessageConverter;
+import org.springframework.messaging.converter.MessageConversionException;
+import org.springframework.util.MimeTypeUtils;
+
+import com.itmo.programmingclub.model.dto.websocket.CodeChangeMessage;
+import com.itmo.programmingclub.model.dto.websocket.CursorPositionMessage;
+import com.itmo.programmingclub.model.dto.websocket.LineLockMessage;
+import com.itmo.programmingclub.service.editor.EditorBinaryCodec;
+
+/**
+ * Reads editor messages that clients send as application/octet-stream in {@link EditorBinaryCodec} format.
+ * Outbound binary frames are encoded by EditorBinaryPublisher, which needs the team's user dictionary.
+ */
+public class EditorBinaryMessageConverter extends AbstractMessageConverter {
+
+    public EditorBinaryMessageConverter() {
+        super(MimeTypeUtils.APPLICATION_OCTET_STREAM);
+        setStrictContentTypeMatch(true);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return clazz == CodeChangeMessage.class || clazz == CursorPositionMessage.class || clazz == LineLockMessage.class;
+    }
+
+    @Override
+    protected boolean canConvertTo(Object payload, MessageHeaders headers) {
+        return false;
+    }
+
+    @Override
+    protected Object convertFromInternal(Message<?> message, Class<?> targetClass, Object conversionHint) {
+        if (!(message.getPayload() instanceof byte[] frame)) {
+            return null;
+        }
+        Object decoded;
+        try {
+            decoded = EditorBinaryCodec.decodeClientFrame(frame);
+        } catch (IllegalArgumentException e) {
+            throw new MessageConversionException(message, "Malformed editor frame: " + e.getMessage(), e);
+        }
+        if (!targetClass.isInstance(decoded)) {
+            throw new MessageConversionException(message,
+                    "Editor frame of type " + decoded.getClass().getSimpleName() + " sent to a " + targetClass.getSimpleName() + " handler");
+        }
+        return decoded;
+    }
+}
@@ -0,0 +1,88 @@
+package com.itmo.programmingclub.config;
+
+import java.security.Principal;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+import com.itmo.programmingclub.security.CustomUserDetails;
+import com.itmo.programmingclub.service.CodeEditorService;
+import com.itmo.programmingclub.service.EditorForwardingService;
+import com.itmo.programmingclub.service.EditorRoleService;
+import com.itmo.programmingclub.service.EditorSessionRegistry;
+import com.itmo.programmingclub.service.EditorTeamOwnershipService;
+import com.itmo.programmingclub.service.editor.EditorDestinations;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Resolves the editor role when a session subscribes to a team's editor topic,
+ * so code, cursor and lock messages of that session don't hit the database,
+ * records the team in {@link EditorSessionRegistry} for disconnect cleanup
+ * and starts loading the team's saved document in the background.
+ * In a cluster the document is loaded only by the node holding the team's editor,
+ * editor messages of a team held by another node are forwarded to it.
+ * Editor services are looked up lazily because they send through the messaging template this configuration creates.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class EditorSubscriptionInterceptor implements ChannelInterceptor {
+    private final EditorRoleService editorRoleService;
+    private final EditorSessionRegistry editorSessionRegistry;
+    private final ObjectProvider<CodeEditorService> codeEditorService;
+    private final ObjectProvider<EditorTeamOwnershipService> editorTeamOwnershipService;
+    private final ObjectProvider<EditorForwardingService> editorForwardingService;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor != null && StompCommand.SEND.equals(accessor.getCommand())) {
+            return routeToHolder(message, accessor);
+        }
+        if (accessor == null || !StompCommand.SUBSCRIBE.equals(accessor.getCommand())) {
+            return message;
+        }
+
+        Integer teamId = EditorDestinations.teamIdOf(accessor.getDestination());
+        Principal user = accessor.getUser();
+        if (teamId != null && user instanceof Authentication authentication
+                && authentication.getPrincipal() instanceof CustomUserDetails userDetails) {
+            String role = editorRoleService.getRole(accessor.getSessionAttributes(), userDetails, teamId);
+            editorSessionRegistry.register(accessor.getSessionId(), userDetails.getUsername(), teamId);
+            EditorTeamOwnershipService ownership = editorTeamOwnershipService.getIfAvailable();
+            if (ownership == null || ownership.claim(teamId)) {
+                codeEditorService.getObject().loadDocument(teamId);
+            }
+            log.debug("Session {} subscribed to team {} editor as {}", accessor.getSessionId(), teamId, role);
+        }
+        return message;
+    }
+
+    /**
+     * Editor messages run on the node holding the team, only it may change the team's document
+     */
+    private Message<?> routeToHolder(Message<?> message, StompHeaderAccessor accessor) {
+        Integer teamId = EditorDestinations.teamIdOf(accessor.getDestination());
+        EditorTeamOwnershipService ownership = editorTeamOwnershipService.getIfAvailable();
+        if (teamId == null || ownership == null || accessor.getUser() == null
+                || !(message.getPayload() instanceof byte[] payload)) {
+            return message;
+        }
+        String holder = ownership.holderOf(teamId);
+        if (holder == null) {
+            return message;
+        }
+        editorForwardingService.getObject().forward(holder, accessor, payload);
+        log.trace("Forwarded {} from session {} to node {}", accessor.getDestination(), accessor.getSessionId(), holder);
+        return null;
+    }
+}
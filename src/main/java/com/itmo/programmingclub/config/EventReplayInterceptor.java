@@ -0,0 +1,109 @@
+package com.itmo.programmingclub.config;
+
+import java.time.OffsetDateTime;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.broker.AbstractBrokerMessageHandler;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+
+import com.itmo.programmingclub.model.dto.EventDTO;
+import com.itmo.programmingclub.service.ClassEventReplayService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Resumes class event streams: a SUBSCRIBE to /topic/class/{classId}/events carrying {@code since-seq} and
+ * {@code since-epoch} headers of the last live event the client has (and optionally {@code since-time}, the time
+ * of its newest event) gets the events it missed, delivered on that subscription only, once the broker has
+ * registered it so no live event falls in between. Replays read from the database are sent when they are ready.
+ * When the gap can't be filled the subscription gets an empty message with a {@code replay-reset} header.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class EventReplayInterceptor implements ExecutorChannelInterceptor {
+    public static final String SINCE_SEQ_HEADER = "since-seq";
+    public static final String SINCE_EPOCH_HEADER = "since-epoch";
+    public static final String SINCE_TIME_HEADER = "since-time";
+    public static final String RESET_HEADER = "replay-reset";
+
+    private static final Pattern CLASS_EVENTS = Pattern.compile("^/topic/class/(\\d+)/events$");
+
+    private final ClassEventReplayService classEventReplayService;
+    private final JsonMapper jsonMapper;
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler, Exception ex) {
+        if (ex != null || !(handler instanceof AbstractBrokerMessageHandler broker)) {
+            return;
+        }
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || !StompCommand.SUBSCRIBE.equals(accessor.getCommand())
+                || accessor.getDestination() == null) {
+            return;
+        }
+        String sinceSeq = accessor.getFirstNativeHeader(SINCE_SEQ_HEADER);
+        Matcher matcher = CLASS_EVENTS.matcher(accessor.getDestination());
+        if (sinceSeq == null || !matcher.matches()) {
+            return;
+        }
+
+        try {
+            String sinceEpoch = accessor.getFirstNativeHeader(SINCE_EPOCH_HEADER);
+            String sinceTime = accessor.getFirstNativeHeader(SINCE_TIME_HEADER);
+            classEventReplayService.since(Integer.valueOf(matcher.group(1)),
+                            sinceEpoch != null ? Long.valueOf(sinceEpoch) : null, Long.parseLong(sinceSeq),
+                            sinceTime != null ? OffsetDateTime.parse(sinceTime) : null)
+                    .thenAccept(replay -> replay(broker.getClientOutboundChannel(), accessor, sinceSeq, replay))
+                    .exceptionally(e -> {
+                        log.warn("Could not resume {} for session {}: {}", accessor.getDestination(),
+                                accessor.getSessionId(), e.getMessage());
+                        return null;
+                    });
+        } catch (RuntimeException e) {
+            log.warn("Could not resume {} for session {}: {}", accessor.getDestination(), accessor.getSessionId(), e.getMessage());
+        }
+    }
+
+    private void replay(MessageChannel outbound, StompHeaderAccessor subscribe, String sinceSeq,
+                        ClassEventReplayService.Replay replay) {
+        if (replay.reset()) {
+            send(outbound, subscribe, new byte[0], true);
+        }
+        for (EventDTO event : replay.events()) {
+            send(outbound, subscribe, jsonMapper.writeValueAsBytes(event), false);
+        }
+        log.debug("Resumed {} of session {} after #{} with {} events{}", subscribe.getDestination(),
+                subscribe.getSessionId(), sinceSeq, replay.events().size(), replay.reset() ? " (reset)" : "");
+    }
+
+    /**
+     * Deliver a message to one subscription of one session, the way the broker does for its subscribers
+     */
+    private static void send(MessageChannel outbound, StompHeaderAccessor subscribe, byte[] payload, boolean reset) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setSessionId(subscribe.getSessionId());
+        headers.setSubscriptionId(subscribe.getSubscriptionId());
+        headers.setDestination(subscribe.getDestination());
+        headers.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        if (reset) {
+            headers.setNativeHeader(RESET_HEADER, "true");
+        }
+        headers.setLeaveMutable(true);
+        outbound.send(MessageBuilder.createMessage(payload, headers.getMessageHeaders()));
+    }
+}
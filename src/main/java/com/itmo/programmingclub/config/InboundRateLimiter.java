@@ -0,0 +1,174 @@
+package com.itmo.programmingclub.config;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+
+import com.itmo.programmingclub.model.dto.WebSocketMetricsDTO;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Limits how many editor frames one session may send: every session has a token bucket per
+ * destination prefix, frames arriving with an empty bucket are dropped before they reach the inbound lanes.
+ * A session throttled more than {@code disconnect-threshold} times within {@link #STRIKE_WINDOW_NANOS}
+ * gets an ERROR frame and is closed by the STOMP handler; a threshold of 0 only drops frames.
+ * Runs in the transport thread, so the check must stay cheap.
+ */
+@Component
+@Slf4j
+public class InboundRateLimiter implements ChannelInterceptor {
+    private static final long STRIKE_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    @Value("${app.websocket.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.websocket.rate-limit.code-change.per-second:50}")
+    private double codeChangeRate;
+
+    @Value("${app.websocket.rate-limit.code-change.burst:100}")
+    private double codeChangeBurst;
+
+    @Value("${app.websocket.rate-limit.cursor.per-second:30}")
+    private double cursorRate;
+
+    @Value("${app.websocket.rate-limit.cursor.burst:60}")
+    private double cursorBurst;
+
+    @Value("${app.websocket.rate-limit.lock.per-second:20}")
+    private double lockRate;
+
+    @Value("${app.websocket.rate-limit.lock.burst:40}")
+    private double lockBurst;
+
+    @Value("${app.websocket.rate-limit.disconnect-threshold:0}")
+    private int disconnectThreshold;
+
+    private List<Limit> limits;
+
+    // Map: sessionId -> buckets of the session, one per limit
+    private final Map<String, SessionBuckets> sessions = new ConcurrentHashMap<>();
+    private final LongAdder disconnectedSessions = new LongAdder();
+
+    private record Limit(String prefix, double perSecond, double burst, LongAdder throttled) {
+    }
+
+    @PostConstruct
+    public void init() {
+        limits = List.of(
+                new Limit("/app/code/change/", codeChangeRate, codeChangeBurst, new LongAdder()),
+                new Limit("/app/cursor/", cursorRate, cursorBurst, new LongAdder()),
+                new Limit("/app/lock/", lockRate, lockBurst, new LongAdder()));
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        if (!enabled) {
+            return message;
+        }
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getSessionId() == null) {
+            return message;
+        }
+        if (StompCommand.DISCONNECT.equals(accessor.getCommand())) {
+            sessions.remove(accessor.getSessionId());
+            return message;
+        }
+        if (!StompCommand.SEND.equals(accessor.getCommand()) || accessor.getDestination() == null) {
+            return message;
+        }
+
+        String destination = accessor.getDestination();
+        for (int i = 0; i < limits.size(); i++) {
+            Limit limit = limits.get(i);
+            if (!destination.startsWith(limit.prefix())) {
+                continue;
+            }
+            SessionBuckets buckets = sessions.computeIfAbsent(accessor.getSessionId(), id -> new SessionBuckets(limits));
+            long now = System.nanoTime();
+            if (buckets.tryAcquire(i, limit, now)) {
+                return message;
+            }
+            limit.throttled().increment();
+            if (disconnectThreshold > 0 && buckets.strike(now) > disconnectThreshold) {
+                sessions.remove(accessor.getSessionId());
+                disconnectedSessions.increment();
+                log.warn("Closing session {} of {}: too many frames to {}", accessor.getSessionId(),
+                        accessor.getUser() != null ? accessor.getUser().getName() : null, limit.prefix());
+                // Failing the send makes the STOMP handler reply with an ERROR frame and close the session
+                throw new MessageDeliveryException(message, "Rate limit exceeded for " + limit.prefix());
+            }
+            log.debug("Throttled frame of session {} to {}", accessor.getSessionId(), destination);
+            return null;
+        }
+        return message;
+    }
+
+    public WebSocketMetricsDTO.ThrottleMetrics getMetrics() {
+        Map<String, Long> throttledFrames = new LinkedHashMap<>();
+        limits.forEach(limit -> throttledFrames.put(limit.prefix(), limit.throttled().sum()));
+        return WebSocketMetricsDTO.ThrottleMetrics.builder()
+                .throttledFrames(throttledFrames)
+                .disconnectedSessions(disconnectedSessions.sum())
+                .trackedSessions(sessions.size())
+                .build();
+    }
+
+    /**
+     * Token buckets of one session. Frames of a session normally come from one transport thread,
+     * the monitor is uncontended.
+     */
+    private static final class SessionBuckets {
+        private final double[] tokens;
+        private final long[] refilledAt;
+        private long strikeWindowStart;
+        private int strikes;
+
+        private SessionBuckets(List<Limit> limits) {
+            tokens = new double[limits.size()];
+            refilledAt = new long[limits.size()];
+            long now = System.nanoTime();
+            for (int i = 0; i < tokens.length; i++) {
+                tokens[i] = limits.get(i).burst();
+                refilledAt[i] = now;
+            }
+            strikeWindowStart = now;
+        }
+
+        private synchronized boolean tryAcquire(int index, Limit limit, long now) {
+            double refill = (now - refilledAt[index]) / 1e9 * limit.perSecond();
+            tokens[index] = Math.min(limit.burst(), tokens[index] + refill);
+            refilledAt[index] = now;
+            if (tokens[index] < 1) {
+                return false;
+            }
+            tokens[index] -= 1;
+            return true;
+        }
+
+        /**
+         * Count a throttled frame, returns the number of throttled frames in the current window
+         */
+        private synchronized int strike(long now) {
+            if (now - strikeWindowStart > STRIKE_WINDOW_NANOS) {
+                strikeWindowStart = now;
+                strikes = 0;
+            }
+            return ++strikes;
+        }
+    }
+}
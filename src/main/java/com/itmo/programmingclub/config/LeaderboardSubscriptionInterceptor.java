@@ -0,0 +1,73 @@
+package com.itmo.programmingclub.config;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.broker.AbstractBrokerMessageHandler;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+
+import com.itmo.programmingclub.model.dto.ClassLeaderboardDTO;
+import com.itmo.programmingclub.service.ClassLeaderboardService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Sends the whole leaderboard to a new subscription of /topic/class/{classId}/leaderboard, on that subscription only,
+ * once the broker has registered it; the topic itself only carries rank changes.
+ * The service is looked up lazily because it sends through the messaging template this configuration creates.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class LeaderboardSubscriptionInterceptor implements ExecutorChannelInterceptor {
+    private static final Pattern CLASS_LEADERBOARD = Pattern.compile("^/topic/class/(\\d+)/leaderboard$");
+
+    private final ObjectProvider<ClassLeaderboardService> classLeaderboardService;
+    private final JsonMapper jsonMapper;
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler, Exception ex) {
+        if (ex != null || !(handler instanceof AbstractBrokerMessageHandler broker)) {
+            return;
+        }
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || !StompCommand.SUBSCRIBE.equals(accessor.getCommand())
+                || accessor.getDestination() == null) {
+            return;
+        }
+        Matcher matcher = CLASS_LEADERBOARD.matcher(accessor.getDestination());
+        if (!matcher.matches()) {
+            return;
+        }
+
+        try {
+            ClassLeaderboardDTO snapshot = classLeaderboardService.getObject().getSnapshot(Integer.valueOf(matcher.group(1)));
+            SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+            headers.setSessionId(accessor.getSessionId());
+            headers.setSubscriptionId(accessor.getSubscriptionId());
+            headers.setDestination(accessor.getDestination());
+            headers.setContentType(MimeTypeUtils.APPLICATION_JSON);
+            headers.setLeaveMutable(true);
+            broker.getClientOutboundChannel().send(
+                    MessageBuilder.createMessage(jsonMapper.writeValueAsBytes(snapshot), headers.getMessageHeaders()));
+            log.debug("Sent leaderboard v{} of {} to session {}", snapshot.getVersion(), accessor.getDestination(),
+                    accessor.getSessionId());
+        } catch (RuntimeException e) {
+            log.warn("Could not send leaderboard {} to session {}: {}", accessor.getDestination(), accessor.getSessionId(), e.getMessage());
+        }
+    }
+}
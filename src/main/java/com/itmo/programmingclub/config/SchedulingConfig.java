@@ -0,0 +1,42 @@
+package com.itmo.programmingclub.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * Schedulers of @Scheduled jobs.
+ * The editor ticks (cursor flush, lock leases) run on {@code editorTickScheduler}, so saves, event flushes
+ * and partition maintenance that block on the database can't delay them; every other job shares {@code taskScheduler}.
+ */
+@Configuration
+public class SchedulingConfig {
+
+    @Value("${spring.task.scheduling.pool.size:4}")
+    private int poolSize;
+
+    @Value("${app.editor.tick-pool-size:2}")
+    private int tickPoolSize;
+
+    /**
+     * Default scheduler; declared by name because the WebSocket broker and the editor ticks add schedulers of their own
+     */
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler() {
+        return scheduler(poolSize, "scheduling-");
+    }
+
+    @Bean
+    public ThreadPoolTaskScheduler editorTickScheduler() {
+        return scheduler(tickPoolSize, "editorTick-");
+    }
+
+    private static ThreadPoolTaskScheduler scheduler(int poolSize, String threadNamePrefix) {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(poolSize);
+        scheduler.setThreadNamePrefix(threadNamePrefix);
+        scheduler.setWaitForTasksToCompleteOnShutdown(true);
+        return scheduler;
+    }
+}
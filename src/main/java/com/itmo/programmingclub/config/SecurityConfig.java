@@ -56,6 +56,7 @@ public class SecurityConfig {
                         // SockJS uses /ws/info for info, and various transport endpoints (/ws/websocket, /ws/xhr, etc.)
                         // The actual WebSocket/STOMP connection is authenticated via JWT token in headers
                         .requestMatchers("/ws/**").permitAll()
+                        .requestMatchers("/ws-native").permitAll()
                         // Manager endpoints
                         // .requestMatchers("/api/managers/**").hasRole("MANAGER")
                         // .requestMatchers("/api/groups/**").hasRole("MANAGER")
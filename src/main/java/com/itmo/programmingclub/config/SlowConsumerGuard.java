@@ -0,0 +1,130 @@
+package com.itmo.programmingclub.config;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+
+import com.itmo.programmingclub.model.dto.WebSocketMetricsDTO;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Protects the server from slow clients: every session gets a {@link CoalescingSessionDecorator}
+ * with the configured send time and buffer limits, written by a shared pool of sender threads.
+ * Also counts coalesced, delayed and terminated sends.
+ */
+@Component
+public class SlowConsumerGuard implements WebSocketHandlerDecoratorFactory {
+    // Destinations whose every message is a full snapshot, so only the latest one matters
+    private static final List<String> SNAPSHOT_DESTINATIONS = List.of("/topic/cursor/", "/user/queue/code/sync");
+    private static final String DESTINATION_HEADER = "\ndestination:";
+
+    @Value("${app.websocket.send-time-limit-ms:10000}")
+    private int sendTimeLimit;
+
+    @Value("${app.websocket.send-buffer-size-limit:524288}")
+    private int sendBufferSizeLimit;
+
+    @Value("${app.websocket.outbound.sender-pool-size:8}")
+    private int senderPoolSize;
+
+    private ThreadPoolExecutor senderExecutor;
+
+    private final LongAdder coalescedFrames = new LongAdder();
+    private final LongAdder delayedFrames = new LongAdder();
+    private final LongAdder terminatedSessions = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        senderExecutor = new ThreadPoolExecutor(senderPoolSize, senderPoolSize, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), new CustomizableThreadFactory("clientOutboundSender-"));
+        senderExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senderExecutor.shutdown();
+    }
+
+    @Override
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                // Later callbacks carry the raw session, the sub-protocol handler looks the decorated one up by id
+                super.afterConnectionEstablished(new CoalescingSessionDecorator(session, SlowConsumerGuard.this));
+            }
+        };
+    }
+
+    /**
+     * Destination of a STOMP MESSAGE frame if it is a snapshot destination, null otherwise
+     */
+    String snapshotKeyOf(WebSocketMessage<?> message) {
+        if (!(message instanceof TextMessage textMessage)) {
+            return null;
+        }
+        String payload = textMessage.getPayload();
+        int headersEnd = payload.indexOf("\n\n");
+        int start = payload.indexOf(DESTINATION_HEADER);
+        if (start < 0 || (headersEnd >= 0 && start > headersEnd)) {
+            return null;
+        }
+        start += DESTINATION_HEADER.length();
+        int end = payload.indexOf('\n', start);
+        String destination = payload.substring(start, end < 0 ? payload.length() : end);
+        for (String prefix : SNAPSHOT_DESTINATIONS) {
+            if (destination.startsWith(prefix)) {
+                return destination;
+            }
+        }
+        return null;
+    }
+
+    Executor getSenderExecutor() {
+        return senderExecutor;
+    }
+
+    public int getSendTimeLimit() {
+        return sendTimeLimit;
+    }
+
+    public int getSendBufferSizeLimit() {
+        return sendBufferSizeLimit;
+    }
+
+    void recordCoalesced() {
+        coalescedFrames.increment();
+    }
+
+    void recordDelayed() {
+        delayedFrames.increment();
+    }
+
+    void recordTerminated() {
+        terminatedSessions.increment();
+    }
+
+    public WebSocketMetricsDTO.OutboundMetrics getMetrics() {
+        return WebSocketMetricsDTO.OutboundMetrics.builder()
+                .coalescedFrames(coalescedFrames.sum())
+                .delayedFrames(delayedFrames.sum())
+                .terminatedSessions(terminatedSessions.sum())
+                .senderQueueDepth(senderExecutor.getQueue().size())
+                .build();
+    }
+}
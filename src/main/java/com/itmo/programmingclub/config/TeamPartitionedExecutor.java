@@ -0,0 +1,86 @@
+package com.itmo.programmingclub.config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.MessageHandlingRunnable;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import com.itmo.programmingclub.model.dto.WebSocketMetricsDTO;
+import com.itmo.programmingclub.service.editor.EditorDestinations;
+
+/**
+ * Executor of the client inbound channel.
+ * Editor messages are routed by teamId onto single-threaded lanes, so messages of one team
+ * are handled one at a time and in arrival order, and a slow team only delays the teams sharing its lane.
+ * Everything else (CONNECT, SUBSCRIBE to non-editor topics, ...) runs on a shared pool.
+ */
+public class TeamPartitionedExecutor implements Executor {
+    private final ThreadPoolExecutor sharedPool;
+    private final ThreadPoolExecutor[] lanes;
+    private final AtomicInteger peakLaneQueueDepth = new AtomicInteger();
+
+    public TeamPartitionedExecutor(int poolSize, int laneCount) {
+        this.sharedPool = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), new CustomizableThreadFactory("clientInboundChannel-"));
+        this.sharedPool.allowCoreThreadTimeOut(true);
+        this.lanes = new ThreadPoolExecutor[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            lanes[i] = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(), new CustomizableThreadFactory("clientInboundTeam-" + i + "-"));
+        }
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        Integer teamId = teamIdOf(task);
+        if (teamId == null) {
+            sharedPool.execute(task);
+            return;
+        }
+        ThreadPoolExecutor lane = lanes[Math.floorMod(teamId, lanes.length)];
+        lane.execute(task);
+        peakLaneQueueDepth.accumulateAndGet(lane.getQueue().size(), Math::max);
+    }
+
+    public WebSocketMetricsDTO.InboundMetrics getMetrics() {
+        List<Integer> laneQueueDepths = new ArrayList<>(lanes.length);
+        long laneCompletedTasks = 0;
+        for (ThreadPoolExecutor lane : lanes) {
+            laneQueueDepths.add(lane.getQueue().size());
+            laneCompletedTasks += lane.getCompletedTaskCount();
+        }
+        return WebSocketMetricsDTO.InboundMetrics.builder()
+                .sharedPoolSize(sharedPool.getPoolSize())
+                .sharedActiveThreads(sharedPool.getActiveCount())
+                .sharedQueueDepth(sharedPool.getQueue().size())
+                .laneQueueDepths(laneQueueDepths)
+                .peakLaneQueueDepth(peakLaneQueueDepth.get())
+                .laneCompletedTasks(laneCompletedTasks)
+                .build();
+    }
+
+    /**
+     * Called by Spring when the context closes (inferred destroy method)
+     */
+    public void shutdown() {
+        sharedPool.shutdown();
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+    }
+
+    private static Integer teamIdOf(Runnable task) {
+        if (task instanceof MessageHandlingRunnable handlingRunnable) {
+            return EditorDestinations.teamIdOf(SimpMessageHeaderAccessor.getDestination(
+                    handlingRunnable.getMessage().getHeaders()));
+        }
+        return null;
+    }
+}
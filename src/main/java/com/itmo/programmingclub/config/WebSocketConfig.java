@@ -1,8 +1,14 @@
 package com.itmo.programmingclub.config;
 
+import java.util.List;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.converter.MessageConverter;
 import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.messaging.simp.stomp.StompCommand;
@@ -14,9 +20,11 @@ import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
 import com.itmo.programmingclub.security.CustomUserDetails;
 import com.itmo.programmingclub.security.JwtTokenProvider;
+import com.itmo.programmingclub.service.ClusterFanoutService;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -28,6 +36,26 @@ import lombok.extern.slf4j.Slf4j;
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     private final JwtTokenProvider jwtTokenProvider;
     private final UserDetailsService userDetailsService;
+    private final EditorSubscriptionInterceptor editorSubscriptionInterceptor;
+    private final SlowConsumerGuard slowConsumerGuard;
+    private final InboundRateLimiter inboundRateLimiter;
+    private final EventReplayInterceptor eventReplayInterceptor;
+    private final LeaderboardSubscriptionInterceptor leaderboardSubscriptionInterceptor;
+    private final ObjectProvider<ClusterFanoutService> clusterFanoutService;
+
+    @Value("${app.websocket.inbound.pool-size:8}")
+    private int inboundPoolSize;
+
+    @Value("${app.websocket.inbound.team-lanes:16}")
+    private int inboundTeamLanes;
+
+    /**
+     * Inbound executor with ordered per-team lanes, also exposed for metrics
+     */
+    @Bean
+    public TeamPartitionedExecutor teamPartitionedExecutor() {
+        return new TeamPartitionedExecutor(inboundPoolSize, inboundTeamLanes);
+    }
 
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
@@ -37,6 +65,8 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         config.setApplicationDestinationPrefixes("/app");
         // Prefix for user-specific destinations
         config.setUserDestinationPrefix("/user");
+        // Relay broadcasts to other application instances when clustering is enabled
+        clusterFanoutService.ifAvailable(relay -> config.configureBrokerChannel().interceptors(relay));
     }
 
     @Override
@@ -45,11 +75,32 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         registry.addEndpoint("/ws")
                 .setAllowedOriginPatterns("*")
                 .withSockJS();
+        // Raw WebSocket endpoint without SockJS framing; Tomcat negotiates permessage-deflate
+        // when the browser offers it. Clients prefer it and fall back to /ws when it can't be reached
+        registry.addEndpoint("/ws-native")
+                .setAllowedOriginPatterns("*");
+    }
+
+    @Override
+    public boolean configureMessageConverters(List<MessageConverter> messageConverters) {
+        // Binary editor frames from native WebSocket clients; the default converters are kept
+        messageConverters.add(new EditorBinaryMessageConverter());
+        return true;
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        // Spring's own limits stay as a backstop, sends are queued and limited by SlowConsumerGuard
+        registration.setSendTimeLimit(slowConsumerGuard.getSendTimeLimit())
+                .setSendBufferSizeLimit(slowConsumerGuard.getSendBufferSizeLimit())
+                .addDecoratorFactory(slowConsumerGuard);
     }
 
     @Override
     public void configureClientInboundChannel(ChannelRegistration registration) {
-        registration.interceptors(new ChannelInterceptor() {
+        registration.executor(teamPartitionedExecutor());
+        // Drop flooding frames first, before they cost anything else
+        registration.interceptors(inboundRateLimiter, new ChannelInterceptor() {
             @Override
             public Message<?> preSend(Message<?> message, MessageChannel channel) {
                 StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
@@ -89,7 +140,7 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                 
                 return message;
             }
-        });
+        }, editorSubscriptionInterceptor, eventReplayInterceptor, leaderboardSubscriptionInterceptor);
     }
 }
 
@@ -1,12 +1,12 @@
 package com.itmo.programmingclub.config;
 
-import com.itmo.programmingclub.security.CustomUserDetails;
 import com.itmo.programmingclub.service.CodeEditorService;
+import com.itmo.programmingclub.service.EditorForwardingService;
+import com.itmo.programmingclub.service.EditorSessionRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.event.EventListener;
-import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
-import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.messaging.SessionConnectedEvent;
 import org.springframework.web.socket.messaging.SessionDisconnectEvent;
@@ -19,6 +19,8 @@ import org.springframework.web.socket.messaging.SessionDisconnectEvent;
 @Slf4j
 public class WebSocketEventListener {
     private final CodeEditorService codeEditorService;
+    private final EditorSessionRegistry editorSessionRegistry;
+    private final ObjectProvider<EditorForwardingService> editorForwardingService;
 
     @EventListener
     public void handleWebSocketConnectListener(SessionConnectedEvent event) {
@@ -27,22 +29,15 @@ public class WebSocketEventListener {
 
     @EventListener
     public void handleWebSocketDisconnectListener(SessionDisconnectEvent event) {
-        StompHeaderAccessor headerAccessor = StompHeaderAccessor.wrap(event.getMessage());
-        
-        Authentication authentication = (Authentication) headerAccessor.getUser();
-        if (authentication != null && authentication.getPrincipal() instanceof CustomUserDetails) {
-            CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
-            String userId = userDetails.getUsername();
-            
-            // Note: We need to track which team the user was connected to
-            // This would ideally be stored in the session attributes
-            // For now, we'll unlock all lines for all teams (cleanup)
-            // In production, you'd store teamId in session attributes
-            
-            log.info("User disconnected: {}", userId);
+        EditorSessionRegistry.EditorSession session = editorSessionRegistry.remove(event.getSessionId());
+        if (session == null) {
+            log.info("User disconnected");
+            return;
         }
-        
-        log.info("User disconnected");
+
+        codeEditorService.removeSession(session);
+        // In a cluster the session may also be known to the nodes holding its teams
+        editorForwardingService.ifAvailable(forwarding -> forwarding.leave(event.getSessionId()));
+        log.info("User disconnected: {}, left teams {}", session.userId(), session.teamIds());
     }
 }
-
@@ -3,7 +3,6 @@ package com.itmo.programmingclub.controller;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -17,10 +16,12 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.itmo.programmingclub.model.dto.ClassDashboardDTO;
+import com.itmo.programmingclub.model.dto.ClassStatsDTO;
 import com.itmo.programmingclub.model.dto.SubmissionDTO;
 import com.itmo.programmingclub.model.entity.Submission;
-import com.itmo.programmingclub.model.entity.Task;
 import com.itmo.programmingclub.service.ClassSessionService;
+import com.itmo.programmingclub.service.TeamStateService;
 
 import lombok.RequiredArgsConstructor;
 
@@ -128,17 +129,31 @@ public class ClassSessionController {
         return ResponseEntity.ok(classSessionService.getTeamSubmissions(teamId));
     }
 
+    @GetMapping("/{classId}/dashboard")
+    @PreAuthorize("hasRole('CURATOR')")
+    public ResponseEntity<ClassDashboardDTO> getClassDashboard(@PathVariable Integer classId,
+                                                               @AuthenticationPrincipal UserDetails userDetails) {
+        return ResponseEntity.ok(classSessionService.getClassDashboard(classId, userDetails.getUsername()));
+    }
+
+    @GetMapping("/{classId}/stats")
+    @PreAuthorize("hasAnyRole('CURATOR', 'MANAGER')")
+    public ResponseEntity<ClassStatsDTO> getClassStats(@PathVariable Integer classId) {
+        return ResponseEntity.ok(classSessionService.getClassStats(classId));
+    }
+
     @GetMapping("/team/{teamId}/status")
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<Map<String, Object>> getTeamStatus(@PathVariable Integer teamId) {
-        boolean isBlocked = classSessionService.isTeamBlocked(teamId);
-        boolean handRaised = classSessionService.isHandRaised(teamId);
-        Optional<Task> selectedTask = classSessionService.getSelectedTaskForTeam(teamId);
+        TeamStateService.Snapshot state = classSessionService.getTeamState(teamId);
         
         Map<String, Object> status = new HashMap<>();
-        status.put("isBlocked", isBlocked);
-        status.put("handRaised", handRaised);
-        status.put("selectedTaskId", selectedTask.map(Task::getId).orElse(null));
+        status.put("isBlocked", state.blocked());
+        status.put("handRaised", state.handRaised());
+        status.put("selectedTaskId", state.selectedTaskId());
+        status.put("joinedCuratorIds", state.joinedCuratorIds());
+        status.put("lastVerdict", state.lastVerdict());
+        status.put("lastVerdictSubmissionId", state.lastVerdictSubmissionId());
         
         return ResponseEntity.ok(status);
     }
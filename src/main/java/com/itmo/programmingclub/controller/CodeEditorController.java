@@ -1,24 +1,28 @@
 package com.itmo.programmingclub.controller;
 
-import java.util.Arrays;
-import java.util.Optional;
+import java.util.List;
 
 import org.springframework.messaging.handler.annotation.DestinationVariable;
 import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.messaging.handler.annotation.SendTo;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
 
 import com.itmo.programmingclub.model.dto.websocket.CodeChangeMessage;
-import com.itmo.programmingclub.model.dto.websocket.CodeSyncMessage;
+import com.itmo.programmingclub.model.dto.websocket.CodeDeltaMessage;
+import com.itmo.programmingclub.model.dto.websocket.CodeSnapshotMessage;
+import com.itmo.programmingclub.model.dto.websocket.CodeSyncRequestMessage;
 import com.itmo.programmingclub.model.dto.websocket.CursorPositionMessage;
 import com.itmo.programmingclub.model.dto.websocket.LineLockMessage;
-import com.itmo.programmingclub.model.entity.Team;
-import com.itmo.programmingclub.model.entity.User;
 import com.itmo.programmingclub.security.CustomUserDetails;
 import com.itmo.programmingclub.service.CodeEditorService;
-import com.itmo.programmingclub.service.TeamService;
+import com.itmo.programmingclub.service.CursorBroadcastService;
+import com.itmo.programmingclub.service.EditorBinaryPublisher;
+import com.itmo.programmingclub.service.EditorRoleService;
+import com.itmo.programmingclub.service.LineLockService;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -32,23 +36,29 @@ import lombok.extern.slf4j.Slf4j;
 public class CodeEditorController {
     private final CodeEditorService codeEditorService;
     private final SimpMessagingTemplate messagingTemplate;
-    private final TeamService teamService;
+    private final EditorRoleService editorRoleService;
+    private final CursorBroadcastService cursorBroadcastService;
+    private final LineLockService lineLockService;
+    private final EditorBinaryPublisher editorBinaryPublisher;
 
     /**
      * Handle code changes from client
      * Client sends to: /app/code/change/{teamId}
      * Server broadcasts to: /topic/code/change/{teamId}
+     * A rejected change is returned to its author on /user/queue/code/resync,
+     * the client answers with a REPLACE of its whole area
      */
     @MessageMapping("/code/change/{teamId}")
     @SendTo("/topic/code/change/{teamId}")
     public CodeChangeMessage handleCodeChange(
             @DestinationVariable Integer teamId,
             CodeChangeMessage message,
-            Authentication authentication) {
+            Authentication authentication,
+            SimpMessageHeaderAccessor headerAccessor) {
         
         CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
         String userId = userDetails.getUsername();
-        String userRole = determineUserRole(userDetails, teamId);
+        String userRole = editorRoleService.getRole(headerAccessor.getSessionAttributes(), userDetails, teamId);
 
         message.setUserId(userId);
         message.setUserRole(userRole);
@@ -57,91 +67,91 @@ public class CodeEditorController {
         // No need for line locking since each user has their own area
         // Users can only edit their own area, so no conflicts
 
-        // Update code in service for this specific user - replace entire code
-        // When content contains newlines, it's the full code, otherwise it's a single line
-        String newCode;
-        if (message.getContent() != null && message.getContent().contains("\n")) {
-            // Full code is being sent
-            newCode = message.getContent();
-        } else {
-            // Single line update (legacy support)
-            String currentCode = codeEditorService.getUserCode(teamId, userId);
-            newCode = applyChange(currentCode, message);
+        // Update code in service for this specific user
+        // INSERT / DELETE are range edits, REPLACE without a line number is the full code of the area
+        if (!codeEditorService.applyChange(teamId, userId, message)) {
+            log.warn("Invalid code change from user {} in team {}: line {}", userId, teamId, message.getLineNumber());
+            // The client's area no longer matches ours (e.g. a throttled frame), ask it for its full code
+            messagingTemplate.convertAndSendToUser(userId, "/queue/code/resync", message);
+            return null;
         }
-        codeEditorService.updateUserCode(teamId, userId, newCode);
+        // Editing keeps the user's line leases alive
+        lineLockService.renewUserLocks(teamId, userId);
+        editorBinaryPublisher.publishChange(teamId, message);
 
-        log.debug("Code change from user {} in team {}: line {} updated", userId, teamId, message.getLineNumber());
+        log.debug("Code change from user {} in team {}: line {} updated, revision {}",
+                userId, teamId, message.getLineNumber(), message.getRevision());
         return message;
     }
 
     /**
      * Handle cursor position updates
      * Client sends to: /app/cursor/{teamId}
-     * Server broadcasts to: /topic/cursor/{teamId}
+     * Server broadcasts batched cursors of the team to: /topic/cursor/{teamId}
      */
     @MessageMapping("/cursor/{teamId}")
-    @SendTo("/topic/cursor/{teamId}")
-    public CursorPositionMessage handleCursorPosition(
+    public void handleCursorPosition(
             @DestinationVariable Integer teamId,
             CursorPositionMessage message,
-            Authentication authentication) {
+            Authentication authentication,
+            SimpMessageHeaderAccessor headerAccessor) {
         
         CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
         message.setUserId(userDetails.getUsername());
-        message.setUserRole(determineUserRole(userDetails, teamId));
+        message.setUserRole(editorRoleService.getRole(headerAccessor.getSessionAttributes(), userDetails, teamId));
         message.setTeamId(teamId);
         
-        return message;
+        cursorBroadcastService.submit(teamId, message);
     }
 
     /**
      * Handle line lock/unlock requests
      * Client sends to: /app/lock/{teamId}
-     * Server broadcasts to: /topic/lock/{teamId}
+     * Server broadcasts batched lock changes to: /topic/lock/{teamId}
+     * Repeating LOCK on a held line renews its lease.
      */
     @MessageMapping("/lock/{teamId}")
     public void handleLineLock(
             @DestinationVariable Integer teamId,
             LineLockMessage message,
-            Authentication authentication) {
+            Authentication authentication,
+            SimpMessageHeaderAccessor headerAccessor) {
         
         CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
         String userId = userDetails.getUsername();
-        String userRole = determineUserRole(userDetails, teamId);
+        String userRole = editorRoleService.getRole(headerAccessor.getSessionAttributes(), userDetails, teamId);
 
         message.setUserId(userId);
         message.setUserRole(userRole);
         message.setTeamId(teamId);
 
         if ("LOCK".equals(message.getAction())) {
-            boolean success = codeEditorService.tryLockLine(
+            boolean success = lineLockService.tryLockLine(
                     teamId, message.getLineNumber(), userId, userRole);
             
-            if (success) {
-                // Broadcast lock to all team members
-                messagingTemplate.convertAndSend("/topic/lock/" + teamId, message);
-            } else {
+            if (!success) {
                 // Send rejection to the user who tried to lock
                 message.setAction("LOCK_REJECTED");
                 messagingTemplate.convertAndSendToUser(userId, "/queue/lock/reject", message);
             }
         } else if ("UNLOCK".equals(message.getAction())) {
-            codeEditorService.unlockLine(teamId, message.getLineNumber(), userId);
-            // Broadcast unlock to all team members
-            messagingTemplate.convertAndSend("/topic/lock/" + teamId, message);
+            lineLockService.unlockLine(teamId, message.getLineNumber(), userId);
         }
     }
 
     /**
-     * Handle code sync request (when new user joins)
+     * Handle code sync request (when new user joins or reconnects)
      * Client sends to: /app/code/sync/request/{teamId}
-     * Server broadcasts to: /topic/code/sync/request/{teamId}
+     * Server replies to the requesting user only: /user/queue/code/sync
+     * The snapshot carries the team revision; the client then applies only
+     * changes from /topic/code/change/{teamId} with a greater revision.
+     * A reconnecting client sends the last revision it has applied with its document epoch and, while the
+     * epoch is unchanged and the team history still holds the changes after it, gets only those: /user/queue/code/delta
      */
     @MessageMapping("/code/sync/request/{teamId}")
-    @SendTo("/topic/code/sync/request/{teamId}")
-    public CodeSyncMessage handleCodeSyncRequest(
+    public void handleCodeSyncRequest(
             @DestinationVariable Integer teamId,
-            CodeSyncMessage message,
+            @Payload(required = false) CodeSyncRequestMessage request,
             Authentication authentication) {
         
         CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
@@ -150,93 +160,49 @@ public class CodeEditorController {
         // Add user to team connections
         codeEditorService.addUserConnection(teamId, userId);
 
-        message.setRequestingUserId(userId);
-        message.setTeamId(teamId);
-
-        log.info("User {} requested code sync for team {}", userId, teamId);
-        return message;
+        Long since = request != null ? request.getRevision() : null;
+        Long epoch = request != null ? request.getEpoch() : null;
+        // Answered once the document is in memory, without holding this inbound thread while it loads
+        codeEditorService.loadDocument(teamId)
+                .thenRun(() -> sendCodeSync(teamId, userId, epoch, since))
+                .exceptionally(e -> {
+                    log.error("Could not load editor document of team {} for user {}", teamId, userId, e);
+                    return null;
+                });
     }
 
-    /**
-     * Handle code sync response (when participant sends code to new user)
-     * Client sends to: /app/code/sync/response/{teamId}
-     * Server broadcasts to: /topic/code/sync/response/{teamId}
-     */
-    @MessageMapping("/code/sync/response/{teamId}")
-    @SendTo("/topic/code/sync/response/{teamId}")
-    public CodeSyncMessage handleCodeSyncResponse(
-            @DestinationVariable Integer teamId,
-            CodeSyncMessage message,
-            Authentication authentication) {
-        
-        CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
-        String fromUserId = userDetails.getUsername();
-
-        message.setFromUserId(fromUserId);
-        message.setTeamId(teamId);
-        message.setUserRole(determineUserRole(userDetails, teamId));
-        // requestingUserId is already set by client
-
-        log.info("User {} (role: {}) sent code for team {} (requested by {}). Code length: {}", 
-                fromUserId, message.getUserRole(), teamId, message.getRequestingUserId(),
-                message.getCode() != null ? message.getCode().length() : 0);
-        
-        return message;
-    }
-
-    /**
-     * Determine user role (STUDENT, CURATOR, ELDER)
-     */
-    private String determineUserRole(CustomUserDetails userDetails, Integer teamId) {
-        // Check if user is CURATOR
-        boolean isCurator = userDetails.getAuthorities().stream()
-                .anyMatch(a -> a.getAuthority().equals("ROLE_CURATOR"));
-        if (isCurator) {
-            return "CURATOR";
-        }
-
-        // Check if user is ELDER (oldest) of the team
-        Optional<Team> teamOpt = teamService.findById(teamId);
-        if (teamOpt.isPresent()) {
-            Team team = teamOpt.get();
-            User elder = team.getElder();
-            User currentUser = userDetails.getUser();
-            
-            if (elder != null && elder.getId().equals(currentUser.getId())) {
-                return "ELDER";
+    private void sendCodeSync(Integer teamId, String userId, Long epoch, Long since) {
+        if (epoch != null && since != null && since > 0) {
+            List<CodeChangeMessage> changes = codeEditorService.getChangesSince(teamId, epoch, since);
+            if (changes != null) {
+                long revision = changes.isEmpty() ? since : changes.get(changes.size() - 1).getRevision();
+                messagingTemplate.convertAndSendToUser(userId, "/queue/code/delta",
+                        new CodeDeltaMessage(teamId, since, revision, changes, epoch));
+                log.info("User {} resumed team {} from revision {} with {} changes",
+                        userId, teamId, since, changes.size());
+                return;
             }
         }
 
-        return "STUDENT";
+        CodeSnapshotMessage snapshot = codeEditorService.getSnapshot(teamId);
+        messagingTemplate.convertAndSendToUser(userId, "/queue/code/sync", snapshot);
+
+        log.info("User {} requested code sync for team {}, sent snapshot at revision {} ({} areas)",
+                userId, teamId, snapshot.getRevision(), snapshot.getAreas().size());
     }
 
     /**
-     * Apply code change - replace entire line
+     * Handle user dictionary request of a client switching to binary editor frames
+     * Client sends to: /app/bin/users/{teamId}
+     * Server replies to the requesting user only: /user/queue/bin/users
      */
-    private String applyChange(String currentCode, CodeChangeMessage change) {
-        if (currentCode == null) {
-            currentCode = "";
-        }
-
-        String[] lines = currentCode.split("\n", -1);
-        int lineIndex = change.getLineNumber() - 1; // Line numbers are 1-based
-
-        // Ensure line exists
-        if (lineIndex < 0) {
-            log.warn("Invalid line number: {}", change.getLineNumber());
-            return currentCode;
-        }
+    @MessageMapping("/bin/users/{teamId}")
+    public void handleUserDictionaryRequest(
+            @DestinationVariable Integer teamId,
+            Authentication authentication) {
         
-        // Add new lines if needed
-        while (lines.length <= lineIndex) {
-            lines = Arrays.copyOf(lines, lines.length + 1);
-            lines[lines.length - 1] = "";
-        }
-
-        // Replace entire line with new content
-        lines[lineIndex] = change.getContent() != null ? change.getContent() : "";
-
-        return String.join("\n", lines);
+        CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
+        messagingTemplate.convertAndSendToUser(userDetails.getUsername(), "/queue/bin/users",
+                editorBinaryPublisher.getDictionary(teamId));
     }
 }
-
@@ -0,0 +1,42 @@
+package com.itmo.programmingclub.controller;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.itmo.programmingclub.model.dto.EditTimelineDTO;
+import com.itmo.programmingclub.model.dto.websocket.CodeSnapshotMessage;
+import com.itmo.programmingclub.service.CodeEditorService;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Timeline of a team's code for curators: the replayable revision range and the code at any revision of it
+ */
+@RestController
+@RequestMapping("/api/editor/team/{teamId}/history")
+@RequiredArgsConstructor
+public class EditHistoryController {
+    private final CodeEditorService codeEditorService;
+
+    @GetMapping
+    @PreAuthorize("hasRole('CURATOR') or hasRole('MANAGER')")
+    public ResponseEntity<EditTimelineDTO> getTimeline(@PathVariable Integer teamId) {
+        return codeEditorService.getTimeline(teamId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/snapshot")
+    @PreAuthorize("hasRole('CURATOR') or hasRole('MANAGER')")
+    public ResponseEntity<CodeSnapshotMessage> getSnapshotAt(@PathVariable Integer teamId,
+                                                             @RequestParam Long revision) {
+        return codeEditorService.getSnapshotAt(teamId, revision)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
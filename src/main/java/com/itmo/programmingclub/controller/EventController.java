@@ -1,15 +1,21 @@
 package com.itmo.programmingclub.controller;
 
 import com.itmo.programmingclub.model.dto.EventDTO;
+import com.itmo.programmingclub.model.dto.EventPageDTO;
 import com.itmo.programmingclub.model.entity.Event;
 import com.itmo.programmingclub.service.EventService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.databind.json.JsonMapper;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.OffsetDateTime;
 import java.util.List;
 
@@ -17,13 +23,52 @@ import java.util.List;
 @RequestMapping("/api/events")
 @RequiredArgsConstructor
 public class EventController {
+    private static final String NDJSON = "application/x-ndjson";
+
     private final EventService eventService;
+    private final JsonMapper jsonMapper;
 
     @GetMapping
     public ResponseEntity<List<Event>> getAllEvents() {
         return ResponseEntity.ok(eventService.findAll());
     }
 
+    /**
+     * Keyset-paginated events, newest first: pass the returned nextCursor as {@code after} to get the next page
+     */
+    @GetMapping("/page")
+    @PreAuthorize("hasAnyRole('CURATOR', 'MANAGER')")
+    public ResponseEntity<EventPageDTO> getEventPage(
+            @RequestParam(required = false) Integer classId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime startTime,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime endTime,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "100") int size) {
+        return ResponseEntity.ok(eventService.findPage(classId, startTime, endTime, after, size));
+    }
+
+    /**
+     * All matching events as newline-delimited JSON, oldest first, written while they are read
+     */
+    @GetMapping(value = "/export", produces = NDJSON)
+    @PreAuthorize("hasAnyRole('CURATOR', 'MANAGER')")
+    public ResponseEntity<StreamingResponseBody> exportEvents(
+            @RequestParam(required = false) Integer classId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime startTime,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime endTime) {
+        StreamingResponseBody body = out -> eventService.export(classId, startTime, endTime, event -> {
+            try {
+                out.write(jsonMapper.writeValueAsBytes(event));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .body(body);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Event> getEventById(@PathVariable Integer id) {
         return eventService.findById(id)
@@ -51,7 +96,8 @@ public class EventController {
 
     @PostMapping
     public ResponseEntity<Event> createEvent(@RequestBody Event event) {
-        Event created = eventService.createEvent(event);
+        // The client reads the event back by its id, so it can't wait for a batch
+        Event created = eventService.saveEvent(event);
         return ResponseEntity.status(HttpStatus.CREATED).body(created);
     }
 }
@@ -0,0 +1,33 @@
+package com.itmo.programmingclub.controller;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.itmo.programmingclub.config.InboundRateLimiter;
+import com.itmo.programmingclub.config.SlowConsumerGuard;
+import com.itmo.programmingclub.config.TeamPartitionedExecutor;
+import com.itmo.programmingclub.model.dto.WebSocketMetricsDTO;
+
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/websocket")
+@RequiredArgsConstructor
+public class WebSocketMetricsController {
+    private final TeamPartitionedExecutor inboundExecutor;
+    private final SlowConsumerGuard slowConsumerGuard;
+    private final InboundRateLimiter inboundRateLimiter;
+
+    @GetMapping("/metrics")
+    @PreAuthorize("hasRole('MANAGER')")
+    public ResponseEntity<WebSocketMetricsDTO> getMetrics() {
+        return ResponseEntity.ok(WebSocketMetricsDTO.builder()
+                .inbound(inboundExecutor.getMetrics())
+                .outbound(slowConsumerGuard.getMetrics())
+                .throttle(inboundRateLimiter.getMetrics())
+                .build());
+    }
+}
@@ -0,0 +1,7 @@
+package com.itmo.programmingclub.event;
+
+/**
+ * Published when a verdict counted on another cluster node has been added to this node's class stats.
+ */
+public record ClassVerdictCountedEvent(Integer classId, Integer teamId) {
+}
@@ -0,0 +1,7 @@
+package com.itmo.programmingclub.event;
+
+/**
+ * Published when the elder of a team is reassigned.
+ */
+public record ElderChangedEvent(Integer teamId, Integer newElderUserId) {
+}
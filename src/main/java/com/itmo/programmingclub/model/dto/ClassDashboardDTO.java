@@ -0,0 +1,18 @@
+package com.itmo.programmingclub.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClassDashboardDTO {
+    private Integer classId;
+    private Integer viewerUserRoleId; // Curator role of the requesting user, to find their own presence in joinedCuratorIds
+    private List<TeamDashboardDTO> teams;
+}
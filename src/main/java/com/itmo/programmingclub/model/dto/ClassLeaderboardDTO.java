@@ -0,0 +1,20 @@
+package com.itmo.programmingclub.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClassLeaderboardDTO {
+    private Integer classId;
+    private Long epoch; // Creation time of the leaderboard in microseconds, a rebuilt leaderboard has a greater one
+    private Long version; // Grows with every change within an epoch; compare (epoch, version) to drop stale messages
+    private Boolean snapshot; // true: rows are the whole leaderboard, false: only the rows whose rank changed
+    private List<LeaderboardRowDTO> rows;
+}
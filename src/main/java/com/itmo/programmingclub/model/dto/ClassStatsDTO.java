@@ -0,0 +1,17 @@
+package com.itmo.programmingclub.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClassStatsDTO {
+    private Integer classId;
+    private List<TaskStatsDTO> tasks;
+}
@@ -0,0 +1,19 @@
+package com.itmo.programmingclub.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EditTimelineDTO {
+    private Integer teamId;
+    private Long firstRevision; // Oldest revision that can still be replayed
+    private Long revision; // Current revision of the team document
+    private List<Long> checkpointRevisions; // Revisions with a stored copy of all areas, scrubbing near them is cheapest
+}
@@ -0,0 +1,33 @@
+package com.itmo.programmingclub.model.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+
+/**
+ * Position in the event log ordered by (time, id); passed to clients as an opaque token
+ */
+public record EventCursor(OffsetDateTime time, Integer id) {
+
+    public static EventCursor of(EventDTO event) {
+        return new EventCursor(event.getTime(), event.getId());
+    }
+
+    public String encode() {
+        String raw = time.toInstant() + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static EventCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            return new EventCursor(OffsetDateTime.ofInstant(Instant.parse(raw.substring(0, separator)), ZoneOffset.UTC),
+                    Integer.valueOf(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid event cursor: " + token, e);
+        }
+    }
+}
@@ -21,6 +21,15 @@ public class EventDTO {
     private Integer submissionId;
     private Integer classId;
     private Integer taskId;
+    // Position in the class's live event stream, set when the event is published; null for events read from the database
+    private Long seq;
+    // Numbering the seq belongs to; seqs of different epochs can't be compared
+    private Long seqEpoch;
+
+    public EventDTO(Integer id, OffsetDateTime time, Event.EventType type, Integer teamId, Integer userRoleId,
+                    Integer submissionId, Integer classId, Integer taskId) {
+        this(id, time, type, teamId, userRoleId, submissionId, classId, taskId, null, null);
+    }
     
     public static EventDTO fromEntity(Event event) {
         if (event == null) {
@@ -0,0 +1,18 @@
+package com.itmo.programmingclub.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventPageDTO {
+    private List<EventDTO> events;
+    // Cursor of the next page, null on the last page
+    private String nextCursor;
+}
@@ -0,0 +1,20 @@
+package com.itmo.programmingclub.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeaderboardRowDTO {
+    private Integer teamId;
+    private Integer rank;
+    private Integer solved;
+    private Long penaltyMinutes;
+    private OffsetDateTime lastSolvedAt;
+}
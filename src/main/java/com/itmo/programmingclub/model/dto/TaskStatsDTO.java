@@ -0,0 +1,22 @@
+package com.itmo.programmingclub.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskStatsDTO {
+    private Integer classId;
+    private Integer taskId;
+    private Integer attempts; // Verdicts of all teams
+    private Integer okVerdicts;
+    private Integer solvedTeams;
+    private OffsetDateTime firstOkAt;
+    private Long medianLatencyMs; // Approximate, upper bound of the histogram bucket holding the median
+}
@@ -0,0 +1,29 @@
+package com.itmo.programmingclub.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * State of one team on the class dashboard.
+ * In the dashboard all submissions of the team are included; in a delta on
+ * /topic/class/{classId}/dashboard only the submission that changed, if any.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TeamDashboardDTO {
+    private Integer teamId;
+    private Boolean blocked;
+    private Boolean handRaised;
+    private Integer selectedTaskId;
+    private Set<Integer> joinedCuratorIds; // UserRole ids of the curators currently in the team
+    private String lastVerdict;
+    private Integer lastVerdictSubmissionId;
+    private List<SubmissionDTO> submissions; // Newest first
+}
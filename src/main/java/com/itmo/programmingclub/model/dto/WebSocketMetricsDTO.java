@@ -0,0 +1,53 @@
+package com.itmo.programmingclub.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WebSocketMetricsDTO {
+    private InboundMetrics inbound;
+    private OutboundMetrics outbound;
+    private ThrottleMetrics throttle;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class InboundMetrics {
+        private Integer sharedPoolSize;
+        private Integer sharedActiveThreads;
+        private Integer sharedQueueDepth;
+        private List<Integer> laneQueueDepths;
+        private Integer peakLaneQueueDepth;
+        private Long laneCompletedTasks;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class OutboundMetrics {
+        private Long coalescedFrames; // Superseded snapshot frames replaced before being sent
+        private Long delayedFrames; // Frames queued because a send to the session was in progress
+        private Long terminatedSessions; // Sessions closed for exceeding send time or buffer limits
+        private Integer senderQueueDepth; // Sessions waiting for a sender thread
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ThrottleMetrics {
+        private Map<String, Long> throttledFrames; // Dropped inbound frames per destination prefix
+        private Long disconnectedSessions; // Sessions closed for exceeding the throttle threshold
+        private Integer trackedSessions; // Sessions with live token buckets
+    }
+}
@@ -15,5 +15,7 @@ public class CodeChangeMessage {
     private Integer position; // Position in line
     private String userId; // Username or user ID
     private String userRole; // STUDENT, CURATOR, ELDER
+    private Long revision; // Team document revision after this change, set by server
+    private Integer baseLength; // Length of the user's area the INSERT / DELETE was made against, set by client
 }
 
@@ -0,0 +1,18 @@
+package com.itmo.programmingclub.model.dto.websocket;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CodeDeltaMessage {
+    private Integer teamId;
+    private Long fromRevision; // Revision the client resumes from
+    private Long revision; // Revision after all changes are applied
+    private List<CodeChangeMessage> changes; // Missed changes in revision order
+    private Long epoch; // Document epoch, the same as the client's
+}
@@ -0,0 +1,17 @@
+package com.itmo.programmingclub.model.dto.websocket;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CodeSnapshotMessage {
+    private Integer teamId;
+    private Long revision; // Changes with revision <= this one are already included
+    private List<CodeSyncMessage> areas; // Code area of every participant (userId, userRole, code)
+    private Long epoch; // Document epoch, revisions of different epochs are unrelated
+}
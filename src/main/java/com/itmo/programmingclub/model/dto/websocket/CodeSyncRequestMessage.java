@@ -0,0 +1,15 @@
+package com.itmo.programmingclub.model.dto.websocket;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CodeSyncRequestMessage {
+    private Integer teamId;
+    private String requestingUserId;
+    private Long revision; // Last revision applied by a reconnecting client, null for a fresh join
+    private Long epoch; // Document epoch of that revision; on mismatch the client gets a full snapshot
+}
@@ -0,0 +1,15 @@
+package com.itmo.programmingclub.model.dto.websocket;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorBatchMessage {
+    private Integer teamId;
+    private List<CursorPositionMessage> cursors; // Latest cursor of every user in the team
+}
@@ -0,0 +1,15 @@
+package com.itmo.programmingclub.model.dto.websocket;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LineLockBatchMessage {
+    private Integer teamId;
+    private List<LineLockMessage> changes; // Latest change per line: LOCK, UNLOCK or EXPIRED
+}
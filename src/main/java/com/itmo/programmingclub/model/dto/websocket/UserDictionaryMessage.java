@@ -0,0 +1,24 @@
+package com.itmo.programmingclub.model.dto.websocket;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserDictionaryMessage {
+    private Integer teamId;
+    private List<Entry> users; // Full dictionary on request, only new or changed entries on /topic/bin/users/{teamId}
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Entry {
+        private Integer index;
+        private String userId;
+        private String userRole;
+    }
+}
@@ -0,0 +1,57 @@
+package com.itmo.programmingclub.model.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.io.Serializable;
+import java.time.OffsetDateTime;
+
+/**
+ * Saved solve statistics of one task in one class, written behind by ClassStatsService
+ */
+@Entity
+@Table(name = "class_task_stats")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClassTaskStats {
+    @EmbeddedId
+    private ClassTaskStatsId id;
+
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts;
+
+    @Column(name = "ok_verdicts", nullable = false)
+    private Integer okVerdicts;
+
+    @Column(name = "first_ok_at")
+    private OffsetDateTime firstOkAt;
+
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    @Column(name = "latency_histogram", nullable = false)
+    private int[] latencyHistogram;
+
+    @Column(name = "updated_at", nullable = false)
+    private OffsetDateTime updatedAt;
+
+    @Embeddable
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class ClassTaskStatsId implements Serializable {
+        @Column(name = "class_id")
+        private Integer classId;
+
+        @Column(name = "task_id")
+        private Integer taskId;
+    }
+}
@@ -0,0 +1,54 @@
+package com.itmo.programmingclub.model.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.time.OffsetDateTime;
+
+/**
+ * Saved attempts of one team on one task of a class, written behind by ClassStatsService
+ */
+@Entity
+@Table(name = "class_team_task_stats")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClassTeamTaskStats {
+    @EmbeddedId
+    private ClassTeamTaskStatsId id;
+
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts;
+
+    @Column(name = "failed_before_solve", nullable = false)
+    private Integer failedBeforeSolve;
+
+    @Column(name = "solved_at")
+    private OffsetDateTime solvedAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private OffsetDateTime updatedAt;
+
+    @Embeddable
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class ClassTeamTaskStatsId implements Serializable {
+        @Column(name = "class_id")
+        private Integer classId;
+
+        @Column(name = "team_id")
+        private Integer teamId;
+
+        @Column(name = "task_id")
+        private Integer taskId;
+    }
+}
@@ -0,0 +1,51 @@
+package com.itmo.programmingclub.model.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.time.OffsetDateTime;
+
+/**
+ * Saved code of one editor area, written behind by EditorPersistenceService
+ */
+@Entity
+@Table(name = "team_code")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class TeamCode {
+    @EmbeddedId
+    private TeamCodeId id;
+
+    @Column(name = "user_role", nullable = false)
+    private String userRole;
+
+    @Column(name = "code", nullable = false, columnDefinition = "TEXT")
+    private String code;
+
+    @Column(name = "revision", nullable = false)
+    private Long revision;
+
+    @Column(name = "updated_at", nullable = false)
+    private OffsetDateTime updatedAt;
+
+    @Embeddable
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class TeamCodeId implements Serializable {
+        @Column(name = "team_id")
+        private Integer teamId;
+
+        @Column(name = "username")
+        private String username;
+    }
+}
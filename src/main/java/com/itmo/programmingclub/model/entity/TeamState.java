@@ -0,0 +1,49 @@
+package com.itmo.programmingclub.model.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.OffsetDateTime;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Live state of a team projected from its events, maintained by TeamStateService
+ */
+@Entity
+@Table(name = "team_state")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class TeamState {
+    @Id
+    @Column(name = "team_id")
+    private Integer teamId;
+
+    @Column(name = "blocked", nullable = false)
+    private boolean blocked;
+
+    @Column(name = "hand_raised", nullable = false)
+    private boolean handRaised;
+
+    @Column(name = "selected_task_id")
+    private Integer selectedTaskId;
+
+    @Column(name = "last_verdict", length = 50)
+    private String lastVerdict;
+
+    @Column(name = "last_verdict_submission_id")
+    private Integer lastVerdictSubmissionId;
+
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "team_state_curator", joinColumns = @JoinColumn(name = "team_id"))
+    @Column(name = "user_role_id")
+    private Set<Integer> joinedCuratorIds = new HashSet<>();
+
+    @Column(name = "updated_at", nullable = false)
+    private OffsetDateTime updatedAt;
+}
@@ -0,0 +1,13 @@
+package com.itmo.programmingclub.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.itmo.programmingclub.model.entity.ClassTaskStats;
+
+import java.util.List;
+
+@Repository
+public interface ClassTaskStatsRepository extends JpaRepository<ClassTaskStats, ClassTaskStats.ClassTaskStatsId>, ClassTaskStatsRepositoryCustom {
+    List<ClassTaskStats> findByIdClassId(Integer classId);
+}
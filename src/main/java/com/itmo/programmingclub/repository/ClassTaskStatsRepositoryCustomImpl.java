@@ -0,0 +1,45 @@
+package com.itmo.programmingclub.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.itmo.programmingclub.model.entity.ClassTaskStats;
+
+import lombok.RequiredArgsConstructor;
+
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class ClassTaskStatsRepositoryCustomImpl implements ClassTaskStatsRepositoryCustom {
+    private static final String UPSERT_SQL = """
+            INSERT INTO class_task_stats (class_id, task_id, attempts, ok_verdicts, first_ok_at, latency_histogram, updated_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (class_id, task_id) DO UPDATE
+                SET attempts = class_task_stats.attempts + EXCLUDED.attempts,
+                    ok_verdicts = class_task_stats.ok_verdicts + EXCLUDED.ok_verdicts,
+                    first_ok_at = LEAST(class_task_stats.first_ok_at, EXCLUDED.first_ok_at),
+                    latency_histogram = ARRAY(
+                        SELECT COALESCE(saved, 0) + COALESCE(added, 0)
+                        FROM unnest(class_task_stats.latency_histogram, EXCLUDED.latency_histogram)
+                                 WITH ORDINALITY AS bucket(saved, added, n)
+                        ORDER BY n),
+                    updated_at = GREATEST(class_task_stats.updated_at, EXCLUDED.updated_at)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void upsertAll(List<ClassTaskStats> rows) {
+        jdbcTemplate.batchUpdate(UPSERT_SQL, rows, rows.size(), (ps, row) -> {
+            ps.setInt(1, row.getId().getClassId());
+            ps.setInt(2, row.getId().getTaskId());
+            ps.setInt(3, row.getAttempts());
+            ps.setInt(4, row.getOkVerdicts());
+            ps.setTimestamp(5, row.getFirstOkAt() != null ? Timestamp.from(row.getFirstOkAt().toInstant()) : null);
+            ps.setArray(6, ps.getConnection().createArrayOf("integer",
+                    Arrays.stream(row.getLatencyHistogram()).boxed().toArray()));
+            ps.setTimestamp(7, Timestamp.from(row.getUpdatedAt().toInstant()));
+        });
+    }
+}
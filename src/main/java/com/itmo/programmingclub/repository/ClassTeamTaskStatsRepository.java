@@ -0,0 +1,13 @@
+package com.itmo.programmingclub.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.itmo.programmingclub.model.entity.ClassTeamTaskStats;
+
+import java.util.List;
+
+@Repository
+public interface ClassTeamTaskStatsRepository extends JpaRepository<ClassTeamTaskStats, ClassTeamTaskStats.ClassTeamTaskStatsId>, ClassTeamTaskStatsRepositoryCustom {
+    List<ClassTeamTaskStats> findByIdClassId(Integer classId);
+}
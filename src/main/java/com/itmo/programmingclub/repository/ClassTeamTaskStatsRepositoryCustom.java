@@ -0,0 +1,12 @@
+package com.itmo.programmingclub.repository;
+
+import com.itmo.programmingclub.model.entity.ClassTeamTaskStats;
+
+import java.util.List;
+
+public interface ClassTeamTaskStatsRepositoryCustom {
+    /**
+     * Insert or update all rows in one JDBC batch; counters of a row are added to the stored ones
+     */
+    void upsertAll(List<ClassTeamTaskStats> rows);
+}
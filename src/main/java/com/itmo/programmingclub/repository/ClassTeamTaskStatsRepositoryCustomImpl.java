@@ -0,0 +1,38 @@
+package com.itmo.programmingclub.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.itmo.programmingclub.model.entity.ClassTeamTaskStats;
+
+import lombok.RequiredArgsConstructor;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class ClassTeamTaskStatsRepositoryCustomImpl implements ClassTeamTaskStatsRepositoryCustom {
+    private static final String UPSERT_SQL = """
+            INSERT INTO class_team_task_stats (class_id, team_id, task_id, attempts, failed_before_solve, solved_at, updated_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (class_id, team_id, task_id) DO UPDATE
+                SET attempts = class_team_task_stats.attempts + EXCLUDED.attempts,
+                    failed_before_solve = class_team_task_stats.failed_before_solve + EXCLUDED.failed_before_solve,
+                    solved_at = LEAST(class_team_task_stats.solved_at, EXCLUDED.solved_at),
+                    updated_at = GREATEST(class_team_task_stats.updated_at, EXCLUDED.updated_at)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void upsertAll(List<ClassTeamTaskStats> rows) {
+        jdbcTemplate.batchUpdate(UPSERT_SQL, rows, rows.size(), (ps, row) -> {
+            ps.setInt(1, row.getId().getClassId());
+            ps.setInt(2, row.getId().getTeamId());
+            ps.setInt(3, row.getId().getTaskId());
+            ps.setInt(4, row.getAttempts());
+            ps.setInt(5, row.getFailedBeforeSolve());
+            ps.setTimestamp(6, row.getSolvedAt() != null ? Timestamp.from(row.getSolvedAt().toInstant()) : null);
+            ps.setTimestamp(7, Timestamp.from(row.getUpdatedAt().toInstant()));
+        });
+    }
+}
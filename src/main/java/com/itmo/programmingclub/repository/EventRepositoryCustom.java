@@ -0,0 +1,52 @@
+package com.itmo.programmingclub.repository;
+
+import com.itmo.programmingclub.model.dto.EventCursor;
+import com.itmo.programmingclub.model.dto.EventDTO;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+public interface EventRepositoryCustom {
+    /**
+     * Take {@code count} ids from the app_event sequence in one round trip
+     */
+    List<Integer> reserveIds(int count);
+
+    /**
+     * Write an event with an already reserved id to app_event_outbox, in the caller's transaction
+     */
+    void insertOutbox(EventDTO event);
+
+    /**
+     * Move up to {@code limit} of the oldest outbox rows to app_event, stamped with the time of the move.
+     * Rows another node is moving are skipped.
+     * @return number of events moved
+     */
+    int relayOutbox(int limit);
+
+    /**
+     * Ids of the oldest outbox rows
+     */
+    List<Integer> findOutboxIds(int limit);
+
+    /**
+     * Move one outbox row to app_event
+     * @return false if the row is gone or being moved by another node
+     */
+    boolean relayOutboxRow(int id);
+
+    void deleteOutboxRow(int id);
+
+    /**
+     * Newest events first, ordered by (time, id) and starting right after {@code after}.
+     * Every filter may be null; only foreign-key ids are read.
+     */
+    List<EventDTO> findPage(Integer classId, OffsetDateTime startTime, OffsetDateTime endTime, EventCursor after, int limit);
+
+    /**
+     * Oldest events first, read with a server-side cursor so the range never has to fit in memory.
+     * Must run in a transaction, otherwise the driver fetches all rows at once.
+     */
+    void streamAll(Integer classId, OffsetDateTime startTime, OffsetDateTime endTime, Consumer<EventDTO> consumer);
+}
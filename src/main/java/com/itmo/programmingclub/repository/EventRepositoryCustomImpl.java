@@ -0,0 +1,154 @@
+package com.itmo.programmingclub.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import com.itmo.programmingclub.model.dto.EventCursor;
+import com.itmo.programmingclub.model.dto.EventDTO;
+import com.itmo.programmingclub.model.entity.Event;
+
+import lombok.RequiredArgsConstructor;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+@RequiredArgsConstructor
+public class EventRepositoryCustomImpl implements EventRepositoryCustom {
+    private static final String RESERVE_IDS_SQL = """
+            SELECT nextval(pg_get_serial_sequence('app_event', 'id'))
+            FROM generate_series(1, ?)
+            """;
+
+    private static final String INSERT_OUTBOX_SQL = """
+            INSERT INTO app_event_outbox (id, type, team_id, user_role_id, submission_id, class_id, task_id)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    // Deleted and inserted in one statement, so an event is never in both tables or in none.
+    // The time is that of the move: the row becomes visible then, so keyset pages and replays can't skip it
+    private static final String RELAY_SQL = """
+            WITH moved AS (
+                DELETE FROM app_event_outbox
+                WHERE id IN (SELECT id FROM app_event_outbox %s FOR UPDATE SKIP LOCKED)
+                RETURNING id, type, team_id, user_role_id, submission_id, class_id, task_id
+            )
+            INSERT INTO app_event (id, time, type, team_id, user_role_id, submission_id, class_id, task_id)
+            SELECT id, CURRENT_TIMESTAMP, type, team_id, user_role_id, submission_id, class_id, task_id
+            FROM moved
+            """;
+
+    private static final String SELECT_SQL = """
+            SELECT id, time, type, team_id, user_role_id, submission_id, class_id, task_id
+            FROM app_event
+            """;
+
+    private static final int STREAM_FETCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<Integer> reserveIds(int count) {
+        return jdbcTemplate.queryForList(RESERVE_IDS_SQL, Integer.class, count);
+    }
+
+    @Override
+    public void insertOutbox(EventDTO event) {
+        jdbcTemplate.update(INSERT_OUTBOX_SQL, ps -> {
+            ps.setInt(1, event.getId());
+            ps.setString(2, event.getType().name());
+            ps.setObject(3, event.getTeamId(), Types.INTEGER);
+            ps.setObject(4, event.getUserRoleId(), Types.INTEGER);
+            ps.setObject(5, event.getSubmissionId(), Types.INTEGER);
+            ps.setObject(6, event.getClassId(), Types.INTEGER);
+            ps.setObject(7, event.getTaskId(), Types.INTEGER);
+        });
+    }
+
+    @Override
+    public int relayOutbox(int limit) {
+        return jdbcTemplate.update(RELAY_SQL.formatted("ORDER BY id LIMIT ?"), limit);
+    }
+
+    @Override
+    public List<Integer> findOutboxIds(int limit) {
+        return jdbcTemplate.queryForList("SELECT id FROM app_event_outbox ORDER BY id LIMIT ?", Integer.class, limit);
+    }
+
+    @Override
+    public boolean relayOutboxRow(int id) {
+        return jdbcTemplate.update(RELAY_SQL.formatted("WHERE id = ?"), id) > 0;
+    }
+
+    @Override
+    public void deleteOutboxRow(int id) {
+        jdbcTemplate.update("DELETE FROM app_event_outbox WHERE id = ?", id);
+    }
+
+    @Override
+    public List<EventDTO> findPage(Integer classId, OffsetDateTime startTime, OffsetDateTime endTime, EventCursor after, int limit) {
+        List<Object> args = new ArrayList<>();
+        List<String> conditions = conditions(classId, startTime, endTime, args);
+        if (after != null) {
+            conditions.add("(time, id) < (?, ?)");
+            args.add(after.time());
+            args.add(after.id());
+        }
+        String sql = SELECT_SQL + where(conditions) + " ORDER BY time DESC, id DESC LIMIT ?";
+        args.add(limit);
+        return jdbcTemplate.query(sql, (rs, rowNum) -> mapRow(rs), args.toArray());
+    }
+
+    @Override
+    public void streamAll(Integer classId, OffsetDateTime startTime, OffsetDateTime endTime, Consumer<EventDTO> consumer) {
+        List<Object> args = new ArrayList<>();
+        String sql = SELECT_SQL + where(conditions(classId, startTime, endTime, args)) + " ORDER BY time, id";
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql);
+            ps.setFetchSize(STREAM_FETCH_SIZE);
+            for (int i = 0; i < args.size(); i++) {
+                ps.setObject(i + 1, args.get(i));
+            }
+            return ps;
+        }, (RowCallbackHandler) rs -> consumer.accept(mapRow(rs)));
+    }
+
+    private static List<String> conditions(Integer classId, OffsetDateTime startTime, OffsetDateTime endTime, List<Object> args) {
+        List<String> conditions = new ArrayList<>();
+        if (classId != null) {
+            conditions.add("class_id = ?");
+            args.add(classId);
+        }
+        if (startTime != null) {
+            conditions.add("time >= ?");
+            args.add(startTime);
+        }
+        if (endTime != null) {
+            conditions.add("time <= ?");
+            args.add(endTime);
+        }
+        return conditions;
+    }
+
+    private static String where(List<String> conditions) {
+        return conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+    }
+
+    private static EventDTO mapRow(ResultSet rs) throws SQLException {
+        return EventDTO.builder()
+                .id(rs.getInt("id"))
+                .time(rs.getObject("time", OffsetDateTime.class))
+                .type(Event.EventType.valueOf(rs.getString("type")))
+                .teamId(rs.getObject("team_id", Integer.class))
+                .userRoleId(rs.getObject("user_role_id", Integer.class))
+                .submissionId(rs.getObject("submission_id", Integer.class))
+                .classId(rs.getObject("class_id", Integer.class))
+                .taskId(rs.getObject("task_id", Integer.class))
+                .build();
+    }
+}
@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.itmo.programmingclub.model.dto.SubmissionDTO;
 import com.itmo.programmingclub.model.entity.Submission;
 
 import java.util.List;
@@ -15,6 +16,13 @@ public interface SubmissionRepository extends JpaRepository<Submission, Integer>
     @Query("SELECT s FROM Submission s WHERE s.team.id = :teamId ORDER BY s.id DESC")
     List<Submission> findByTeamIdOrderByIdDesc(@Param("teamId") Integer teamId);
     
+    /**
+     * Submissions of all teams of a class without their code, newest first
+     */
+    @Query("SELECT new com.itmo.programmingclub.model.dto.SubmissionDTO(s.id, s.complitionTime, s.task.id, s.team.id, s.status) " +
+            "FROM Submission s WHERE s.team.classEntity.id = :classId ORDER BY s.id DESC")
+    List<SubmissionDTO> findDTOsByClassId(@Param("classId") Integer classId);
+
     List<Submission> findByTeamId(Integer teamId);
     List<Submission> findByTaskId(Integer taskId);
     List<Submission> findByTeamIdAndTaskId(Integer teamId, Integer taskId);
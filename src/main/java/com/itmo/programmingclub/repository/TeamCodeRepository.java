@@ -0,0 +1,13 @@
+package com.itmo.programmingclub.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.itmo.programmingclub.model.entity.TeamCode;
+
+import java.util.List;
+
+@Repository
+public interface TeamCodeRepository extends JpaRepository<TeamCode, TeamCode.TeamCodeId>, TeamCodeRepositoryCustom {
+    List<TeamCode> findByIdTeamId(Integer teamId);
+}
@@ -0,0 +1,12 @@
+package com.itmo.programmingclub.repository;
+
+import com.itmo.programmingclub.model.entity.TeamCode;
+
+import java.util.List;
+
+public interface TeamCodeRepositoryCustom {
+    /**
+     * Insert or update all rows in one JDBC batch
+     */
+    void upsertAll(List<TeamCode> rows);
+}
@@ -0,0 +1,37 @@
+package com.itmo.programmingclub.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.itmo.programmingclub.model.entity.TeamCode;
+
+import lombok.RequiredArgsConstructor;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class TeamCodeRepositoryCustomImpl implements TeamCodeRepositoryCustom {
+    private static final String UPSERT_SQL = """
+            INSERT INTO team_code (team_id, username, user_role, code, revision, updated_at)
+            VALUES (?, ?, ?, ?, ?, ?)
+            ON CONFLICT (team_id, username) DO UPDATE
+                SET user_role = EXCLUDED.user_role,
+                    code = EXCLUDED.code,
+                    revision = EXCLUDED.revision,
+                    updated_at = EXCLUDED.updated_at
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void upsertAll(List<TeamCode> rows) {
+        jdbcTemplate.batchUpdate(UPSERT_SQL, rows, rows.size(), (ps, row) -> {
+            ps.setInt(1, row.getId().getTeamId());
+            ps.setString(2, row.getId().getUsername());
+            ps.setString(3, row.getUserRole());
+            ps.setString(4, row.getCode());
+            ps.setLong(5, row.getRevision());
+            ps.setTimestamp(6, Timestamp.from(row.getUpdatedAt().toInstant()));
+        });
+    }
+}
@@ -1,14 +1,23 @@
 package com.itmo.programmingclub.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.itmo.programmingclub.model.entity.Team;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface TeamRepository extends JpaRepository<Team, Integer> {
     List<Team> findByClassEntityId(Integer classId);
+
+    @Query("SELECT t.id FROM Team t WHERE t.classEntity.id = :classId ORDER BY t.id")
+    List<Integer> findIdsByClassEntityId(@Param("classId") Integer classId);
+
+    @Query("SELECT t.elder.id FROM Team t WHERE t.id = :teamId")
+    Optional<Integer> findElderIdById(@Param("teamId") Integer teamId);
 }
 
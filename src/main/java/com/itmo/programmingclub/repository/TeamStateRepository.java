@@ -0,0 +1,42 @@
+package com.itmo.programmingclub.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.itmo.programmingclub.model.entity.TeamState;
+
+import jakarta.persistence.LockModeType;
+
+@Repository
+public interface TeamStateRepository extends JpaRepository<TeamState, Integer> {
+    /**
+     * Creates the state row of a team unless it exists, so it can be locked before the first update
+     */
+    @Modifying
+    @Query(value = "INSERT INTO team_state (team_id) VALUES (:teamId) ON CONFLICT DO NOTHING", nativeQuery = true)
+    void insertIfAbsent(@Param("teamId") Integer teamId);
+
+    /**
+     * State of a team together with its joined curators in one query
+     */
+    @Query("SELECT s FROM TeamState s LEFT JOIN FETCH s.joinedCuratorIds WHERE s.teamId = :teamId")
+    Optional<TeamState> findWithCurators(@Param("teamId") Integer teamId);
+
+    @Query("SELECT DISTINCT s FROM TeamState s LEFT JOIN FETCH s.joinedCuratorIds WHERE s.teamId IN :teamIds")
+    List<TeamState> findWithCuratorsByTeamIdIn(@Param("teamIds") Collection<Integer> teamIds);
+
+    /**
+     * Locks the state row of a team until the end of the transaction, concurrent events of a team apply one by one
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM TeamState s WHERE s.teamId = :teamId")
+    Optional<TeamState> findForUpdate(@Param("teamId") Integer teamId);
+}
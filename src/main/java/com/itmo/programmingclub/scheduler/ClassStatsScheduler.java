@@ -0,0 +1,26 @@
+package com.itmo.programmingclub.scheduler;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.itmo.programmingclub.service.ClassStatsService;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+
+@Component
+@RequiredArgsConstructor
+public class ClassStatsScheduler {
+
+    private final ClassStatsService classStatsService;
+
+    @Scheduled(fixedDelayString = "${app.stats.save-rate:30000}")
+    public void saveStats() {
+        classStatsService.save();
+    }
+
+    @PreDestroy
+    public void saveOnShutdown() {
+        saveStats();
+    }
+}
@@ -0,0 +1,40 @@
+package com.itmo.programmingclub.scheduler;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.itmo.programmingclub.service.ClassService;
+import com.itmo.programmingclub.service.CodeEditorService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Reclaims in-memory editor state of teams nobody is connected to
+ * once their class is no longer in session.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class EditorEvictionScheduler {
+
+    private final CodeEditorService codeEditorService;
+    private final ClassService classService;
+
+    @Value("${app.editor.idle-eviction-ms:600000}") // 10 minutes by default
+    private long idleEvictionMs;
+
+    @Scheduled(fixedDelayString = "${app.editor.eviction-check-rate:60000}")
+    public void evictIdleTeams() {
+        long idleSince = System.currentTimeMillis() - idleEvictionMs;
+        for (Integer teamId : codeEditorService.getIdleTeams(idleSince)) {
+            if (classService.isTeamClassInSession(teamId)) {
+                continue;
+            }
+            if (codeEditorService.evictTeam(teamId)) {
+                log.info("Evicted editor state of team {}", teamId);
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.itmo.programmingclub.scheduler;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.itmo.programmingclub.service.CodeEditorService;
+import com.itmo.programmingclub.service.EditorPersistenceService;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+
+@Component
+@RequiredArgsConstructor
+public class EditorPersistenceScheduler {
+
+    private final CodeEditorService codeEditorService;
+    private final EditorPersistenceService editorPersistenceService;
+
+    @Scheduled(fixedDelayString = "${app.editor.save-rate:5000}")
+    public void saveDocuments() {
+        editorPersistenceService.save(codeEditorService.getDocuments());
+    }
+
+    @PreDestroy
+    public void saveOnShutdown() {
+        saveDocuments();
+    }
+}
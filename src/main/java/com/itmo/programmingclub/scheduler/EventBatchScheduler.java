@@ -0,0 +1,26 @@
+package com.itmo.programmingclub.scheduler;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.itmo.programmingclub.service.EventBatchWriter;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+
+@Component
+@RequiredArgsConstructor
+public class EventBatchScheduler {
+
+    private final EventBatchWriter eventBatchWriter;
+
+    @Scheduled(fixedDelayString = "${app.events.batch.flush-rate:500}")
+    public void flushEvents() {
+        eventBatchWriter.flush();
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flushEvents();
+    }
+}
@@ -0,0 +1,33 @@
+package com.itmo.programmingclub.scheduler;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.itmo.programmingclub.service.EventPartitionService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Daily maintenance of the app_event partitions; runs once at startup as well,
+ * so a server that was down over a month boundary does not write into the default partition.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class EventPartitionScheduler {
+    private final EventPartitionService eventPartitionService;
+
+    @Scheduled(cron = "${app.events.partitions.cron:0 30 3 * * *}", zone = "${app.timezone:Europe/Moscow}")
+    public void maintainPartitions() {
+        log.info("Starting app_event partition maintenance");
+        eventPartitionService.maintain();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void maintainPartitionsOnStartup() {
+        maintainPartitions();
+    }
+}
@@ -0,0 +1,117 @@
+package com.itmo.programmingclub.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.itmo.programmingclub.exceptions.NotFoundException;
+import com.itmo.programmingclub.model.dto.ClassDashboardDTO;
+import com.itmo.programmingclub.model.dto.SubmissionDTO;
+import com.itmo.programmingclub.model.dto.TeamDashboardDTO;
+import com.itmo.programmingclub.model.entity.Event;
+import com.itmo.programmingclub.repository.ClassRepository;
+import com.itmo.programmingclub.repository.SubmissionRepository;
+import com.itmo.programmingclub.repository.TeamRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Everything a curator's class view shows about every team, in one call,
+ * and the per-team deltas that keep it current on /topic/class/{classId}/dashboard
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ClassDashboardService {
+    private final ClassRepository classRepository;
+    private final TeamRepository teamRepository;
+    private final SubmissionRepository submissionRepository;
+    private final TeamStateService teamStateService;
+    private final SimpMessagingTemplate messagingTemplate;
+
+    /**
+     * Dashboard of a class: team ids, the states of all teams and all submissions of the class,
+     * each with one query whatever the number of teams; team states are usually served from memory
+     */
+    @Transactional(readOnly = true)
+    public ClassDashboardDTO getDashboard(Integer classId, Integer viewerUserRoleId) {
+        if (!classRepository.existsById(classId)) {
+            throw new NotFoundException("Class not found");
+        }
+        List<Integer> teamIds = teamRepository.findIdsByClassEntityId(classId);
+        Map<Integer, TeamStateService.Snapshot> states = teamStateService.getStates(teamIds);
+
+        Map<Integer, List<SubmissionDTO>> submissions = new LinkedHashMap<>();
+        teamIds.forEach(teamId -> submissions.put(teamId, new ArrayList<>()));
+        for (SubmissionDTO submission : submissionRepository.findDTOsByClassId(classId)) {
+            submissions.computeIfAbsent(submission.getTeamId(), k -> new ArrayList<>()).add(submission);
+        }
+
+        List<TeamDashboardDTO> teams = teamIds.stream()
+                .map(teamId -> toDto(teamId, states.get(teamId), submissions.get(teamId)))
+                .toList();
+        return ClassDashboardDTO.builder()
+                .classId(classId)
+                .viewerUserRoleId(viewerUserRoleId)
+                .teams(teams)
+                .build();
+    }
+
+    /**
+     * Send the team's new dashboard row once the transaction that saved the event commits.
+     * Called from EventService after the team state has been updated.
+     */
+    public void onEvent(Event event) {
+        if (event.getTeam() == null || event.getClassEntity() == null || !affectsDashboard(event.getType())) {
+            return;
+        }
+        Integer teamId = event.getTeam().getId();
+        Integer classId = event.getClassEntity().getId();
+        // Read the submission while the persistence context is still open
+        List<SubmissionDTO> changed = event.getSubmission() != null
+                ? List.of(SubmissionDTO.fromEntity(event.getSubmission()))
+                : List.of();
+
+        Runnable publish = () -> {
+            TeamDashboardDTO delta = toDto(teamId, teamStateService.getState(teamId), changed);
+            messagingTemplate.convertAndSend("/topic/class/" + classId + "/dashboard", delta);
+            log.debug("Sent dashboard delta of team {} to class {}", teamId, classId);
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Registered after the team state's own callback, so the committed state is already in memory
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish.run();
+                }
+            });
+        } else {
+            publish.run();
+        }
+    }
+
+    private static TeamDashboardDTO toDto(Integer teamId, TeamStateService.Snapshot state, List<SubmissionDTO> submissions) {
+        return TeamDashboardDTO.builder()
+                .teamId(teamId)
+                .blocked(state.blocked())
+                .handRaised(state.handRaised())
+                .selectedTaskId(state.selectedTaskId())
+                .joinedCuratorIds(state.joinedCuratorIds())
+                .lastVerdict(state.lastVerdict())
+                .lastVerdictSubmissionId(state.lastVerdictSubmissionId())
+                .submissions(submissions)
+                .build();
+    }
+
+    private static boolean affectsDashboard(Event.EventType type) {
+        return type == Event.EventType.TEAM_SENT_SOLUTION || TeamStateService.affectsState(type);
+    }
+}
@@ -0,0 +1,164 @@
+package com.itmo.programmingclub.service;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import com.itmo.programmingclub.model.dto.EventDTO;
+import com.itmo.programmingclub.repository.EventRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Numbers the events published to /topic/class/{classId}/events and keeps the latest of every active class,
+ * so a client that reconnects gets what it missed from memory instead of reloading the class's event log.
+ * Every ring numbers its events from 1 under its own epoch, the creation time of the ring in microseconds;
+ * a client resuming with the epoch of a ring that was evicted, or lives on another node or before a restart,
+ * is answered from the database.
+ * In a cluster every resume is answered from the database: a ring only holds the events published on its own node,
+ * class events published on other nodes reach this node's clients through the relay and never enter it.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ClassEventReplayService {
+    private final EventRepository eventRepository;
+
+    @Value("${app.events.replay.capacity:256}")
+    private int capacity;
+
+    @Value("${app.events.replay.fallback-limit:1000}")
+    private int fallbackLimit;
+
+    @Value("${app.events.replay.idle-eviction-ms:14400000}")
+    private long idleEvictionMs;
+
+    @Value("${app.events.replay.fallback-pool-size:2}")
+    private int fallbackPoolSize;
+
+    @Value("${app.cluster.enabled:false}")
+    private boolean clustered;
+
+    // Database fallbacks run here, off the inbound channel threads that deliver the SUBSCRIBE
+    private ThreadPoolExecutor fallbackExecutor;
+
+    // Map: classId -> latest published events of the class
+    private final Map<Integer, Ring> rings = new ConcurrentHashMap<>();
+
+    /**
+     * Events to send to a resuming client, oldest first
+     * @param reset the gap could not be filled, the client has to reload the event log
+     */
+    public record Replay(List<EventDTO> events, boolean reset) {
+    }
+
+    @PostConstruct
+    public void init() {
+        fallbackExecutor = new ThreadPoolExecutor(fallbackPoolSize, fallbackPoolSize, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), new CustomizableThreadFactory("eventReplay-"));
+        fallbackExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        fallbackExecutor.shutdown();
+    }
+
+    /**
+     * Number the event, remember it and hand it to {@code sender}; events of a class are sent in number order
+     */
+    public void publish(EventDTO event, Consumer<EventDTO> sender) {
+        Ring ring = rings.computeIfAbsent(event.getClassId(), id -> new Ring());
+        synchronized (ring) {
+            event.setSeq(++ring.lastSeq);
+            event.setSeqEpoch(ring.epoch);
+            ring.events.addLast(event);
+            if (ring.events.size() > capacity) {
+                ring.events.removeFirst();
+            }
+            ring.lastActivity = System.currentTimeMillis();
+            sender.accept(event);
+        }
+    }
+
+    /**
+     * Events of a class published after {@code sinceSeq} of {@code sinceEpoch}. Served from memory while the ring
+     * of that epoch still holds the event after {@code sinceSeq} and the node is not clustered; otherwise the events
+     * since {@code sinceTime} are read from the database on the fallback executor.
+     */
+    public CompletableFuture<Replay> since(Integer classId, Long sinceEpoch, long sinceSeq, OffsetDateTime sinceTime) {
+        Ring ring = clustered ? null : rings.get(classId);
+        if (ring != null && sinceEpoch != null && sinceEpoch == ring.epoch) {
+            synchronized (ring) {
+                EventDTO oldest = ring.events.peekFirst();
+                if (oldest != null && sinceSeq >= oldest.getSeq() - 1 && sinceSeq <= ring.lastSeq) {
+                    List<EventDTO> missed = new ArrayList<>();
+                    for (EventDTO event : ring.events) {
+                        if (event.getSeq() > sinceSeq) {
+                            missed.add(event);
+                        }
+                    }
+                    return CompletableFuture.completedFuture(new Replay(missed, false));
+                }
+            }
+        }
+        if (sinceTime == null) {
+            return CompletableFuture.completedFuture(new Replay(List.of(), true));
+        }
+        return CompletableFuture.supplyAsync(() -> fromDatabase(classId, sinceTime), fallbackExecutor);
+    }
+
+    /**
+     * The ring doesn't reach back far enough; events at sinceTime itself are resent, clients skip known ids
+     */
+    private Replay fromDatabase(Integer classId, OffsetDateTime sinceTime) {
+        List<EventDTO> newestFirst = eventRepository.findPage(classId, sinceTime, null, null, fallbackLimit + 1);
+        if (newestFirst.size() > fallbackLimit) {
+            return new Replay(List.of(), true);
+        }
+        List<EventDTO> missed = new ArrayList<>(newestFirst);
+        Collections.reverse(missed);
+        log.debug("Replayed {} events of class {} from the database", missed.size(), classId);
+        return new Replay(missed, false);
+    }
+
+    @Scheduled(fixedDelayString = "${app.events.replay.eviction-check-rate:600000}")
+    public void evictIdleRings() {
+        long idleSince = System.currentTimeMillis() - idleEvictionMs;
+        rings.entrySet().removeIf(entry -> {
+            synchronized (entry.getValue()) {
+                return entry.getValue().lastActivity < idleSince;
+            }
+        });
+    }
+
+    private static final class Ring {
+        private final ArrayDeque<EventDTO> events = new ArrayDeque<>();
+        private final long epoch;
+        private long lastSeq;
+        private long lastActivity = System.currentTimeMillis();
+
+        private Ring() {
+            Instant now = Instant.now();
+            epoch = now.getEpochSecond() * 1_000_000 + now.getNano() / 1_000;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.itmo.programmingclub.service;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.itmo.programmingclub.event.ClassVerdictCountedEvent;
+import com.itmo.programmingclub.exceptions.NotFoundException;
+import com.itmo.programmingclub.model.dto.ClassLeaderboardDTO;
+import com.itmo.programmingclub.model.dto.LeaderboardRowDTO;
+import com.itmo.programmingclub.model.entity.Class;
+import com.itmo.programmingclub.model.entity.Submission;
+import com.itmo.programmingclub.repository.ClassRepository;
+import com.itmo.programmingclub.repository.TeamRepository;
+import com.itmo.programmingclub.service.stats.ClassLeaderboard;
+import com.itmo.programmingclub.service.stats.ClassStats;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Live leaderboard of every active class, ranked from the per-team counters of ClassStatsService.
+ * Each verdict re-ranks its team only, and only the rows whose rank changed are sent to
+ * /topic/class/{classId}/leaderboard; subscribers get the whole leaderboard first from LeaderboardSubscriptionInterceptor.
+ * In a cluster every node ranks the verdicts of all nodes and sends its own deltas under its own epoch,
+ * so the leaderboard topic is not relayed.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ClassLeaderboardService {
+    private final ClassRepository classRepository;
+    private final TeamRepository teamRepository;
+    private final ClassStatsService classStatsService;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ZoneId zoneId;
+
+    @Value("${app.leaderboard.failed-attempt-penalty-minutes:20}")
+    private long failedAttemptPenaltyMinutes;
+
+    @Value("${app.leaderboard.idle-eviction-ms:14400000}")
+    private long idleEvictionMs;
+
+    // Map: classId -> ranking of the class's teams
+    private final Map<Integer, ClassLeaderboard> leaderboards = new ConcurrentHashMap<>();
+
+    /**
+     * Re-rank the submission's team once the transaction that recorded its verdict commits.
+     * Called from CodeExecutionService after the verdict event, so the class stats already include the verdict.
+     */
+    public void onVerdict(Submission submission) {
+        Integer classId = submission.getTeam().getClassEntity().getId();
+        Integer teamId = submission.getTeam().getId();
+        // Build the leaderboard inside the transaction; a leaderboard evicted by the time of commit is rebuilt on next use
+        getLeaderboard(classId);
+
+        Runnable rank = () -> rank(classId, teamId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Registered after the stats' own callback, so the counters already hold the verdict
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    rank.run();
+                }
+            });
+        } else {
+            rank.run();
+        }
+    }
+
+    /**
+     * Re-rank the team of a verdict counted on another node, if this node has the class's leaderboard
+     */
+    @EventListener
+    public void onVerdictCounted(ClassVerdictCountedEvent event) {
+        rank(event.classId(), event.teamId());
+    }
+
+    /**
+     * The whole leaderboard of a class with the version it reflects
+     */
+    @Transactional(readOnly = true)
+    public ClassLeaderboardDTO getSnapshot(Integer classId) {
+        ClassLeaderboard leaderboard = getLeaderboard(classId);
+        synchronized (leaderboard) {
+            return toDto(leaderboard, leaderboard.getRanking(), true);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.leaderboard.eviction-check-rate:600000}")
+    public void evictIdleLeaderboards() {
+        long idleSince = System.currentTimeMillis() - idleEvictionMs;
+        leaderboards.entrySet().removeIf(entry -> {
+            synchronized (entry.getValue()) {
+                return entry.getValue().getLastActivity() < idleSince;
+            }
+        });
+    }
+
+    /**
+     * Leaderboard of a class, ranking all its teams from the class stats the first time the class is touched
+     */
+    private ClassLeaderboard getLeaderboard(Integer classId) {
+        return leaderboards.computeIfAbsent(classId, id -> {
+            Class classEntity = classRepository.findById(id)
+                    .orElseThrow(() -> new NotFoundException("Class not found"));
+            OffsetDateTime classStart = classEntity.getClassDate()
+                    .atTime(classEntity.getSchedule().getClassStartTime())
+                    .atZone(zoneId)
+                    .toOffsetDateTime();
+            ClassStats stats = classStatsService.getClassStats(id);
+            ClassLeaderboard leaderboard = new ClassLeaderboard(id, classStart, failedAttemptPenaltyMinutes);
+            for (Integer teamId : teamRepository.findIdsByClassEntityId(id)) {
+                leaderboard.update(leaderboard.standingOf(stats, teamId));
+            }
+            return leaderboard;
+        });
+    }
+
+    private void rank(Integer classId, Integer teamId) {
+        ClassLeaderboard leaderboard = leaderboards.get(classId);
+        if (leaderboard == null) {
+            return;
+        }
+        ClassLeaderboard.Standing standing = leaderboard.standingOf(classStatsService.getClassStats(classId), teamId);
+        synchronized (leaderboard) {
+            List<ClassLeaderboard.Ranked> changed = leaderboard.update(standing);
+            if (changed.isEmpty()) {
+                return;
+            }
+            // Sent under the lock so deltas of a class leave in version order
+            messagingTemplate.convertAndSend("/topic/class/" + classId + "/leaderboard",
+                    toDto(leaderboard, changed, false));
+            log.debug("Sent {} leaderboard rows of class {} after a verdict of team {}", changed.size(), classId, teamId);
+        }
+    }
+
+    private static ClassLeaderboardDTO toDto(ClassLeaderboard leaderboard, List<ClassLeaderboard.Ranked> rows,
+                                             boolean snapshot) {
+        return ClassLeaderboardDTO.builder()
+                .classId(leaderboard.getClassId())
+                .epoch(leaderboard.getEpoch())
+                .version(leaderboard.getVersion())
+                .snapshot(snapshot)
+                .rows(rows.stream()
+                        .map(ranked -> LeaderboardRowDTO.builder()
+                                .teamId(ranked.standing().teamId())
+                                .rank(ranked.rank())
+                                .solved(ranked.standing().solved())
+                                .penaltyMinutes(ranked.standing().penaltyMinutes())
+                                .lastSolvedAt(ranked.standing().lastSolvedAt())
+                                .build())
+                        .toList())
+                .build();
+    }
+}
@@ -9,6 +9,7 @@ import com.itmo.programmingclub.model.entity.Group;
 import com.itmo.programmingclub.model.entity.Schedule;
 import com.itmo.programmingclub.repository.ClassRepository;
 import com.itmo.programmingclub.repository.ScheduleRepository;
+import com.itmo.programmingclub.repository.TeamRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -31,6 +32,7 @@ import java.util.Optional;
 public class ClassService {
     private final ClassRepository classRepository;
     private final ScheduleRepository scheduleRepository;
+    private final TeamRepository teamRepository;
     private final TeamDistributionService teamDistributionService;
     private final ZoneId zoneId;
 
@@ -308,6 +310,19 @@ public class ClassService {
         return isInSession;
     }
 
+    /**
+     * Checks if the class of a team is currently in session.
+     * 
+     * @param teamId The ID of the team
+     * @return true if the team exists and its class is in session, false otherwise
+     */
+    @Transactional(readOnly = true)
+    public boolean isTeamClassInSession(Integer teamId) {
+        return teamRepository.findById(teamId)
+                .map(team -> isClassInSession(team.getClassEntity()))
+                .orElse(false);
+    }
+
     /**
      * Validates that a class is currently in session.
      * Throws IllegalArgumentException if the class is not in session.
@@ -1,6 +1,5 @@
 package com.itmo.programmingclub.service;
 
-import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
@@ -9,6 +8,8 @@ import org.springframework.transaction.annotation.Transactional;
 
 import com.itmo.programmingclub.exceptions.NotFoundException;
 import com.itmo.programmingclub.model.RoleEnum;
+import com.itmo.programmingclub.model.dto.ClassDashboardDTO;
+import com.itmo.programmingclub.model.dto.ClassStatsDTO;
 import com.itmo.programmingclub.model.dto.SubmissionDTO;
 import com.itmo.programmingclub.model.entity.Class;
 import com.itmo.programmingclub.model.entity.Event;
@@ -19,7 +20,6 @@ import com.itmo.programmingclub.model.entity.User;
 import com.itmo.programmingclub.model.entity.UserRole;
 import com.itmo.programmingclub.model.entity.UserTeam;
 import com.itmo.programmingclub.repository.ClassRepository;
-import com.itmo.programmingclub.repository.EventRepository;
 import com.itmo.programmingclub.repository.TaskRepository;
 import com.itmo.programmingclub.repository.TeamRepository;
 import com.itmo.programmingclub.repository.UserRepository;
@@ -37,13 +37,15 @@ public class ClassSessionService {
     private final ClassService classService;
     private final EventService eventService;
     private final ClassRepository classRepository;
-    private final EventRepository eventRepository;
     private final UserRoleRepository userRoleRepository;
     private final TeamRepository teamRepository;
     private final UserTeamRepository userTeamRepository;
     private final UserRepository userRepository;
     private final SubmissionService submissionService;
     private final TaskRepository taskRepository;
+    private final TeamStateService teamStateService;
+    private final ClassDashboardService classDashboardService;
+    private final ClassStatsService classStatsService;
 
     /**
      * Joins a student to a class session.
@@ -366,46 +368,31 @@ public class ClassSessionService {
     }
 
     /**
-     * Checks if a team is blocked from submitting solutions based on events.
+     * Checks if a team is blocked from submitting solutions, from the team's live state.
      */
     public boolean isTeamBlocked(Integer teamId) {
-        // Get the most recent blocking/unblocking event from DB
-        Optional<Event> lastBlockEvent = eventRepository.findTopByTeamIdAndTypeInOrderByTimeDesc(
-                teamId,
-                Arrays.asList(Event.EventType.CURATOR_BLOCKED_TEAM, Event.EventType.CURATOR_UNBLOCKED_TEAM)
-        );
-        
-        // If last event is BLOCKED, team is blocked; otherwise not blocked
-        return lastBlockEvent.isPresent() && lastBlockEvent.get().getType() == Event.EventType.CURATOR_BLOCKED_TEAM;
+        return teamStateService.getState(teamId).blocked();
     }
 
     /**
-     * Checks if a team's hand is currently raised based on events.
+     * Checks if a team's hand is currently raised, from the team's live state.
      */
     public boolean isHandRaised(Integer teamId) {
-        // Get the most recent hand raise/lower event from DB
-        Optional<Event> lastHandEvent = eventRepository.findTopByTeamIdAndTypeInOrderByTimeDesc(
-                teamId,
-                Arrays.asList(Event.EventType.TEAM_RAISED_HAND, Event.EventType.TEAM_LOWERED_HAND)
-        );
-        
-        // If last event is RAISED, hand is raised; otherwise not raised
-        return lastHandEvent.isPresent() && lastHandEvent.get().getType() == Event.EventType.TEAM_RAISED_HAND;
+        return teamStateService.getState(teamId).handRaised();
     }
 
     /**
-     * Checks if a curator is currently joined to a team based on events.
+     * Live state of a team: blocked, hand raised, selected task, joined curators and last verdict.
+     */
+    public TeamStateService.Snapshot getTeamState(Integer teamId) {
+        return teamStateService.getState(teamId);
+    }
+
+    /**
+     * Checks if a curator is currently joined to a team, from the team's live state.
      */
     public boolean isCuratorJoinedToTeam(Integer teamId, Integer curatorUserRoleId) {
-        // Get the most recent join/leave event for this curator from DB
-        Optional<Event> lastJoinEvent = eventRepository.findTopByTeamIdAndUserRoleIdAndTypeInOrderByTimeDesc(
-                teamId,
-                curatorUserRoleId,
-                Arrays.asList(Event.EventType.CURATOR_JOINED_TEAM, Event.EventType.CURATOR_LEFT_TEAM)
-        );
-        
-        // If last event is JOINED, curator is joined; otherwise not joined
-        return lastJoinEvent.isPresent() && lastJoinEvent.get().getType() == Event.EventType.CURATOR_JOINED_TEAM;
+        return teamStateService.getState(teamId).joinedCuratorIds().contains(curatorUserRoleId);
     }
 
     /**
@@ -417,43 +404,41 @@ public class ClassSessionService {
     }
 
     /**
-     * Gets list of curator UserRole IDs that are currently joined to a team based on events.
-     * Uses DB-level queries to find curators whose last event is JOINED.
+     * Gets list of curator UserRole IDs that are currently joined to a team, from the team's live state.
+     * Costs at most one query (on the first read of the team) however many curators visited it.
      */
     public List<Integer> getJoinedCuratorsToTeam(Integer teamId) {
-        // Get all distinct curator IDs who have join/leave events for this team
-        List<Integer> curatorIds = eventRepository.findDistinctUserRoleIdsByTeamIdAndTypeIn(
-                teamId,
-                Arrays.asList(Event.EventType.CURATOR_JOINED_TEAM, Event.EventType.CURATOR_LEFT_TEAM)
-        );
-        
-        // For each curator, check their last event using DB query
-        return curatorIds.stream()
-                .filter(curatorId -> {
-                    Optional<Event> lastEvent = eventRepository.findTopByTeamIdAndUserRoleIdAndTypeInOrderByTimeDesc(
-                            teamId,
-                            curatorId,
-                            Arrays.asList(Event.EventType.CURATOR_JOINED_TEAM, Event.EventType.CURATOR_LEFT_TEAM)
-                    );
-                    return lastEvent.isPresent() && lastEvent.get().getType() == Event.EventType.CURATOR_JOINED_TEAM;
-                })
+        return teamStateService.getState(teamId).joinedCuratorIds().stream()
+                .sorted()
                 .toList();
     }
 
     /**
-     * Gets the currently selected task for a team based on events.
-     * Returns the task from the most recent TEAM_BEGAN_TO_COMPLETE_TASK event.
+     * States and submissions of all teams of a class for a curator's view, in one call.
+     * The curator's UserRole ID is included so the client can tell which teams they have joined.
+     */
+    @Transactional(readOnly = true)
+    public ClassDashboardDTO getClassDashboard(Integer classId, String curatorUsername) {
+        UserRole curatorRole = getUserRole(curatorUsername, RoleEnum.CURATOR);
+        return classDashboardService.getDashboard(classId, curatorRole.getId());
+    }
+
+    /**
+     * Per-task solve statistics of a class, served from the counters kept up to date by ClassStatsService.
+     */
+    public ClassStatsDTO getClassStats(Integer classId) {
+        if (!classRepository.existsById(classId)) {
+            throw new NotFoundException("Class not found");
+        }
+        return classStatsService.getStats(classId);
+    }
+
+    /**
+     * Gets the currently selected task for a team, from the team's live state.
      */
     public Optional<Task> getSelectedTaskForTeam(Integer teamId) {
-        // Get the most recent task selection event from DB
-        Optional<Event> lastTaskSelection = eventRepository.findTopByTeamIdAndTypeOrderByTimeDesc(
-                teamId,
-                Event.EventType.TEAM_BEGAN_TO_COMPLETE_TASK
-        );
-        
-        return lastTaskSelection
-                .filter(e -> e.getTask() != null)
-                .map(Event::getTask);
+        Integer taskId = teamStateService.getState(teamId).selectedTaskId();
+        return taskId != null ? taskRepository.findById(taskId) : Optional.empty();
     }
 
     private UserRole getUserRole(String username, RoleEnum requiredRole) {
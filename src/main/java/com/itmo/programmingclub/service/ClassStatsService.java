@@ -0,0 +1,238 @@
+package com.itmo.programmingclub.service;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.itmo.programmingclub.event.ClassVerdictCountedEvent;
+import com.itmo.programmingclub.model.dto.ClassStatsDTO;
+import com.itmo.programmingclub.model.dto.TaskStatsDTO;
+import com.itmo.programmingclub.model.entity.Event;
+import com.itmo.programmingclub.model.entity.Submission;
+import com.itmo.programmingclub.repository.ClassTaskStatsRepository;
+import com.itmo.programmingclub.repository.ClassTeamTaskStatsRepository;
+import com.itmo.programmingclub.service.cluster.ClusterSignal;
+import com.itmo.programmingclub.service.stats.ClassStats;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Solve statistics of every task of a class, kept up to date one verdict at a time instead of
+ * being recomputed from submissions: attempts, OK verdicts, solving teams, first OK and median verdict latency.
+ * Counters of active classes live in memory, are written behind in batches and sent as per-task deltas
+ * to /topic/class/{classId}/stats. Saves add what was counted since the previous one to the stored counters,
+ * so in a cluster the database sums the verdicts of every node. Each node also signals its verdicts to the others,
+ * which count them in the classes they have loaded without saving them; every node sends its own stats deltas,
+ * the stats topic is not relayed.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ClassStatsService {
+    private static final String VERDICT_SIGNAL = "class-verdict";
+
+    private final ClassTaskStatsRepository classTaskStatsRepository;
+    private final ClassTeamTaskStatsRepository classTeamTaskStatsRepository;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectProvider<ClusterFanoutService> clusterFanoutService;
+    private final JsonMapper jsonMapper;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.stats.idle-eviction-ms:14400000}")
+    private long idleEvictionMs;
+
+    // Map: classId -> counters of the class
+    private final Map<Integer, ClassStats> classes = new ConcurrentHashMap<>();
+
+    /**
+     * Verdict counted and saved by the node that recorded it, as it is signalled to the other nodes
+     */
+    public record RelayedVerdict(Integer classId, Integer teamId, Integer taskId, Submission.SubmissionStatus status,
+                                 Long latencyMs, OffsetDateTime time) {
+    }
+
+    /**
+     * Count a verdict once the transaction that recorded it commits, so a rolled back verdict is never counted.
+     * Called from EventService for every saved event.
+     */
+    public void onEvent(Event event) {
+        if (event.getType() != Event.EventType.RESULT_OF_SOLUTION || event.getSubmission() == null
+                || event.getClassEntity() == null || event.getTeam() == null) {
+            return;
+        }
+        // Read everything while the persistence context is still open
+        Submission submission = event.getSubmission();
+        Integer classId = event.getClassEntity().getId();
+        Integer teamId = event.getTeam().getId();
+        Integer taskId = submission.getTask().getId();
+        Submission.SubmissionStatus status = submission.getStatus();
+        Duration latency = submission.getComplitionTime();
+        OffsetDateTime time = event.getTime();
+        // Load the class's saved counters inside the transaction; looked up again below in case it was evicted since
+        getClassStats(classId);
+
+        Runnable apply = () -> {
+            TaskStatsDTO[] delta = new TaskStatsDTO[1];
+            // Counted while the entry is locked, so an eviction can't drop the class between the lookup and the count
+            classes.compute(classId, (id, stats) -> {
+                ClassStats current = stats != null ? stats : restore(id);
+                synchronized (current) {
+                    delta[0] = toDto(classId, current.apply(teamId, taskId, status, latency, time));
+                }
+                return current;
+            });
+            messagingTemplate.convertAndSend("/topic/class/" + classId + "/stats", delta[0]);
+            clusterFanoutService.ifAvailable(relay -> relay.signal(VERDICT_SIGNAL, jsonMapper.writeValueAsString(
+                    new RelayedVerdict(classId, teamId, taskId, status, latency != null ? latency.toMillis() : null, time))));
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply.run();
+                }
+            });
+        } else {
+            apply.run();
+        }
+    }
+
+    /**
+     * Count a verdict of another node in a class loaded here; a class loaded later reads it from the saved rows
+     */
+    @EventListener
+    public void onClusterSignal(ClusterSignal signal) {
+        if (!VERDICT_SIGNAL.equals(signal.name())) {
+            return;
+        }
+        RelayedVerdict verdict = jsonMapper.readValue(signal.payload(), RelayedVerdict.class);
+        Duration latency = verdict.latencyMs() != null ? Duration.ofMillis(verdict.latencyMs()) : null;
+        TaskStatsDTO[] delta = new TaskStatsDTO[1];
+        classes.computeIfPresent(verdict.classId(), (id, stats) -> {
+            synchronized (stats) {
+                delta[0] = toDto(id, stats.applySaved(verdict.teamId(), verdict.taskId(), verdict.status(),
+                        latency, verdict.time()));
+            }
+            return stats;
+        });
+        if (delta[0] == null) {
+            return;
+        }
+        messagingTemplate.convertAndSend("/topic/class/" + verdict.classId() + "/stats", delta[0]);
+        eventPublisher.publishEvent(new ClassVerdictCountedEvent(verdict.classId(), verdict.teamId()));
+    }
+
+    public ClassStatsDTO getStats(Integer classId) {
+        ClassStats stats = getClassStats(classId);
+        List<TaskStatsDTO> tasks;
+        synchronized (stats) {
+            tasks = stats.getTasks().stream()
+                    .map(task -> toDto(classId, task))
+                    .sorted(Comparator.comparing(TaskStatsDTO::getTaskId))
+                    .toList();
+        }
+        return ClassStatsDTO.builder()
+                .classId(classId)
+                .tasks(tasks)
+                .build();
+    }
+
+    /**
+     * Counters of a class, loaded from the saved rows the first time the class is touched
+     */
+    public ClassStats getClassStats(Integer classId) {
+        return classes.computeIfAbsent(classId, this::restore);
+    }
+
+    private ClassStats restore(Integer classId) {
+        return ClassStats.restore(classId,
+                classTaskStatsRepository.findByIdClassId(classId), classTeamTaskStatsRepository.findByIdClassId(classId));
+    }
+
+    /**
+     * Write the rows changed since the last save in one batch per table, both in one transaction:
+     * the counters are added to the stored ones, so a table written without the other would count twice on retry.
+     * Saves are serialized, so older counters never overwrite newer ones.
+     * On failure nothing is stored, the rows stay changed and are retried on the next call.
+     */
+    public synchronized void save() {
+        List<ClassStats.Unsaved> taken = new ArrayList<>();
+        List<ClassStats> owners = new ArrayList<>();
+        for (ClassStats stats : classes.values()) {
+            synchronized (stats) {
+                if (stats.isDirty()) {
+                    taken.add(stats.takeUnsaved());
+                    owners.add(stats);
+                }
+            }
+        }
+        if (taken.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                classTaskStatsRepository.upsertAll(taken.stream().flatMap(u -> u.taskRows().stream()).toList());
+                classTeamTaskStatsRepository.upsertAll(taken.stream().flatMap(u -> u.teamTaskRows().stream()).toList());
+            });
+        } catch (DataAccessException | TransactionException e) {
+            log.error("Failed to save stats of {} classes, will retry", owners.size(), e);
+            for (int i = 0; i < owners.size(); i++) {
+                synchronized (owners.get(i)) {
+                    owners.get(i).markUnsaved(taken.get(i));
+                }
+            }
+            return;
+        }
+        log.debug("Saved stats of {} classes", owners.size());
+    }
+
+    /**
+     * Serialized with saves: a class whose rows are being written looks clean until a failed save gives them back
+     */
+    @Scheduled(fixedDelayString = "${app.stats.eviction-check-rate:600000}")
+    public synchronized void evictIdleClasses() {
+        long idleSince = System.currentTimeMillis() - idleEvictionMs;
+        for (Integer classId : classes.keySet()) {
+            // Removed under the entry's lock, a verdict being counted either finishes first or restores the class
+            classes.computeIfPresent(classId, (id, stats) -> {
+                synchronized (stats) {
+                    // Unsaved counters stay until the next save has written them
+                    return stats.getLastActivity() < idleSince && !stats.isDirty() ? null : stats;
+                }
+            });
+        }
+    }
+
+    private static TaskStatsDTO toDto(Integer classId, ClassStats.TaskStats task) {
+        return TaskStatsDTO.builder()
+                .classId(classId)
+                .taskId(task.getTaskId())
+                .attempts(task.getAttempts())
+                .okVerdicts(task.getOkVerdicts())
+                .solvedTeams(task.getSolvedTeams())
+                .firstOkAt(task.getFirstOkAt())
+                .medianLatencyMs(task.getMedianLatencyMs())
+                .build();
+    }
+}
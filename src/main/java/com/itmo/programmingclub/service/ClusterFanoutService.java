@@ -0,0 +1,307 @@
+package com.itmo.programmingclub.service;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MimeType;
+
+import com.itmo.programmingclub.service.cluster.ClusterMessageCodec;
+import com.itmo.programmingclub.service.cluster.ClusterSignal;
+import com.itmo.programmingclub.service.cluster.RelayedMessage;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Relays broker messages between application instances over Postgres LISTEN/NOTIFY.
+ * Messages published on this node to team and class topics are collected from the broker channel
+ * and sent as batches on a NOTIFY channel; every other node republishes them to its local simple broker,
+ * so clients may connect to any node. Batches larger than a NOTIFY payload are stored in cluster_message
+ * and only their id is notified.
+ * Services use the same channel for {@link #signal(String, String) signals} to their peers on other nodes.
+ * <p>
+ * Editor state of a team lives on the node holding it ({@link EditorTeamOwnershipService}); its editor topics
+ * and the editor queues of users are relayed, so members connected to other nodes see its changes and replies.
+ * Class leaderboards and stats are not relayed: every node counts the verdicts of all nodes and sends
+ * its own deltas, whose versions only make sense against that node's snapshots.
+ * The outbox is bounded; when the database can't keep up, new messages are dropped and counted.
+ */
+@Service
+@ConditionalOnProperty(name = "app.cluster.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class ClusterFanoutService implements ChannelInterceptor {
+    private static final List<String> RELAYED_PREFIXES = List.of(
+            "/topic/team/", "/topic/class/",
+            "/topic/code/", "/topic/cursor/", "/topic/lock/", "/topic/bin/");
+    // User destinations are relayed before they are resolved to sessions, the receiving node resolves its own
+    private static final String USER_PREFIX = "/user/";
+    private static final List<String> RELAYED_USER_QUEUES = List.of(
+            "/queue/code/", "/queue/lock/", "/queue/bin/");
+    // Class topics every node publishes itself, see ClassStatsService and ClassLeaderboardService
+    private static final List<String> LOCAL_CLASS_SUFFIXES = List.of("/leaderboard", "/stats");
+    // Header of messages received from another node, they must not be relayed back
+    private static final String RELAYED_HEADER = "clusterRelayed";
+    // Destination prefix of signals, they go to application listeners instead of the broker
+    private static final String SIGNAL_PREFIX = "cluster:";
+    // NOTIFY payloads are limited to 8000 bytes
+    private static final int MAX_NOTIFY_BYTES = 7900;
+    private static final char SPILL_MARKER = '@';
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectProvider<SimpMessagingTemplate> messagingTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.cluster.channel:stomp_fanout}")
+    private String notifyChannel;
+
+    @Value("${app.cluster.poll-timeout-ms:500}")
+    private int pollTimeoutMs;
+
+    @Value("${app.cluster.outbox-capacity:10000}")
+    private int outboxCapacity;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final AtomicLong dropped = new AtomicLong();
+    private BlockingQueue<String> outbox;
+    private volatile boolean running;
+    private Thread listenerThread;
+
+    @PostConstruct
+    public void start() {
+        outbox = new LinkedBlockingQueue<>(outboxCapacity);
+        running = true;
+        listenerThread = new Thread(this::listen, "cluster-fanout-listener");
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+        log.info("Cluster fan-out started, node {} on channel {}", nodeId, notifyChannel);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        listenerThread.interrupt();
+        flush();
+    }
+
+    /**
+     * Broker channel interceptor: collect local messages for other nodes
+     */
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        MessageHeaders headers = message.getHeaders();
+        String destination = SimpMessageHeaderAccessor.getDestination(headers);
+        if (SimpMessageHeaderAccessor.getMessageType(headers) != SimpMessageType.MESSAGE
+                || headers.containsKey(RELAYED_HEADER)
+                || !(message.getPayload() instanceof byte[] payload)
+                || !isRelayed(destination)) {
+            return message;
+        }
+        Object contentType = headers.get(MessageHeaders.CONTENT_TYPE);
+        enqueue(new RelayedMessage(destination, contentType != null ? contentType.toString() : null, payload));
+        return message;
+    }
+
+    /**
+     * Send a signal to the services of all other nodes, they get it as a {@link ClusterSignal} application event.
+     * Signals share the outbox with broker messages and are sent with the next batch.
+     */
+    public void signal(String name, String payload) {
+        enqueue(new RelayedMessage(SIGNAL_PREFIX + name, "text/plain", payload.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Id of this node in relayed batches
+     */
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Send collected messages, packing as many as fit into one NOTIFY
+     */
+    @Scheduled(fixedDelayString = "${app.cluster.flush-rate:20}")
+    public void flush() {
+        long lost = dropped.getAndSet(0);
+        if (lost > 0) {
+            log.warn("Cluster outbox full, {} messages were not relayed to other nodes", lost);
+        }
+        List<String> batch = new ArrayList<>();
+        int batchBytes = 0;
+        String record;
+        while ((record = outbox.poll()) != null) {
+            int recordBytes = ClusterMessageCodec.byteLength(record);
+            if (!batch.isEmpty() && batchBytes + recordBytes > MAX_NOTIFY_BYTES) {
+                send(batch);
+                batch = new ArrayList<>();
+                batchBytes = 0;
+            }
+            batch.add(record);
+            batchBytes += recordBytes;
+        }
+        if (!batch.isEmpty()) {
+            send(batch);
+        }
+    }
+
+    /**
+     * Drop spilled batches every node has had time to read
+     */
+    @Scheduled(fixedDelayString = "${app.cluster.cleanup-rate:60000}")
+    public void cleanUp() {
+        jdbcTemplate.update("DELETE FROM cluster_message WHERE created_at < CURRENT_TIMESTAMP - INTERVAL '5 minutes'");
+    }
+
+    private void enqueue(RelayedMessage message) {
+        if (!outbox.offer(ClusterMessageCodec.encodeRecord(message))) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    private void send(List<String> records) {
+        String payload = ClusterMessageCodec.encode(nodeId, records);
+        try {
+            if (ClusterMessageCodec.byteLength(payload) > MAX_NOTIFY_BYTES) {
+                Long id = jdbcTemplate.queryForObject(
+                        "INSERT INTO cluster_message (payload) VALUES (?) RETURNING id", Long.class, payload);
+                payload = SPILL_MARKER + String.valueOf(id);
+            }
+            jdbcTemplate.query("SELECT pg_notify(?, ?)", (ResultSetExtractor<Void>) rs -> null, notifyChannel, payload);
+        } catch (RuntimeException e) {
+            log.error("Failed to relay {} messages to other nodes", records.size(), e);
+        }
+    }
+
+    /**
+     * Listener loop on a dedicated connection, reconnecting after failures
+     */
+    private void listen() {
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + notifyChannel);
+                }
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(pollTimeoutMs);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            receive(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                log.error("Cluster fan-out listener failed, reconnecting", e);
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void receive(String payload) {
+        if (payload.charAt(0) == SPILL_MARKER) {
+            long id = Long.parseLong(payload.substring(1));
+            List<String> spilled = jdbcTemplate.queryForList(
+                    "SELECT payload FROM cluster_message WHERE id = ?", String.class, id);
+            if (spilled.isEmpty()) {
+                log.warn("Spilled cluster batch {} is gone", id);
+                return;
+            }
+            payload = spilled.get(0);
+        }
+
+        ClusterMessageCodec.Batch batch = ClusterMessageCodec.decode(payload);
+        if (nodeId.equals(batch.nodeId())) {
+            return;
+        }
+        SimpMessagingTemplate template = messagingTemplate.getObject();
+        for (RelayedMessage relayed : batch.messages()) {
+            if (relayed.destination().startsWith(SIGNAL_PREFIX)) {
+                ClusterSignal signal = new ClusterSignal(batch.nodeId(),
+                        relayed.destination().substring(SIGNAL_PREFIX.length()),
+                        new String(relayed.payload(), StandardCharsets.UTF_8));
+                try {
+                    eventPublisher.publishEvent(signal);
+                } catch (RuntimeException e) {
+                    // A failing listener must not take the rest of the batch or the listener connection down
+                    log.error("Failed to handle cluster signal {} from node {}", signal.name(), signal.nodeId(), e);
+                }
+                continue;
+            }
+            SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+            accessor.setDestination(relayed.destination());
+            if (relayed.contentType() != null) {
+                accessor.setContentType(MimeType.valueOf(relayed.contentType()));
+            }
+            accessor.setHeader(RELAYED_HEADER, Boolean.TRUE);
+            accessor.setLeaveMutable(true);
+            template.send(relayed.destination(), MessageBuilder.createMessage(relayed.payload(), accessor.getMessageHeaders()));
+        }
+    }
+
+    private static boolean isRelayed(String destination) {
+        if (destination == null) {
+            return false;
+        }
+        if (destination.startsWith("/topic/class/")) {
+            for (String suffix : LOCAL_CLASS_SUFFIXES) {
+                if (destination.endsWith(suffix)) {
+                    return false;
+                }
+            }
+        }
+        for (String prefix : RELAYED_PREFIXES) {
+            if (destination.startsWith(prefix)) {
+                return true;
+            }
+        }
+        if (destination.startsWith(USER_PREFIX)) {
+            // /user/{name}/queue/...
+            int queue = destination.indexOf('/', USER_PREFIX.length());
+            for (String prefix : RELAYED_USER_QUEUES) {
+                if (queue > 0 && destination.startsWith(prefix, queue)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -1,173 +1,177 @@
 package com.itmo.programmingclub.service;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
 
+import com.itmo.programmingclub.model.dto.EditTimelineDTO;
+import com.itmo.programmingclub.model.dto.websocket.CodeChangeMessage;
+import com.itmo.programmingclub.model.dto.websocket.CodeSnapshotMessage;
+import com.itmo.programmingclub.service.editor.TeamDocument;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 /**
- * Service for managing code editing sessions and line locks
+ * Service for managing code editing sessions, line locks are kept by {@link LineLockService}
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class CodeEditorService {
-    // Map: teamId -> Map<lineNumber, LockInfo>
-    private final Map<Integer, Map<Integer, LockInfo>> teamLocks = new ConcurrentHashMap<>();
+    private final LineLockService lineLockService;
+    private final CursorBroadcastService cursorBroadcastService;
+    private final EditorPersistenceService editorPersistenceService;
+    private final EditorBinaryPublisher editorBinaryPublisher;
+    private final EditorSessionRegistry editorSessionRegistry;
+
+    // Map: teamId -> per-user code buffers of the team
+    private final Map<Integer, TeamDocument> teamDocuments = new ConcurrentHashMap<>();
     
-    // Map: teamId -> Map<userId, code> - code by user
-    private final Map<Integer, Map<String, String>> teamUserCode = new ConcurrentHashMap<>();
+    // Map: teamId -> load of the team's saved document in progress
+    private final Map<Integer, CompletableFuture<TeamDocument>> restoring = new ConcurrentHashMap<>();
     
     // Map: teamId -> Set<userId> of connected users
     private final Map<Integer, Set<String>> teamConnections = new ConcurrentHashMap<>();
 
-    public static class LockInfo {
-        private final String userId;
-        private final String userRole;
-        private final long timestamp;
+    @Value("${app.editor.history.max-bytes}")
+    private long historyMaxBytes;
 
-        public LockInfo(String userId, String userRole) {
-            this.userId = userId;
-            this.userRole = userRole;
-            this.timestamp = System.currentTimeMillis();
-        }
+    @Value("${app.editor.history.checkpoint-interval}")
+    private int historyCheckpointInterval;
 
-        public String getUserId() {
-            return userId;
-        }
+    @Value("${app.editor.restore-pool-size:2}")
+    private int restorePoolSize;
 
-        public String getUserRole() {
-            return userRole;
-        }
+    private ThreadPoolExecutor restoreExecutor;
 
-        public long getTimestamp() {
-            return timestamp;
-        }
+    @PostConstruct
+    public void init() {
+        restoreExecutor = new ThreadPoolExecutor(restorePoolSize, restorePoolSize, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), new CustomizableThreadFactory("editorRestore-"));
+        restoreExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        restoreExecutor.shutdown();
     }
 
     /**
-     * Try to lock a line for editing
-     * @return true if lock was successful, false if line is already locked by someone else
+     * The team's document, loaded from the database in the background on first use.
+     * Started when a session subscribes to the team's editor, so it is usually in memory before the first message;
+     * concurrent callers share one load.
      */
-    public boolean tryLockLine(Integer teamId, Integer lineNumber, String userId, String userRole) {
-        Map<Integer, LockInfo> locks = teamLocks.computeIfAbsent(teamId, k -> new ConcurrentHashMap<>());
-        
-        LockInfo existingLock = locks.get(lineNumber);
-        if (existingLock != null && !existingLock.getUserId().equals(userId)) {
-            // Check priority: CURATOR > ELDER > STUDENT
-            int existingPriority = getRolePriority(existingLock.getUserRole());
-            int newPriority = getRolePriority(userRole);
-            
-            // If new user has higher priority, override the lock
-            if (newPriority > existingPriority) {
-                locks.put(lineNumber, new LockInfo(userId, userRole));
-                log.info("Line {} in team {} locked by {} ({}), overriding previous lock by {}", 
-                        lineNumber, teamId, userId, userRole, existingLock.getUserId());
-                return true;
-            }
-            
-            return false; // Line is locked by someone with same or higher priority
+    public CompletableFuture<TeamDocument> loadDocument(Integer teamId) {
+        TeamDocument document = teamDocuments.get(teamId);
+        if (document != null) {
+            return CompletableFuture.completedFuture(document);
         }
-        
-        locks.put(lineNumber, new LockInfo(userId, userRole));
-        log.info("Line {} in team {} locked by {} ({})", lineNumber, teamId, userId, userRole);
-        return true;
+        CompletableFuture<TeamDocument> load = restoring.computeIfAbsent(teamId, id -> CompletableFuture.supplyAsync(() -> {
+            TeamDocument restored = editorPersistenceService.restore(id);
+            restored.trackHistory(historyMaxBytes, historyCheckpointInterval);
+            TeamDocument existing = teamDocuments.putIfAbsent(id, restored);
+            return existing != null ? existing : restored;
+        }, restoreExecutor));
+        // Removed outside of computeIfAbsent, the load may already be done; a failed load is retried by the next caller
+        load.whenComplete((loaded, e) -> restoring.remove(teamId, load));
+        return load;
     }
 
     /**
-     * Unlock a line
+     * Apply a code change to the user's buffer without rebuilding the whole document.
+     * On success the message is stamped with the new team revision.
+     * @return false if the change could not be applied (e.g. invalid line number)
      */
-    public void unlockLine(Integer teamId, Integer lineNumber, String userId) {
-        Map<Integer, LockInfo> locks = teamLocks.get(teamId);
-        if (locks != null) {
-            LockInfo lock = locks.get(lineNumber);
-            if (lock != null && lock.getUserId().equals(userId)) {
-                locks.remove(lineNumber);
-                log.info("Line {} in team {} unlocked by {}", lineNumber, teamId, userId);
+    public boolean applyChange(Integer teamId, String userId, CodeChangeMessage change) {
+        while (true) {
+            TeamDocument document = getDocument(teamId);
+            synchronized (document) {
+                // Evicted after we looked it up: retry on the restored document
+                if (!document.isClosed()) {
+                    return document.apply(userId, change);
+                }
             }
         }
     }
 
     /**
-     * Unlock all lines locked by a user (when they disconnect)
+     * Store code for a specific user in a team
      */
-    public void unlockAllUserLines(Integer teamId, String userId) {
-        Map<Integer, LockInfo> locks = teamLocks.get(teamId);
-        if (locks != null) {
-            locks.entrySet().removeIf(entry -> entry.getValue().getUserId().equals(userId));
-            log.info("All lines in team {} unlocked by user {}", teamId, userId);
+    public void updateUserCode(Integer teamId, String userId, String code) {
+        while (true) {
+            TeamDocument document = getDocument(teamId);
+            synchronized (document) {
+                if (!document.isClosed()) {
+                    document.replace(userId, code);
+                    return;
+                }
+            }
         }
     }
 
     /**
-     * Check if a line is locked by someone else
+     * Get code for a specific user in a team
      */
-    public boolean isLineLockedByOther(Integer teamId, Integer lineNumber, String userId) {
-        Map<Integer, LockInfo> locks = teamLocks.get(teamId);
-        if (locks != null) {
-            LockInfo lock = locks.get(lineNumber);
-            return lock != null && !lock.getUserId().equals(userId);
+    public String getUserCode(Integer teamId, String userId) {
+        TeamDocument document = teamDocuments.get(teamId);
+        if (document != null) {
+            return document.getText(userId);
         }
-        return false;
+        return "";
     }
 
     /**
-     * Check if a user can override a lock (based on priority)
-     * @return true if user can override, false otherwise
+     * Get all user codes for a team
      */
-    public boolean canOverrideLock(Integer teamId, Integer lineNumber, String userId, String userRole) {
-        Map<Integer, LockInfo> locks = teamLocks.get(teamId);
-        if (locks != null) {
-            LockInfo lock = locks.get(lineNumber);
-            if (lock != null && !lock.getUserId().equals(userId)) {
-                int existingPriority = getRolePriority(lock.getUserRole());
-                int newPriority = getRolePriority(userRole);
-                return newPriority > existingPriority;
-            }
-        }
-        return false;
+    public Map<String, String> getAllUserCodes(Integer teamId) {
+        TeamDocument document = teamDocuments.get(teamId);
+        return document != null ? document.getTexts() : Collections.emptyMap();
     }
 
     /**
-     * Get lock information for a line
+     * Snapshot of all code areas of a team with the revision it corresponds to.
+     * Used to bring late joiners up to date instead of asking every peer for its code.
      */
-    public LockInfo getLineLock(Integer teamId, Integer lineNumber) {
-        Map<Integer, LockInfo> locks = teamLocks.get(teamId);
-        if (locks != null) {
-            return locks.get(lineNumber);
-        }
-        return null;
+    public CodeSnapshotMessage getSnapshot(Integer teamId) {
+        return getDocument(teamId).snapshot();
     }
 
     /**
-     * Store code for a specific user in a team
+     * Changes made after {@code revision} of {@code epoch}, so a reconnecting client can catch up without a snapshot
+     * @return null if the client is too far behind or its document epoch is gone and it needs {@link #getSnapshot(Integer)}
      */
-    public void updateUserCode(Integer teamId, String userId, String code) {
-        Map<String, String> userCodes = teamUserCode.computeIfAbsent(teamId, k -> new ConcurrentHashMap<>());
-        userCodes.put(userId, code);
+    public List<CodeChangeMessage> getChangesSince(Integer teamId, long epoch, long revision) {
+        return getDocument(teamId).changesSince(epoch, revision);
     }
 
     /**
-     * Get code for a specific user in a team
+     * Code of all areas as it was at {@code revision}, for scrubbing through the session timeline.
+     * Only teams currently held in memory have a history.
      */
-    public String getUserCode(Integer teamId, String userId) {
-        Map<String, String> userCodes = teamUserCode.get(teamId);
-        if (userCodes != null) {
-            return userCodes.getOrDefault(userId, "");
-        }
-        return "";
+    public Optional<CodeSnapshotMessage> getSnapshotAt(Integer teamId, long revision) {
+        TeamDocument document = teamDocuments.get(teamId);
+        return document != null ? Optional.ofNullable(document.snapshotAt(revision)) : Optional.empty();
     }
 
-    /**
-     * Get all user codes for a team
-     */
-    public Map<String, String> getAllUserCodes(Integer teamId) {
-        return teamUserCode.getOrDefault(teamId, Collections.emptyMap());
+    public Optional<EditTimelineDTO> getTimeline(Integer teamId) {
+        TeamDocument document = teamDocuments.get(teamId);
+        return document != null ? Optional.of(document.timeline()) : Optional.empty();
     }
 
     /**
@@ -184,8 +188,8 @@ public class CodeEditorService {
      */
     @Deprecated
     public String getTeamCode(Integer teamId) {
-        Map<String, String> userCodes = teamUserCode.get(teamId);
-        if (userCodes != null && !userCodes.isEmpty()) {
+        Map<String, String> userCodes = getAllUserCodes(teamId);
+        if (!userCodes.isEmpty()) {
             // Return first available code
             return userCodes.values().iterator().next();
         }
@@ -200,19 +204,111 @@ public class CodeEditorService {
     }
 
     /**
-     * Remove user connection from team
+     * Remove user connection from team: release the user's lines and cursor.
+     * The team's code is kept until {@link #evictTeam(Integer)}, so a reconnecting team gets its work back.
      */
     public void removeUserConnection(Integer teamId, String userId) {
-        Set<String> users = teamConnections.get(teamId);
-        if (users != null) {
+        teamConnections.computeIfPresent(teamId, (id, users) -> {
             users.remove(userId);
-            if (users.isEmpty()) {
-                teamConnections.remove(teamId);
-                teamUserCode.remove(teamId);
-                teamLocks.remove(teamId);
+            return users.isEmpty() ? null : users;
+        });
+        lineLockService.unlockAllUserLines(teamId, userId);
+        cursorBroadcastService.removeUser(teamId, userId);
+    }
+
+    /**
+     * Clean up after a closed editor session: its user leaves the teams they have no other session in
+     */
+    public void removeSession(EditorSessionRegistry.EditorSession session) {
+        String userId = session.userId();
+        for (Integer teamId : session.teamIds()) {
+            // Keep presence and locks while the user still has another tab open in the team
+            if (!editorSessionRegistry.isConnected(teamId, userId)) {
+                removeUserConnection(teamId, userId);
+            }
+        }
+    }
+
+    /**
+     * Teams without connected users whose code has not changed since {@code idleSince}
+     */
+    public List<Integer> getIdleTeams(long idleSince) {
+        List<Integer> idleTeams = new ArrayList<>();
+        teamDocuments.forEach((teamId, document) -> {
+            if (!teamConnections.containsKey(teamId) && document.getLastActivity() < idleSince) {
+                idleTeams.add(teamId);
+            }
+        });
+        return idleTeams;
+    }
+
+    /**
+     * Drop all in-memory editor state of a team
+     * @return false if somebody has joined the team meanwhile or its code is not saved yet
+     */
+    public boolean evictTeam(Integer teamId) {
+        if (teamConnections.containsKey(teamId)) {
+            return false;
+        }
+        boolean[] kept = new boolean[1];
+        // Check and removal are one step: an edit either lands before the document is closed and keeps it,
+        // or sees it closed and goes to a restored copy
+        teamDocuments.computeIfPresent(teamId, (id, document) -> {
+            if (teamConnections.containsKey(id) || !document.closeIfSaved()) {
+                kept[0] = true;
+                return document;
             }
+            return null;
+        });
+        if (kept[0]) {
+            return false;
+        }
+        removeTeamState(teamId);
+        return true;
+    }
+
+    /**
+     * Save the team's document and drop all in-memory editor state of the team,
+     * when this node gives up or loses the team's editor in a cluster.
+     * Connected users stay recorded; the document is loaded again from team_code if the node takes the team back.
+     * @param force drop the document even if it could not be saved, another node has taken the team over
+     * @return false if the document could not be saved and is kept
+     */
+    public boolean handOver(Integer teamId, boolean force) {
+        TeamDocument document = teamDocuments.get(teamId);
+        if (document != null) {
+            editorPersistenceService.save(List.of(document));
+        }
+        boolean[] kept = new boolean[1];
+        teamDocuments.computeIfPresent(teamId, (id, current) -> {
+            if (!current.closeIfSaved()) {
+                if (!force) {
+                    kept[0] = true;
+                    return current;
+                }
+                log.warn("Dropped unsaved code of team {}, its editor is held by another node", id);
+                current.close();
+            }
+            return null;
+        });
+        if (kept[0]) {
+            return false;
+        }
+        removeTeamState(teamId);
+        return true;
+    }
+
+    /**
+     * Drop a document left in memory without saving it, when this node takes a team's editor over:
+     * another node may have changed the team's code since, so it is loaded again from team_code
+     */
+    public void discardDocument(Integer teamId) {
+        TeamDocument document = teamDocuments.remove(teamId);
+        if (document != null) {
+            document.close();
+            removeTeamState(teamId);
+            log.info("Discarded stale editor document of team {}", teamId);
         }
-        unlockAllUserLines(teamId, userId);
     }
 
     /**
@@ -228,14 +324,6 @@ public class CodeEditorService {
      */
     public String getCodeExcludingLockedLines(Integer teamId, String requestingUserId) {
         String fullCode = getTeamCode(teamId);
-        if (fullCode == null || fullCode.isEmpty()) {
-            return fullCode;
-        }
-        
-        Map<Integer, LockInfo> locks = teamLocks.get(teamId);
-        if (locks == null || locks.isEmpty()) {
-            return fullCode;
-        }
         
         // For now, return full code - client will handle preserving locked lines
         // This could be optimized to exclude locked lines on server side if needed
@@ -243,17 +331,24 @@ public class CodeEditorService {
     }
 
     /**
-     * Get role priority (higher number = higher priority)
-     * CURATOR = 3, ELDER = 2, STUDENT = 1
+     * Live documents of all teams, used by the write-behind saver
      */
-    private int getRolePriority(String role) {
-        if ("CURATOR".equalsIgnoreCase(role)) {
-            return 3;
-        } else if ("ELDER".equalsIgnoreCase(role)) {
-            return 2;
-        } else {
-            return 1; // STUDENT
+    public Collection<TeamDocument> getDocuments() {
+        return teamDocuments.values();
+    }
+
+    private void removeTeamState(Integer teamId) {
+        lineLockService.removeTeam(teamId);
+        cursorBroadcastService.removeTeam(teamId);
+        editorBinaryPublisher.removeTeam(teamId);
+    }
+
+    private TeamDocument getDocument(Integer teamId) {
+        TeamDocument document = teamDocuments.get(teamId);
+        if (document != null) {
+            return document;
         }
+        // Not in memory yet: wait for the shared background load instead of reading the database on this thread
+        return loadDocument(teamId).join();
     }
 }
-
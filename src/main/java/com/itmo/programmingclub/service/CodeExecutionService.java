@@ -30,6 +30,7 @@ public class CodeExecutionService {
 
     private final SubmissionRepository submissionRepository;
     private final EventService eventService;
+    private final ClassLeaderboardService classLeaderboardService;
     private final Piston piston;
 
     @Async
@@ -107,6 +108,8 @@ public class CodeExecutionService {
         event.setClassEntity(submission.getTeam().getClassEntity());
 
         eventService.createEvent(event);
+        // Re-rank the team once the verdict is committed
+        classLeaderboardService.onVerdict(submission);
     }
 
     private ExecutionResult runCode(Runtime runtime, String code, String language, String stdin) {
@@ -0,0 +1,75 @@
+package com.itmo.programmingclub.service;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.itmo.programmingclub.model.dto.websocket.CursorBatchMessage;
+import com.itmo.programmingclub.model.dto.websocket.CursorPositionMessage;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Coalesces cursor updates: only the latest cursor per user is kept,
+ * and teams with changes get one batched snapshot per tick on /topic/cursor/{teamId}.
+ * Outbound cursor traffic is bounded by (teams x tick rate) regardless of typing speed.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CursorBroadcastService {
+    private final SimpMessagingTemplate messagingTemplate;
+    private final EditorBinaryPublisher editorBinaryPublisher;
+
+    // Map: teamId -> latest cursors of the team
+    private final Map<Integer, TeamCursors> teamCursors = new ConcurrentHashMap<>();
+
+    private static class TeamCursors {
+        // Map: userId -> latest cursor
+        private final Map<String, CursorPositionMessage> cursors = new ConcurrentHashMap<>();
+        private final AtomicBoolean dirty = new AtomicBoolean();
+    }
+
+    /**
+     * Remember the latest cursor of a user, it will be sent with the next flush
+     */
+    public void submit(Integer teamId, CursorPositionMessage message) {
+        TeamCursors team = teamCursors.computeIfAbsent(teamId, k -> new TeamCursors());
+        team.cursors.put(message.getUserId(), message);
+        team.dirty.set(true);
+    }
+
+    /**
+     * Forget the cursor of a user who left the team
+     */
+    public void removeUser(Integer teamId, String userId) {
+        TeamCursors team = teamCursors.get(teamId);
+        if (team != null && team.cursors.remove(userId) != null) {
+            team.dirty.set(true);
+        }
+    }
+
+    /**
+     * Drop all cursors of a team
+     */
+    public void removeTeam(Integer teamId) {
+        teamCursors.remove(teamId);
+    }
+
+    @Scheduled(fixedRateString = "${app.editor.cursor-flush-rate:50}", scheduler = "editorTickScheduler")
+    public void flush() {
+        teamCursors.forEach((teamId, team) -> {
+            if (team.dirty.compareAndSet(true, false)) {
+                CursorBatchMessage batch = new CursorBatchMessage(teamId, new ArrayList<>(team.cursors.values()));
+                messagingTemplate.convertAndSend("/topic/cursor/" + teamId, batch);
+                editorBinaryPublisher.publishCursors(batch);
+            }
+        });
+    }
+}
@@ -0,0 +1,114 @@
+package com.itmo.programmingclub.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MimeTypeUtils;
+
+import com.itmo.programmingclub.model.dto.websocket.CodeChangeMessage;
+import com.itmo.programmingclub.model.dto.websocket.CursorBatchMessage;
+import com.itmo.programmingclub.model.dto.websocket.CursorPositionMessage;
+import com.itmo.programmingclub.model.dto.websocket.LineLockBatchMessage;
+import com.itmo.programmingclub.model.dto.websocket.LineLockMessage;
+import com.itmo.programmingclub.model.dto.websocket.UserDictionaryMessage;
+import com.itmo.programmingclub.service.editor.EditorBinaryCodec;
+import com.itmo.programmingclub.service.editor.UserDictionary;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Publishes editor frames in {@link EditorBinaryCodec} format next to the JSON topics:
+ * /topic/bin/code/change/{teamId}, /topic/bin/cursor/{teamId}, /topic/bin/lock/{teamId}.
+ * A client opts in by subscribing to the binary topics and to /topic/bin/users/{teamId}, and asks once
+ * for the full user dictionary via /app/bin/users/{teamId}.
+ * Frames are sent as application/octet-stream, which STOMP delivers as binary WebSocket frames;
+ * SockJS transports can't carry them, so binary topics are for native WebSocket clients only.
+ */
+@Service
+@RequiredArgsConstructor
+public class EditorBinaryPublisher {
+    private final SimpMessagingTemplate messagingTemplate;
+
+    @Value("${app.editor.binary-frames.enabled:false}")
+    private boolean enabled;
+
+    // Map: teamId -> user dictionary of the team
+    private final Map<Integer, UserDictionary> dictionaries = new ConcurrentHashMap<>();
+
+    public void publishChange(Integer teamId, CodeChangeMessage change) {
+        if (!enabled) {
+            return;
+        }
+        UserDictionary dictionary = intern(teamId,
+                List.of(new UserDictionaryMessage.Entry(null, change.getUserId(), change.getUserRole())));
+        send("/topic/bin/code/change/" + teamId, EditorBinaryCodec.encodeChange(change, dictionary::indexOf));
+    }
+
+    public void publishCursors(CursorBatchMessage batch) {
+        if (!enabled) {
+            return;
+        }
+        List<UserDictionaryMessage.Entry> users = new ArrayList<>(batch.getCursors().size());
+        for (CursorPositionMessage cursor : batch.getCursors()) {
+            users.add(new UserDictionaryMessage.Entry(null, cursor.getUserId(), cursor.getUserRole()));
+        }
+        UserDictionary dictionary = intern(batch.getTeamId(), users);
+        send("/topic/bin/cursor/" + batch.getTeamId(), EditorBinaryCodec.encodeCursors(batch, dictionary::indexOf));
+    }
+
+    public void publishLocks(LineLockBatchMessage batch) {
+        if (!enabled) {
+            return;
+        }
+        List<UserDictionaryMessage.Entry> users = new ArrayList<>(batch.getChanges().size());
+        for (LineLockMessage change : batch.getChanges()) {
+            users.add(new UserDictionaryMessage.Entry(null, change.getUserId(), change.getUserRole()));
+        }
+        UserDictionary dictionary = intern(batch.getTeamId(), users);
+        send("/topic/bin/lock/" + batch.getTeamId(), EditorBinaryCodec.encodeLocks(batch, dictionary::indexOf));
+    }
+
+    /**
+     * Full dictionary of a team, sent to a client once when it switches to binary frames
+     */
+    public UserDictionaryMessage getDictionary(Integer teamId) {
+        UserDictionary dictionary = dictionaries.get(teamId);
+        return new UserDictionaryMessage(teamId, dictionary != null ? dictionary.getEntries() : List.of());
+    }
+
+    public void removeTeam(Integer teamId) {
+        dictionaries.remove(teamId);
+    }
+
+    /**
+     * Make sure all users of a frame have an index; new and changed entries are announced before the frame
+     */
+    private UserDictionary intern(Integer teamId, List<UserDictionaryMessage.Entry> users) {
+        UserDictionary dictionary = dictionaries.computeIfAbsent(teamId, id -> new UserDictionary());
+        List<UserDictionaryMessage.Entry> announced = new ArrayList<>();
+        for (UserDictionaryMessage.Entry user : users) {
+            UserDictionaryMessage.Entry changed = dictionary.intern(user.getUserId(), user.getUserRole());
+            if (changed != null) {
+                announced.add(changed);
+            }
+        }
+        if (!announced.isEmpty()) {
+            messagingTemplate.convertAndSend("/topic/bin/users/" + teamId, new UserDictionaryMessage(teamId, announced));
+        }
+        return dictionary;
+    }
+
+    private void send(String destination, byte[] frame) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create();
+        accessor.setContentType(MimeTypeUtils.APPLICATION_OCTET_STREAM);
+        accessor.setLeaveMutable(true);
+        messagingTemplate.send(destination, MessageBuilder.createMessage(frame, accessor.getMessageHeaders()));
+    }
+}
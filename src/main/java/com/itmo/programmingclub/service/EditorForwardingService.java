@@ -0,0 +1,138 @@
+package com.itmo.programmingclub.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MimeType;
+
+import com.itmo.programmingclub.security.CustomUserDetails;
+import com.itmo.programmingclub.service.cluster.ClusterSignal;
+import com.itmo.programmingclub.service.editor.EditorDestinations;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Sends editor messages of sessions connected to this node to the node holding the team's editor.
+ * The holder handles a forwarded message as if it came from one of its own sessions: it runs through its
+ * inbound channel with the user of the origin session, and the broadcasts and replies it causes come back
+ * over the relayed editor topics and user queues. Forwarded sessions are recorded in the holder's
+ * {@link EditorSessionRegistry} and leave the team when the origin session disconnects.
+ */
+@Service
+@ConditionalOnProperty(name = "app.cluster.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class EditorForwardingService {
+    private static final String FRAME_SIGNAL = "editor-frame";
+    private static final String LEAVE_SIGNAL = "editor-leave";
+
+    private final ClusterFanoutService clusterFanoutService;
+    private final EditorTeamOwnershipService editorTeamOwnershipService;
+    private final EditorSessionRegistry editorSessionRegistry;
+    private final CodeEditorService codeEditorService;
+    private final UserDetailsService userDetailsService;
+    private final JsonMapper jsonMapper;
+    // Resolved by name among the messaging channels
+    private final ObjectProvider<MessageChannel> clientInboundChannel;
+
+    // Map: origin node + ":" + origin session id -> session forwarded from that node
+    private final Map<String, ForwardedSession> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * User and attributes of a session on another node; attributes keep its cached editor roles like a local session
+     */
+    private record ForwardedSession(Authentication user, Map<String, Object> attributes) {
+    }
+
+    /**
+     * Editor message of a session on another node for the node holding the team
+     */
+    public record Frame(String holderNodeId, String sessionId, String userId,
+                        String destination, String contentType, byte[] payload) {
+    }
+
+    /**
+     * Send a client message to the node holding the team's editor
+     */
+    public void forward(String holderNodeId, StompHeaderAccessor accessor, byte[] payload) {
+        MimeType contentType = accessor.getContentType();
+        Frame frame = new Frame(holderNodeId, accessor.getSessionId(), accessor.getUser().getName(),
+                accessor.getDestination(), contentType != null ? contentType.toString() : null, payload);
+        clusterFanoutService.signal(FRAME_SIGNAL, jsonMapper.writeValueAsString(frame));
+    }
+
+    /**
+     * Tell the holders of the session's teams that a session of this node is closed
+     */
+    public void leave(String sessionId) {
+        clusterFanoutService.signal(LEAVE_SIGNAL, sessionId);
+    }
+
+    @EventListener
+    public void onClusterSignal(ClusterSignal signal) {
+        if (FRAME_SIGNAL.equals(signal.name())) {
+            Frame frame = jsonMapper.readValue(signal.payload(), Frame.class);
+            if (clusterFanoutService.getNodeId().equals(frame.holderNodeId())) {
+                receive(signal.nodeId(), frame);
+            }
+        } else if (LEAVE_SIGNAL.equals(signal.name())) {
+            String key = signal.nodeId() + ':' + signal.payload();
+            ForwardedSession forwarded = sessions.remove(key);
+            EditorSessionRegistry.EditorSession session = editorSessionRegistry.remove(key);
+            if (session != null) {
+                codeEditorService.removeSession(session);
+            }
+            if (forwarded != null) {
+                // Lets the inbound interceptors forget the session, e.g. its rate limit buckets
+                send(key, forwarded, StompCommand.DISCONNECT, null, null, new byte[0]);
+            }
+        }
+    }
+
+    private void receive(String originNodeId, Frame frame) {
+        Integer teamId = EditorDestinations.teamIdOf(frame.destination());
+        // The sender may have looked the holder up before this node gave the team up
+        if (teamId == null || !editorTeamOwnershipService.claim(teamId)) {
+            log.warn("Dropped {} of user {} forwarded from node {}, the team's editor is not held here",
+                    frame.destination(), frame.userId(), originNodeId);
+            return;
+        }
+
+        String key = originNodeId + ':' + frame.sessionId();
+        ForwardedSession session = sessions.computeIfAbsent(key, id -> {
+            CustomUserDetails userDetails = (CustomUserDetails) userDetailsService.loadUserByUsername(frame.userId());
+            return new ForwardedSession(new UsernamePasswordAuthenticationToken(
+                    userDetails, null, userDetails.getAuthorities()), new ConcurrentHashMap<>());
+        });
+        editorSessionRegistry.register(key, frame.userId(), teamId);
+
+        send(key, session, StompCommand.SEND, frame.destination(), frame.contentType(), frame.payload());
+    }
+
+    private void send(String sessionId, ForwardedSession session, StompCommand command,
+                      String destination, String contentType, byte[] payload) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+        accessor.setSessionId(sessionId);
+        accessor.setDestination(destination);
+        if (contentType != null) {
+            accessor.setContentType(MimeType.valueOf(contentType));
+        }
+        accessor.setUser(session.user());
+        accessor.setSessionAttributes(session.attributes());
+        accessor.setLeaveMutable(true);
+        clientInboundChannel.getObject().send(MessageBuilder.createMessage(payload, accessor.getMessageHeaders()));
+    }
+}
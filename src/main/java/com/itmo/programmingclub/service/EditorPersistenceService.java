@@ -0,0 +1,79 @@
+package com.itmo.programmingclub.service;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import com.itmo.programmingclub.model.entity.TeamCode;
+import com.itmo.programmingclub.repository.TeamCodeRepository;
+import com.itmo.programmingclub.service.editor.TeamDocument;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Write-behind storage of editor documents in the team_code table.
+ * Edits only touch memory; changed areas are written periodically in one batch,
+ * so a restart during class loses at most one save interval of typing.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class EditorPersistenceService {
+    private final TeamCodeRepository teamCodeRepository;
+    private final ClassService classService;
+
+    /**
+     * Load the saved document of a team whose class is in session, or start an empty one
+     */
+    public TeamDocument restore(Integer teamId) {
+        if (!classService.isTeamClassInSession(teamId)) {
+            return new TeamDocument(teamId);
+        }
+
+        List<TeamDocument.Area> areas = teamCodeRepository.findByIdTeamId(teamId).stream()
+                .map(row -> new TeamDocument.Area(row.getId().getUsername(), row.getUserRole(),
+                        row.getCode(), row.getRevision()))
+                .toList();
+        if (!areas.isEmpty()) {
+            log.info("Restored {} code areas of team {}", areas.size(), teamId);
+        }
+        return TeamDocument.restore(teamId, areas);
+    }
+
+    /**
+     * Write changed areas of the documents in one batch.
+     * Saves are serialized, so an older copy of an area never overwrites a newer one.
+     * On failure documents stay dirty and are retried on the next call.
+     */
+    public synchronized void save(Collection<TeamDocument> documents) {
+        OffsetDateTime now = OffsetDateTime.now();
+        List<TeamCode> rows = new ArrayList<>();
+        Map<TeamDocument, Long> savedRevisions = new IdentityHashMap<>();
+        for (TeamDocument document : documents) {
+            for (TeamDocument.Area area : document.getUnsavedAreas()) {
+                rows.add(new TeamCode(new TeamCode.TeamCodeId(document.getTeamId(), area.userId()),
+                        area.userRole(), area.code(), area.revision(), now));
+                savedRevisions.merge(document, area.revision(), Math::max);
+            }
+        }
+        if (rows.isEmpty()) {
+            return;
+        }
+
+        try {
+            teamCodeRepository.upsertAll(rows);
+        } catch (DataAccessException e) {
+            log.error("Failed to save {} code areas, will retry", rows.size(), e);
+            return;
+        }
+        savedRevisions.forEach(TeamDocument::markSaved);
+        log.debug("Saved {} code areas of {} teams", rows.size(), savedRevisions.size());
+    }
+}
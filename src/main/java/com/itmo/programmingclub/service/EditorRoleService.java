@@ -0,0 +1,103 @@
+package com.itmo.programmingclub.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.itmo.programmingclub.event.ElderChangedEvent;
+import com.itmo.programmingclub.repository.TeamRepository;
+import com.itmo.programmingclub.security.CustomUserDetails;
+import com.itmo.programmingclub.service.cluster.ClusterSignal;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Resolves the editor role (STUDENT, CURATOR, ELDER) of a user in a team.
+ * The role is resolved once per (STOMP session, team) and cached in the session attributes.
+ * Cached roles carry the team's elder epoch; the epoch is bumped when the elder changes,
+ * which invalidates every cached role of that team without tracking sessions.
+ * In a cluster the change is signalled to the other nodes, which bump their epoch of the team as well.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class EditorRoleService {
+    private static final String ROLE_ATTRIBUTE_PREFIX = "editor.role.";
+    private static final String ELDER_CHANGED_SIGNAL = "elder-changed";
+
+    private final TeamRepository teamRepository;
+    private final ObjectProvider<ClusterFanoutService> clusterFanoutService;
+
+    // Map: teamId -> number of elder changes since startup
+    private final Map<Integer, Integer> elderEpochs = new ConcurrentHashMap<>();
+
+    private record CachedRole(String role, int epoch) {
+    }
+
+    /**
+     * Get role from session attributes, resolving and caching it if missing or outdated
+     */
+    public String getRole(Map<String, Object> sessionAttributes, CustomUserDetails userDetails, Integer teamId) {
+        if (sessionAttributes == null) {
+            return resolveRole(userDetails, teamId);
+        }
+
+        String key = ROLE_ATTRIBUTE_PREFIX + teamId;
+        int epoch = elderEpochs.getOrDefault(teamId, 0);
+        if (sessionAttributes.get(key) instanceof CachedRole cached && cached.epoch() == epoch) {
+            return cached.role();
+        }
+
+        String role = resolveRole(userDetails, teamId);
+        sessionAttributes.put(key, new CachedRole(role, epoch));
+        return role;
+    }
+
+    /**
+     * Determine user role (STUDENT, CURATOR, ELDER) with a database lookup
+     */
+    public String resolveRole(CustomUserDetails userDetails, Integer teamId) {
+        // Check if user is CURATOR
+        boolean isCurator = userDetails.getAuthorities().stream()
+                .anyMatch(a -> a.getAuthority().equals("ROLE_CURATOR"));
+        if (isCurator) {
+            return "CURATOR";
+        }
+
+        // Check if user is ELDER (oldest) of the team
+        boolean isElder = teamRepository.findElderIdById(teamId)
+                .map(elderId -> elderId.equals(userDetails.getUserId()))
+                .orElse(false);
+
+        return isElder ? "ELDER" : "STUDENT";
+    }
+
+    /**
+     * Invalidate cached roles of the team once the new elder is committed
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onElderChanged(ElderChangedEvent event) {
+        invalidate(event.teamId());
+        clusterFanoutService.ifAvailable(relay -> relay.signal(ELDER_CHANGED_SIGNAL, event.teamId().toString()));
+    }
+
+    /**
+     * Invalidate cached roles of a team whose elder was changed on another node
+     */
+    @EventListener
+    public void onClusterSignal(ClusterSignal signal) {
+        if (ELDER_CHANGED_SIGNAL.equals(signal.name())) {
+            invalidate(Integer.valueOf(signal.payload()));
+        }
+    }
+
+    private void invalidate(Integer teamId) {
+        elderEpochs.merge(teamId, 1, Integer::sum);
+        log.info("Elder of team {} changed, cached editor roles invalidated", teamId);
+    }
+}
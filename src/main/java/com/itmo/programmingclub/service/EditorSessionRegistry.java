@@ -0,0 +1,51 @@
+package com.itmo.programmingclub.service;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Remembers which editor teams every STOMP session joined,
+ * so a disconnect can be cleaned up without scanning all teams.
+ */
+@Component
+@Slf4j
+public class EditorSessionRegistry {
+    // Map: sessionId -> session info
+    private final Map<String, EditorSession> sessions = new ConcurrentHashMap<>();
+
+    public record EditorSession(String userId, Set<Integer> teamIds) {
+    }
+
+    /**
+     * Record that a session works in a team's editor
+     */
+    public void register(String sessionId, String userId, Integer teamId) {
+        sessions.computeIfAbsent(sessionId, id -> new EditorSession(userId, ConcurrentHashMap.newKeySet()))
+                .teamIds().add(teamId);
+    }
+
+    /**
+     * Forget a session
+     * @return the removed session or null if it never joined an editor
+     */
+    public EditorSession remove(String sessionId) {
+        return sessions.remove(sessionId);
+    }
+
+    /**
+     * Check if the user still has another session in the team (e.g. a second tab)
+     */
+    public boolean isConnected(Integer teamId, String userId) {
+        for (EditorSession session : sessions.values()) {
+            if (session.userId().equals(userId) && session.teamIds().contains(teamId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
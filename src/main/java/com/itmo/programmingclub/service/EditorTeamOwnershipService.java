@@ -0,0 +1,173 @@
+package com.itmo.programmingclub.service;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.itmo.programmingclub.service.cluster.ClusterSignal;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps the editor of a team on one node of the cluster, the holder of the team's lease.
+ * Documents, revisions, locks and cursors of a team live in the memory of the holder; members may be connected
+ * to any node: {@link EditorForwardingService} sends their editor messages to the holder, and the holder's
+ * editor broadcasts and replies reach them through the relayed editor topics and user queues.
+ * The first node that gets a subscription or a message of a free team takes its lease.
+ * Giving a lease up or losing it saves and drops the team's document, so a node always edits a team from team_code
+ * as the previous holder left it.
+ */
+@Service
+@ConditionalOnProperty(name = "app.cluster.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class EditorTeamOwnershipService {
+    private static final String HOLDER_CHANGED_SIGNAL = "editor-holder";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ClusterFanoutService clusterFanoutService;
+    private final CodeEditorService codeEditorService;
+
+    @Value("${app.cluster.editor-lease-seconds:30}")
+    private int leaseSeconds;
+
+    // Teams whose lease this node holds
+    private final Set<Integer> ownedTeams = ConcurrentHashMap.newKeySet();
+
+    // Map: teamId -> node holding the team's lease, looked up again after a lease period
+    private final Map<Integer, RemoteHolder> remoteHolders = new ConcurrentHashMap<>();
+
+    private record RemoteHolder(String nodeId, long checkedAt) {
+    }
+
+    /**
+     * Take or keep the lease of a team, once this node holds it the database is not read.
+     * A document still in memory from an earlier lease is discarded, another node may have edited the team since.
+     * @return false if another node holds the team
+     */
+    public boolean claim(Integer teamId) {
+        return acquire(teamId) == null;
+    }
+
+    /**
+     * Node that handles editor messages of the team, the known holder is reused until its lease could have expired
+     * @return null if this node holds the team, taking the lease when it is free
+     */
+    public String holderOf(Integer teamId) {
+        if (ownedTeams.contains(teamId)) {
+            return null;
+        }
+        RemoteHolder remote = remoteHolders.get(teamId);
+        if (remote != null && remote.checkedAt() > System.currentTimeMillis() - leaseSeconds * 1000L) {
+            return remote.nodeId();
+        }
+        return acquire(teamId);
+    }
+
+    /**
+     * Forget the holder of a team another node has taken or given up
+     */
+    @EventListener
+    public void onClusterSignal(ClusterSignal signal) {
+        if (HOLDER_CHANGED_SIGNAL.equals(signal.name())) {
+            remoteHolders.remove(Integer.valueOf(signal.payload()));
+        }
+    }
+
+    /**
+     * @return null if this node holds the team now, otherwise the node holding it
+     */
+    private String acquire(Integer teamId) {
+        if (ownedTeams.contains(teamId)) {
+            return null;
+        }
+        synchronized (this) {
+            if (ownedTeams.contains(teamId)) {
+                return null;
+            }
+            // Returns the holder: this node if the lease was free or expired, the other node otherwise
+            String holder = jdbcTemplate.queryForObject("""
+                    INSERT INTO editor_team_owner (team_id, node_id, expires_at)
+                    VALUES (?, ?, CURRENT_TIMESTAMP + make_interval(secs => ?))
+                    ON CONFLICT (team_id) DO UPDATE
+                        SET node_id = CASE WHEN editor_team_owner.expires_at < CURRENT_TIMESTAMP
+                                THEN EXCLUDED.node_id ELSE editor_team_owner.node_id END,
+                            expires_at = CASE WHEN editor_team_owner.node_id = EXCLUDED.node_id
+                                    OR editor_team_owner.expires_at < CURRENT_TIMESTAMP
+                                THEN EXCLUDED.expires_at ELSE editor_team_owner.expires_at END
+                    RETURNING node_id
+                    """, String.class, teamId, clusterFanoutService.getNodeId(), leaseSeconds);
+            if (!clusterFanoutService.getNodeId().equals(holder)) {
+                remoteHolders.put(teamId, new RemoteHolder(holder, System.currentTimeMillis()));
+                return holder;
+            }
+            codeEditorService.discardDocument(teamId);
+            remoteHolders.remove(teamId);
+            ownedTeams.add(teamId);
+            clusterFanoutService.signal(HOLDER_CHANGED_SIGNAL, teamId.toString());
+            return null;
+        }
+    }
+
+    /**
+     * Renew leases of teams somebody edits on this node and give up the others.
+     * A lost lease drops the team's document: the node that took the team over edits it from team_code.
+     */
+    @Scheduled(fixedDelayString = "${app.cluster.editor-lease-renew-rate:10000}")
+    public void renew() {
+        for (Integer teamId : ownedTeams) {
+            if (!codeEditorService.getTeamConnections(teamId).isEmpty()) {
+                extend(teamId);
+            } else {
+                release(teamId);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void releaseAll() {
+        for (Integer teamId : ownedTeams) {
+            release(teamId);
+        }
+    }
+
+    /**
+     * Save and drop the team's document, then give the lease up.
+     * The lease is kept while the document can't be saved, so no other node edits the team from older code.
+     */
+    private synchronized void release(Integer teamId) {
+        ownedTeams.remove(teamId);
+        if (!codeEditorService.handOver(teamId, false)) {
+            ownedTeams.add(teamId);
+            log.warn("Editor document of team {} is not saved, keeping its lease", teamId);
+            extend(teamId);
+            return;
+        }
+        jdbcTemplate.update("DELETE FROM editor_team_owner WHERE team_id = ? AND node_id = ?",
+                teamId, clusterFanoutService.getNodeId());
+        clusterFanoutService.signal(HOLDER_CHANGED_SIGNAL, teamId.toString());
+    }
+
+    private void extend(Integer teamId) {
+        int renewed = jdbcTemplate.update("""
+                UPDATE editor_team_owner SET expires_at = CURRENT_TIMESTAMP + make_interval(secs => ?)
+                WHERE team_id = ? AND node_id = ?
+                """, leaseSeconds, teamId, clusterFanoutService.getNodeId());
+        if (renewed == 0) {
+            log.warn("Lost the editor lease of team {}", teamId);
+            synchronized (this) {
+                ownedTeams.remove(teamId);
+                codeEditorService.handOver(teamId, true);
+            }
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.itmo.programmingclub.service;
 
+import com.itmo.programmingclub.event.ElderChangedEvent;
 import com.itmo.programmingclub.exceptions.NotFoundException;
 import com.itmo.programmingclub.model.RoleEnum;
 import com.itmo.programmingclub.model.dto.ElderChangeRequestDTO;
@@ -7,6 +8,7 @@ import com.itmo.programmingclub.model.entity.*;
 import com.itmo.programmingclub.repository.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
@@ -27,6 +29,7 @@ public class ElderChangeRequestService {
     private final UserTeamRepository userTeamRepository;
     private final UserRoleRepository userRoleRepository;
     private final TeamRepository teamRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     private final ZoneId zoneId;
 
@@ -127,6 +130,7 @@ public class ElderChangeRequestService {
             // Назначаем нового старосту
             team.setElder(candidate.getUser());
             teamRepository.save(team);
+            eventPublisher.publishEvent(new ElderChangedEvent(team.getId(), candidate.getUser().getId()));
 
             // Закрываем все заявки этой команды
             List<ElderChangeRequest> allTeamRequests = elderChangeRequestRepository.findByStatus(ElderChangeRequest.RequestStatus.NEW).stream()
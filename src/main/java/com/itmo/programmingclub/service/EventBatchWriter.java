@@ -0,0 +1,86 @@
+package com.itmo.programmingclub.service;
+
+import java.util.ArrayDeque;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.itmo.programmingclub.model.dto.EventDTO;
+import com.itmo.programmingclub.repository.EventRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Write-behind of low-priority events: they get an id up front from a block of reserved sequence values
+ * and are written to app_event_outbox in the caller's transaction, a narrow table without foreign keys or indexes
+ * to maintain. {@link com.itmo.programmingclub.scheduler.EventBatchScheduler} moves them to app_event in batches,
+ * so a committed event survives a restart and a rolled back one is never written.
+ * Nodes of a cluster skip the rows another node is moving.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class EventBatchWriter {
+    private final EventRepository eventRepository;
+
+    @Value("${app.events.batch.size:500}")
+    private int batchSize;
+
+    @Value("${app.events.batch.id-block-size:50}")
+    private int idBlockSize;
+
+    // Ids reserved from the sequence and not given out yet, guarded by this
+    private final ArrayDeque<Integer> reservedIds = new ArrayDeque<>();
+
+    /**
+     * Id for an event that will be written later; only every {@code id-block-size}-th call queries the database
+     */
+    public synchronized Integer nextId() {
+        if (reservedIds.isEmpty()) {
+            reservedIds.addAll(eventRepository.reserveIds(idBlockSize));
+        }
+        return reservedIds.poll();
+    }
+
+    /**
+     * Write an event to the outbox; must run in the transaction that records it
+     */
+    public void record(EventDTO event) {
+        eventRepository.insertOutbox(event);
+    }
+
+    /**
+     * Move everything in the outbox to app_event, {@code size} events per batch
+     */
+    public void flush() {
+        int moved;
+        do {
+            moved = relay();
+        } while (moved == batchSize);
+    }
+
+    private int relay() {
+        try {
+            return eventRepository.relayOutbox(batchSize);
+        } catch (RuntimeException e) {
+            log.warn("Moving a batch of events failed, moving them one by one: {}", e.getMessage());
+        }
+        List<Integer> ids = eventRepository.findOutboxIds(batchSize);
+        int moved = 0;
+        for (Integer id : ids) {
+            try {
+                if (eventRepository.relayOutboxRow(id)) {
+                    moved++;
+                }
+            } catch (RuntimeException e) {
+                // The referenced team or class may have been deleted meanwhile; retrying would not help
+                log.error("Dropping event {}: {}", id, e.getMessage());
+                eventRepository.deleteOutboxRow(id);
+            }
+        }
+        // A partial batch ends this flush, the rest waits for the next one
+        return moved == ids.size() ? moved : 0;
+    }
+}
@@ -0,0 +1,173 @@
+package com.itmo.programmingclub.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.stereotype.Service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Maintenance of the monthly app_event partitions (see 0016-partition-app-event-by-month.sql):
+ * creates the partitions of the coming months and moves months older than the retention period
+ * out of the table into gzipped CSV files, so event queries only ever touch recent partitions.
+ * Every step can be repeated, a run interrupted between detach and drop is finished by the next one.
+ * Partitions hold UTC months, whatever the zone of the application or of the database session.
+ * Only one node of a cluster maintains the partitions at a time, guarded by a Postgres advisory lock;
+ * any node may archive, so {@code app.events.partitions.archive-dir} must be shared by all of them.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class EventPartitionService {
+    private static final Pattern PARTITION_NAME = Pattern.compile("app_event_y(\\d{4})m(\\d{2})");
+
+    private static final String PARTITIONS_SQL = """
+            SELECT c.relname, c.relispartition
+            FROM pg_class c
+            WHERE c.relnamespace = current_schema()::regnamespace
+              AND c.relkind = 'r'
+              AND c.relname LIKE 'app\\_event\\_y%'
+            ORDER BY c.relname
+            """;
+
+    // Key of the session advisory lock held while maintaining, hashed by Postgres
+    private static final String LOCK_NAME = "app_event_partitions";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.events.partitions.months-ahead:2}")
+    private int monthsAhead;
+
+    @Value("${app.events.partitions.retention-months:12}")
+    private int retentionMonths;
+
+    @Value("${app.events.partitions.archive-dir:archive/events}")
+    private String archiveDir;
+
+    private record Partition(String name, YearMonth month, boolean attached) {
+    }
+
+    /**
+     * Create upcoming and archive expired partitions, unless another node is doing it right now
+     */
+    public void maintain() {
+        // Every statement runs on the connection holding the lock, a session lock is released with its connection
+        boolean maintained = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            JdbcTemplate session = new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+            if (!Boolean.TRUE.equals(session.queryForObject(
+                    "SELECT pg_try_advisory_lock(hashtext(?))", Boolean.class, LOCK_NAME))) {
+                return false;
+            }
+            try {
+                createUpcomingPartitions(session);
+                archiveExpiredPartitions(session);
+            } finally {
+                session.queryForObject("SELECT pg_advisory_unlock(hashtext(?))", Boolean.class, LOCK_NAME);
+            }
+            return true;
+        });
+        if (!maintained) {
+            log.info("Partitions of app_event are being maintained by another node, skipping");
+        }
+    }
+
+    /**
+     * Make sure the current month and the next {@code months-ahead} have their own partition
+     */
+    private void createUpcomingPartitions(JdbcTemplate session) {
+        YearMonth current = YearMonth.now(ZoneOffset.UTC);
+        for (int i = 0; i <= monthsAhead; i++) {
+            LocalDate month = current.plusMonths(i).atDay(1);
+            try {
+                session.queryForObject("SELECT create_app_event_partition(?)", String.class, month);
+            } catch (RuntimeException e) {
+                // Fails when the default partition already holds rows of that month; they stay there
+                log.error("Could not create app_event partition for {}: {}", month, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Detach, export and drop every partition older than {@code retention-months}
+     */
+    private void archiveExpiredPartitions(JdbcTemplate session) {
+        YearMonth oldestKept = YearMonth.now(ZoneOffset.UTC).minusMonths(retentionMonths);
+        for (Partition partition : findPartitions(session)) {
+            if (!partition.month().isBefore(oldestKept)) {
+                continue;
+            }
+            try {
+                archive(session, partition);
+            } catch (RuntimeException e) {
+                log.error("Failed to archive partition {}, will retry on the next run", partition.name(), e);
+            }
+        }
+    }
+
+    private List<Partition> findPartitions(JdbcTemplate session) {
+        return session.query(PARTITIONS_SQL, (rs, rowNum) -> {
+            Matcher matcher = PARTITION_NAME.matcher(rs.getString("relname"));
+            if (!matcher.matches()) {
+                return null;
+            }
+            YearMonth month = YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+            return new Partition(matcher.group(), month, rs.getBoolean("relispartition"));
+        }).stream().filter(partition -> partition != null).toList();
+    }
+
+    private void archive(JdbcTemplate session, Partition partition) {
+        // The name matched PARTITION_NAME, so it is safe to put into the statements as is
+        String name = partition.name();
+        if (partition.attached()) {
+            // Once detached, the rows are invisible to event queries but still on disk until exported
+            session.execute("ALTER TABLE app_event DETACH PARTITION " + name);
+            log.info("Detached partition {}", name);
+        }
+
+        Path target = Paths.get(archiveDir, name + ".csv.gz");
+        Path temporary = Paths.get(archiveDir, name + ".csv.gz.tmp");
+        long rows;
+        try {
+            Files.createDirectories(target.getParent());
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(temporary))) {
+                rows = copyOut(session, "COPY " + name + " TO STDOUT WITH (FORMAT csv, HEADER)", out);
+            }
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write " + target, e);
+        }
+
+        session.execute("DROP TABLE " + name);
+        log.info("Archived {} events of partition {} to {}", rows, name, target.toAbsolutePath());
+    }
+
+    private long copyOut(JdbcTemplate session, String sql, OutputStream out) {
+        return session.execute((ConnectionCallback<Long>) connection -> {
+            try {
+                return connection.unwrap(PGConnection.class).getCopyAPI().copyOut(sql, out);
+            } catch (IOException e) {
+                throw new SQLException("COPY to archive failed", e);
+            }
+        });
+    }
+}
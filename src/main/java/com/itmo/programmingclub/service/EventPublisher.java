@@ -0,0 +1,45 @@
+package com.itmo.programmingclub.service;
+
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.itmo.programmingclub.model.dto.EventDTO;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Sends events to their team and class topics once the transaction that recorded them has committed,
+ * so clients never see an event that was rolled back.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class EventPublisher {
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ClassEventReplayService classEventReplayService;
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onEventRecorded(EventService.EventRecorded recorded) {
+        EventDTO event = recorded.event();
+
+        // Number the event for resuming clients before it goes out on any topic
+        if (event.getClassId() != null) {
+            classEventReplayService.publish(event, numbered -> {
+                // Send event to class-level topic for curators
+                String classTopic = "/topic/class/" + numbered.getClassId() + "/events";
+                messagingTemplate.convertAndSend(classTopic, numbered);
+                log.info("Sent event {} #{} to class topic {}", numbered.getType(), numbered.getSeq(), classTopic);
+            });
+        }
+
+        // Send event to WebSocket topic if it's team-related
+        if (event.getTeamId() != null) {
+            String teamTopic = "/topic/team/" + event.getTeamId() + "/events";
+            messagingTemplate.convertAndSend(teamTopic, event);
+            log.info("Sent event {} to topic {}", event.getType(), teamTopic);
+        }
+    }
+}
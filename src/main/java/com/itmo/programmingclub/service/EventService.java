@@ -3,16 +3,22 @@ package com.itmo.programmingclub.service;
 import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.itmo.programmingclub.model.dto.EventCursor;
 import com.itmo.programmingclub.model.dto.EventDTO;
+import com.itmo.programmingclub.model.dto.EventPageDTO;
 import com.itmo.programmingclub.model.entity.Event;
 import com.itmo.programmingclub.repository.EventRepository;
 
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -21,34 +27,62 @@ import lombok.extern.slf4j.Slf4j;
 @Transactional
 @Slf4j
 public class EventService {
+    private static final int MAX_PAGE_SIZE = 500;
+
     private final EventRepository eventRepository;
-    private final SimpMessagingTemplate messagingTemplate;
+    private final TeamStateService teamStateService;
+    private final ClassDashboardService classDashboardService;
+    private final ClassStatsService classStatsService;
+    private final EventBatchWriter eventBatchWriter;
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    // Types only shown in the event log: written to the outbox by the caller and moved to app_event in batches
+    @Value("${app.events.deferred-types:STUDENT_JOINED_CLASS,STUDENT_LEFT_CLASS,CURATOR_JOINED_CLASS,CURATOR_LEFT_CLASS}")
+    private Set<Event.EventType> deferredTypes;
 
+    /**
+     * An event recorded in the current transaction, published by {@link EventPublisher} once it commits
+     */
+    public record EventRecorded(EventDTO event) {
+    }
+
+    @PostConstruct
+    public void init() {
+        // Team state and the dashboard are updated in the event's transaction, their types can't wait for a batch
+        deferredTypes = deferredTypes.stream()
+                .filter(type -> type != Event.EventType.TEAM_SENT_SOLUTION && !TeamStateService.affectsState(type))
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    /**
+     * Record an event in the current transaction. Events of a deferred type appear in app_event
+     * once the next batch has been moved there, stamped with the time of the move
+     */
     public Event createEvent(Event event) {
-        Event savedEvent = eventRepository.save(event);
-        
-        EventDTO eventDTO = EventDTO.fromEntity(savedEvent);
-        
-        // Send event to WebSocket topic if it's team-related
-        if (savedEvent.getTeam() != null) {
-            Integer teamId = savedEvent.getTeam().getId();
-            
-            // Send to team-specific topic
-            String teamTopic = "/topic/team/" + teamId + "/events";
-            messagingTemplate.convertAndSend(teamTopic, eventDTO);
-            log.info("Sent event {} to topic {}", savedEvent.getType(), teamTopic);
+        if (deferredTypes.contains(event.getType())) {
+            if (event.getTime() == null) {
+                event.setTime(OffsetDateTime.now());
+            }
+            event.setId(eventBatchWriter.nextId());
+            EventDTO dto = EventDTO.fromEntity(event);
+            eventBatchWriter.record(dto);
+            applicationEventPublisher.publishEvent(new EventRecorded(dto));
+            return event;
         }
-        
-        // Send event to class-level topic for curators
-        if (savedEvent.getClassEntity() != null) {
-            Integer classId = savedEvent.getClassEntity().getId();
-            
-            // Send to class-specific topic
-            String classTopic = "/topic/class/" + classId + "/events";
-            messagingTemplate.convertAndSend(classTopic, eventDTO);
-            log.info("Sent event {} to class topic {}", savedEvent.getType(), classTopic);
-        }
-        
+        return saveEvent(event);
+    }
+
+    /**
+     * Insert an event into app_event right away, whatever its type
+     */
+    public Event saveEvent(Event event) {
+        Event savedEvent = eventRepository.save(event);
+        // Keep the team's live state in step with its events, in the same transaction
+        teamStateService.apply(savedEvent);
+        classDashboardService.onEvent(savedEvent);
+        classStatsService.onEvent(savedEvent);
+
+        applicationEventPublisher.publishEvent(new EventRecorded(EventDTO.fromEntity(savedEvent)));
         return savedEvent;
     }
 
@@ -64,10 +98,38 @@ public class EventService {
         return eventRepository.findByClassEntityId(classId);
     }
 
+    @Transactional(readOnly = true)
     public List<EventDTO> findDTOsByClassId(Integer classId) {
-        return eventRepository.findByClassEntityId(classId).stream()
-                .map(EventDTO::fromEntity)
-                .collect(Collectors.toList());
+        return eventRepository.findDTOsByClassEntityId(classId);
+    }
+
+    /**
+     * One page of events, newest first; every filter may be null.
+     * @param after cursor returned with the previous page, null for the first page
+     */
+    @Transactional(readOnly = true)
+    public EventPageDTO findPage(Integer classId, OffsetDateTime startTime, OffsetDateTime endTime, String after, int size) {
+        int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        EventCursor cursor = after != null ? EventCursor.decode(after) : null;
+        // One extra row tells whether there is a next page
+        List<EventDTO> events = eventRepository.findPage(classId, startTime, endTime, cursor, limit + 1);
+        String nextCursor = null;
+        if (events.size() > limit) {
+            events = events.subList(0, limit);
+            nextCursor = EventCursor.of(events.get(limit - 1)).encode();
+        }
+        return EventPageDTO.builder()
+                .events(events)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    /**
+     * Pass every matching event to {@code consumer}, oldest first, without holding the range in memory
+     */
+    @Transactional(readOnly = true)
+    public void export(Integer classId, OffsetDateTime startTime, OffsetDateTime endTime, Consumer<EventDTO> consumer) {
+        eventRepository.streamAll(classId, startTime, endTime, consumer);
     }
 
     public List<Event> findByTimeRange(OffsetDateTime startTime, OffsetDateTime endTime) {
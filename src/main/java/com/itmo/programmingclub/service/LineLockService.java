@@ -0,0 +1,136 @@
+package com.itmo.programmingclub.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.itmo.programmingclub.model.dto.websocket.LineLockBatchMessage;
+import com.itmo.programmingclub.model.dto.websocket.LineLockMessage;
+import com.itmo.programmingclub.service.editor.LeaseTimerWheel;
+import com.itmo.programmingclub.service.editor.LineLease;
+import com.itmo.programmingclub.service.editor.LineLockTable;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Lease-based line locks.
+ * A lock is a lease that expires after app.editor.lock-lease-ms without activity of its holder,
+ * so a closed tab can't hold a line forever. Expiry is driven by a timer wheel, lock changes
+ * are broadcast once per tick as a batch to /topic/lock/{teamId}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LineLockService {
+    private static final int WHEEL_SLOTS = 512;
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final EditorBinaryPublisher editorBinaryPublisher;
+    private LeaseTimerWheel timerWheel;
+
+    // Map: teamId -> lock table of the team
+    private final Map<Integer, LineLockTable> teamLocks = new ConcurrentHashMap<>();
+
+    @Value("${app.editor.lock-lease-ms:15000}")
+    private long leaseMillis;
+
+    // Slot width of the wheel, the same period as the tick that advances it
+    @Value("${app.editor.lock-tick-rate:100}")
+    private long tickMillis;
+
+    @PostConstruct
+    public void init() {
+        timerWheel = new LeaseTimerWheel(WHEEL_SLOTS, tickMillis, System.currentTimeMillis());
+    }
+
+    /**
+     * Try to lock a line for editing, or renew the lease if the user already holds it
+     * @return true if lock was successful, false if line is locked by someone with the same or higher role
+     */
+    public boolean tryLockLine(Integer teamId, Integer lineNumber, String userId, String userRole) {
+        return getTable(teamId).tryAcquire(lineNumber, userId, userRole, System.currentTimeMillis(), leaseMillis);
+    }
+
+    /**
+     * Unlock a line
+     */
+    public void unlockLine(Integer teamId, Integer lineNumber, String userId) {
+        LineLockTable table = teamLocks.get(teamId);
+        if (table != null && table.release(lineNumber, userId)) {
+            log.debug("Line {} in team {} unlocked by {}", lineNumber, teamId, userId);
+        }
+    }
+
+    /**
+     * Unlock all lines locked by a user (when they disconnect)
+     */
+    public void unlockAllUserLines(Integer teamId, String userId) {
+        LineLockTable table = teamLocks.get(teamId);
+        if (table != null) {
+            table.releaseAll(userId);
+        }
+    }
+
+    /**
+     * Extend the leases of a user who is actively editing
+     */
+    public void renewUserLocks(Integer teamId, String userId) {
+        LineLockTable table = teamLocks.get(teamId);
+        if (table != null) {
+            table.renewAll(userId, System.currentTimeMillis(), leaseMillis);
+        }
+    }
+
+    /**
+     * Check if a line is locked by someone else
+     */
+    public boolean isLineLockedByOther(Integer teamId, Integer lineNumber, String userId) {
+        LineLockTable table = teamLocks.get(teamId);
+        if (table == null) {
+            return false;
+        }
+        LineLease lease = table.getLease(lineNumber, System.currentTimeMillis());
+        return lease != null && !lease.getUserId().equals(userId);
+    }
+
+    /**
+     * Drop the lock table of a team, pending changes are not broadcast
+     */
+    public void removeTeam(Integer teamId) {
+        teamLocks.remove(teamId);
+    }
+
+    /**
+     * Expire overdue leases and broadcast lock changes collected since the previous tick
+     */
+    @Scheduled(fixedRateString = "${app.editor.lock-tick-rate:100}", scheduler = "editorTickScheduler")
+    public void tick() {
+        long now = System.currentTimeMillis();
+        for (LineLease lease : timerWheel.advance(now)) {
+            LineLockTable table = teamLocks.get(lease.getTeamId());
+            if (table != null && !table.expire(lease, now)) {
+                timerWheel.schedule(lease);
+            }
+        }
+
+        teamLocks.forEach((teamId, table) -> {
+            List<LineLockMessage> changes = table.drainChanges();
+            if (!changes.isEmpty()) {
+                LineLockBatchMessage batch = new LineLockBatchMessage(teamId, changes);
+                messagingTemplate.convertAndSend("/topic/lock/" + teamId, batch);
+                editorBinaryPublisher.publishLocks(batch);
+            }
+        });
+    }
+
+    private LineLockTable getTable(Integer teamId) {
+        return teamLocks.computeIfAbsent(teamId, id -> new LineLockTable(id, timerWheel));
+    }
+}
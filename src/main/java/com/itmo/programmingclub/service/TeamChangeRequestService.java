@@ -1,5 +1,6 @@
 package com.itmo.programmingclub.service;
 
+import com.itmo.programmingclub.event.ElderChangedEvent;
 import com.itmo.programmingclub.exceptions.NotFoundException;
 import com.itmo.programmingclub.model.dto.TeamChangeRequestDTO;
 import com.itmo.programmingclub.model.dto.TeamChangeRequestResponseDTO;
@@ -8,6 +9,7 @@ import com.itmo.programmingclub.model.entity.*;
 import com.itmo.programmingclub.repository.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
@@ -29,6 +31,7 @@ public class TeamChangeRequestService {
     private final UserTeamRepository userTeamRepository;
     private final UserRepository userRepository;
     private final ElderChangeRequestService elderChangeRequestService;
+    private final ApplicationEventPublisher eventPublisher;
 
     private final ZoneId zoneId;
 
@@ -144,6 +147,7 @@ public class TeamChangeRequestService {
             if (!remainingMembers.isEmpty()) {
                 fromTeam.setElder(remainingMembers.get(0).getUserRole().getUser());
                 teamRepository.save(fromTeam);
+                eventPublisher.publishEvent(new ElderChangedEvent(fromTeam.getId(), fromTeam.getElder().getId()));
             }
         }
 
@@ -159,6 +163,7 @@ public class TeamChangeRequestService {
         if (newTeamMembers.size() == 1 || toTeam.getElder() == null || !isElderPresentInTeam) {
             toTeam.setElder(studentRole.getUser());
             teamRepository.save(toTeam);
+            eventPublisher.publishEvent(new ElderChangedEvent(toTeam.getId(), studentRole.getUser().getId()));
         }
     }
 
@@ -0,0 +1,193 @@
+package com.itmo.programmingclub.service;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.itmo.programmingclub.model.entity.Event;
+import com.itmo.programmingclub.model.entity.TeamState;
+import com.itmo.programmingclub.repository.TeamStateRepository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Live state of every team (blocked, hand raised, selected task, joined curators, last verdict)
+ * projected from events as they are created, instead of looking up the latest event of each kind.
+ * The team_state table is the source of truth, reads are served from an in-memory copy
+ * that is replaced once the updating transaction commits.
+ * Copies expire after {@code app.team-state.cache-ttl-ms}: another node of a cluster updates the table
+ * without touching this node's memory, so its changes show up here within that time.
+ * Teams without a state row are not cached.
+ */
+@Service
+@RequiredArgsConstructor
+public class TeamStateService {
+    private final TeamStateRepository teamStateRepository;
+
+    // Map: teamId -> committed state of the team
+    private final Map<Integer, Cached> cache = new ConcurrentHashMap<>();
+
+    @Value("${app.team-state.cache-ttl-ms:5000}")
+    private long cacheTtlMs;
+
+    private record Cached(Snapshot snapshot, long expiresAt) {
+        private boolean isExpired(long now) {
+            return expiresAt <= now;
+        }
+    }
+
+    /**
+     * Immutable copy of a team's state
+     */
+    public record Snapshot(boolean blocked, boolean handRaised, Integer selectedTaskId,
+                           Set<Integer> joinedCuratorIds, String lastVerdict, Integer lastVerdictSubmissionId,
+                           OffsetDateTime updatedAt) {
+        public static final Snapshot EMPTY = new Snapshot(false, false, null, Set.of(), null, null, null);
+
+        private static Snapshot of(TeamState state) {
+            return new Snapshot(state.isBlocked(), state.isHandRaised(), state.getSelectedTaskId(),
+                    Set.copyOf(state.getJoinedCuratorIds()), state.getLastVerdict(), state.getLastVerdictSubmissionId(),
+                    state.getUpdatedAt());
+        }
+
+        private boolean isNewerThan(Snapshot other) {
+            return other.updatedAt() == null || (updatedAt != null && !updatedAt.isBefore(other.updatedAt()));
+        }
+    }
+
+    /**
+     * Apply a saved event to its team's state. Must run in the transaction that saved the event,
+     * the state row stays locked until it commits so concurrent events of a team apply in order.
+     */
+    @Transactional
+    public void apply(Event event) {
+        if (event.getTeam() == null || !affectsState(event.getType())) {
+            return;
+        }
+        Integer teamId = event.getTeam().getId();
+        teamStateRepository.insertIfAbsent(teamId);
+        TeamState state = teamStateRepository.findForUpdate(teamId)
+                .orElseThrow(() -> new IllegalStateException("State of team " + teamId + " was not created"));
+
+        switch (event.getType()) {
+            case CURATOR_BLOCKED_TEAM -> state.setBlocked(true);
+            case CURATOR_UNBLOCKED_TEAM -> state.setBlocked(false);
+            case TEAM_RAISED_HAND -> state.setHandRaised(true);
+            case TEAM_LOWERED_HAND -> state.setHandRaised(false);
+            case TEAM_BEGAN_TO_COMPLETE_TASK -> {
+                if (event.getTask() != null) {
+                    state.setSelectedTaskId(event.getTask().getId());
+                }
+            }
+            case CURATOR_JOINED_TEAM -> {
+                if (event.getUserRole() != null) {
+                    state.getJoinedCuratorIds().add(event.getUserRole().getId());
+                }
+            }
+            case CURATOR_LEFT_TEAM -> {
+                if (event.getUserRole() != null) {
+                    state.getJoinedCuratorIds().remove(event.getUserRole().getId());
+                }
+            }
+            case RESULT_OF_SOLUTION -> {
+                if (event.getSubmission() != null) {
+                    state.setLastVerdict(event.getSubmission().getStatus().name());
+                    state.setLastVerdictSubmissionId(event.getSubmission().getId());
+                }
+            }
+            default -> {
+            }
+        }
+        state.setUpdatedAt(OffsetDateTime.now());
+        teamStateRepository.save(state);
+
+        Snapshot snapshot = Snapshot.of(state);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Readers must not see a state that may still be rolled back
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish(teamId, snapshot);
+                }
+            });
+        } else {
+            publish(teamId, snapshot);
+        }
+    }
+
+    /**
+     * Commits of one team are serialized by the row lock, but their callbacks may still race;
+     * a state loaded from the database may also race with a commit on this node
+     */
+    private Snapshot publish(Integer teamId, Snapshot snapshot) {
+        long now = System.currentTimeMillis();
+        Cached updated = new Cached(snapshot, now + cacheTtlMs);
+        return cache.merge(teamId, updated, (current, next) -> current.isExpired(now)
+                || next.snapshot().isNewerThan(current.snapshot()) ? next : current).snapshot();
+    }
+
+    /**
+     * Current state of a team; read from the database when it is not in memory or its copy has expired
+     */
+    @Transactional(readOnly = true)
+    public Snapshot getState(Integer teamId) {
+        Cached cached = cache.get(teamId);
+        if (cached != null && !cached.isExpired(System.currentTimeMillis())) {
+            return cached.snapshot();
+        }
+        return teamStateRepository.findWithCurators(teamId)
+                .map(state -> publish(teamId, Snapshot.of(state)))
+                .orElse(Snapshot.EMPTY);
+    }
+
+    /**
+     * States of several teams; those not in memory yet are loaded with a single query
+     * @return states in the order of {@code teamIds}
+     */
+    @Transactional(readOnly = true)
+    public Map<Integer, Snapshot> getStates(Collection<Integer> teamIds) {
+        long now = System.currentTimeMillis();
+        Map<Integer, Snapshot> states = new LinkedHashMap<>();
+        List<Integer> missing = new ArrayList<>();
+        for (Integer teamId : teamIds) {
+            Cached cached = cache.get(teamId);
+            if (cached != null && !cached.isExpired(now)) {
+                states.put(teamId, cached.snapshot());
+            } else {
+                states.put(teamId, Snapshot.EMPTY);
+                missing.add(teamId);
+            }
+        }
+        if (!missing.isEmpty()) {
+            teamStateRepository.findWithCuratorsByTeamIdIn(missing)
+                    .forEach(state -> states.put(state.getTeamId(), publish(state.getTeamId(), Snapshot.of(state))));
+        }
+        return states;
+    }
+
+    @Scheduled(fixedDelayString = "${app.team-state.eviction-check-rate:60000}")
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        cache.values().removeIf(cached -> cached.isExpired(now));
+    }
+
+    static boolean affectsState(Event.EventType type) {
+        return switch (type) {
+            case CURATOR_BLOCKED_TEAM, CURATOR_UNBLOCKED_TEAM, TEAM_RAISED_HAND, TEAM_LOWERED_HAND,
+                 TEAM_BEGAN_TO_COMPLETE_TASK, CURATOR_JOINED_TEAM, CURATOR_LEFT_TEAM, RESULT_OF_SOLUTION -> true;
+            default -> false;
+        };
+    }
+}
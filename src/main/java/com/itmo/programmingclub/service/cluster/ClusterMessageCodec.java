@@ -0,0 +1,77 @@
+package com.itmo.programmingclub.service.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Text encoding of a batch of relayed messages, small enough to fit a NOTIFY payload.
+ * <pre>
+ * nodeId\n
+ * destination\ncontentType\nencoding\nlength\npayload   (repeated)
+ * </pre>
+ * Payloads of JSON and text messages are kept as is ("T"), anything else is Base64 ("B").
+ * The length is counted in characters, so payloads may contain newlines.
+ */
+public final class ClusterMessageCodec {
+
+    private ClusterMessageCodec() {
+    }
+
+    public record Batch(String nodeId, List<RelayedMessage> messages) {
+    }
+
+    public static String encodeRecord(RelayedMessage message) {
+        boolean text = isText(message.contentType());
+        String payload = text
+                ? new String(message.payload(), StandardCharsets.UTF_8)
+                : Base64.getEncoder().encodeToString(message.payload());
+        return message.destination() + '\n'
+                + (message.contentType() != null ? message.contentType() : "") + '\n'
+                + (text ? 'T' : 'B') + '\n'
+                + payload.length() + '\n'
+                + payload;
+    }
+
+    public static String encode(String nodeId, List<String> records) {
+        StringBuilder builder = new StringBuilder(nodeId).append('\n');
+        records.forEach(builder::append);
+        return builder.toString();
+    }
+
+    public static Batch decode(String encoded) {
+        int position = encoded.indexOf('\n');
+        String nodeId = encoded.substring(0, position++);
+        List<RelayedMessage> messages = new ArrayList<>();
+        while (position < encoded.length()) {
+            int end = encoded.indexOf('\n', position);
+            String destination = encoded.substring(position, end);
+            position = end + 1;
+            end = encoded.indexOf('\n', position);
+            String contentType = encoded.substring(position, end);
+            position = end + 1;
+            boolean text = encoded.charAt(position) == 'T';
+            position += 2;
+            end = encoded.indexOf('\n', position);
+            int length = Integer.parseInt(encoded.substring(position, end));
+            position = end + 1;
+            String payload = encoded.substring(position, position + length);
+            position += length;
+            messages.add(new RelayedMessage(destination, contentType.isEmpty() ? null : contentType,
+                    text ? payload.getBytes(StandardCharsets.UTF_8) : Base64.getDecoder().decode(payload)));
+        }
+        return new Batch(nodeId, messages);
+    }
+
+    /**
+     * Size of an encoded string in a NOTIFY payload
+     */
+    public static int byteLength(String encoded) {
+        return encoded.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private static boolean isText(String contentType) {
+        return contentType != null && (contentType.startsWith("application/json") || contentType.startsWith("text/"));
+    }
+}
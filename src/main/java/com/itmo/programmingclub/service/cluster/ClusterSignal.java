@@ -0,0 +1,9 @@
+package com.itmo.programmingclub.service.cluster;
+
+/**
+ * Message from a service of another application instance, published as an application event on this node
+ * @param nodeId node that sent the signal
+ * @param name what happened, each receiving service picks the names it handles
+ */
+public record ClusterSignal(String nodeId, String name, String payload) {
+}
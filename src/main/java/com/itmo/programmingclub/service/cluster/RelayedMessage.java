@@ -0,0 +1,7 @@
+package com.itmo.programmingclub.service.cluster;
+
+/**
+ * Broker message as it is passed between application instances
+ */
+public record RelayedMessage(String destination, String contentType, byte[] payload) {
+}
@@ -0,0 +1,178 @@
+package com.itmo.programmingclub.service.editor;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+
+import com.itmo.programmingclub.model.dto.websocket.CodeChangeMessage;
+
+/**
+ * Bounded history of one team's edits: the applied changes in revision order
+ * plus a checkpoint (full copy of all areas) every {@code checkpointInterval} changes.
+ * The bound is the estimated memory of the kept changes and checkpoints, not their count:
+ * a checkpoint of a large document weighs as much as thousands of keystrokes.
+ * <p>
+ * The history is cut at checkpoints only, so the oldest kept checkpoint is always exactly
+ * one revision before the oldest kept change. Any revision in the kept window can therefore be
+ * rebuilt from the nearest checkpoint by replaying at most {@code checkpointInterval} changes,
+ * and a client knowing any revision of the window can catch up with deltas only.
+ * Not thread-safe: callers synchronize on the owning {@link TeamDocument}.
+ */
+public final class EditHistory {
+    // Estimated size of a change message and its deque entry without the content
+    private static final int EDIT_OVERHEAD_BYTES = 96;
+    // Estimated size of an area record in a checkpoint without its code
+    private static final int AREA_OVERHEAD_BYTES = 64;
+
+    private final long maxBytes;
+    private final int checkpointInterval;
+    private final Deque<Edit> edits = new ArrayDeque<>();
+    private final Deque<Checkpoint> checkpoints = new ArrayDeque<>();
+    private long bytes;
+
+    /**
+     * One applied change; {@code change.getRevision()} is its team revision.
+     * Change messages are not modified after they have been applied.
+     */
+    public record Edit(String userId, CodeChangeMessage change) {
+    }
+
+    /**
+     * State of all areas right after {@code revision}
+     */
+    public record Checkpoint(long revision, List<TeamDocument.Area> areas) {
+    }
+
+    /**
+     * @param maxBytes           estimated memory to keep changes and checkpoints in; the newest segment is always kept,
+     *                           older ones are dropped at the next checkpoint once the history is over it
+     * @param checkpointInterval number of changes between two checkpoints
+     */
+    EditHistory(long maxBytes, int checkpointInterval, Checkpoint base) {
+        this.maxBytes = Math.max(1, maxBytes);
+        this.checkpointInterval = Math.max(1, checkpointInterval);
+        addCheckpoint(base);
+    }
+
+    /**
+     * Append an applied change. Returns true when a checkpoint is due after it.
+     */
+    boolean append(String userId, CodeChangeMessage change) {
+        edits.addLast(new Edit(userId, change));
+        bytes += sizeOf(change);
+        return change.getRevision() - checkpoints.getLast().revision() >= checkpointInterval;
+    }
+
+    void checkpoint(Checkpoint checkpoint) {
+        addCheckpoint(checkpoint);
+        // Drop whole segments from the head while the history is over its size
+        while (bytes > maxBytes && checkpoints.size() > 1) {
+            bytes -= sizeOf(checkpoints.removeFirst());
+            long oldest = checkpoints.getFirst().revision();
+            while (!edits.isEmpty() && edits.getFirst().change().getRevision() <= oldest) {
+                bytes -= sizeOf(edits.removeFirst().change());
+            }
+        }
+    }
+
+    /**
+     * Forget everything before {@code checkpoint}, used when an area is replaced without a change message
+     */
+    void reset(Checkpoint checkpoint) {
+        edits.clear();
+        checkpoints.clear();
+        bytes = 0;
+        addCheckpoint(checkpoint);
+    }
+
+    /**
+     * Estimated memory held by the kept changes and checkpoints
+     */
+    long sizeInBytes() {
+        return bytes;
+    }
+
+    private void addCheckpoint(Checkpoint checkpoint) {
+        checkpoints.addLast(checkpoint);
+        bytes += sizeOf(checkpoint);
+    }
+
+    // Source code is mostly ASCII, which compact strings store in one byte per character
+    private static long sizeOf(CodeChangeMessage change) {
+        return EDIT_OVERHEAD_BYTES + (change.getContent() != null ? change.getContent().length() : 0);
+    }
+
+    private static long sizeOf(Checkpoint checkpoint) {
+        long size = 0;
+        for (TeamDocument.Area area : checkpoint.areas()) {
+            size += AREA_OVERHEAD_BYTES + area.code().length();
+        }
+        return size;
+    }
+
+    /**
+     * Oldest revision the history can rebuild or resume from
+     */
+    long firstRevision() {
+        return checkpoints.getFirst().revision();
+    }
+
+    /**
+     * Changes with a revision greater than {@code revision}, in order,
+     * or null if some of them have already been dropped
+     */
+    List<CodeChangeMessage> changesSince(long revision) {
+        if (revision < firstRevision()) {
+            return null;
+        }
+        List<CodeChangeMessage> changes = new ArrayList<>();
+        Iterator<Edit> newestFirst = edits.descendingIterator();
+        while (newestFirst.hasNext()) {
+            CodeChangeMessage change = newestFirst.next().change();
+            if (change.getRevision() <= revision) {
+                break;
+            }
+            changes.add(change);
+        }
+        Collections.reverse(changes);
+        return changes;
+    }
+
+    /**
+     * Latest checkpoint not newer than {@code revision}, or null if the revision is before the kept window
+     */
+    Checkpoint checkpointAt(long revision) {
+        Iterator<Checkpoint> newestFirst = checkpoints.descendingIterator();
+        while (newestFirst.hasNext()) {
+            Checkpoint checkpoint = newestFirst.next();
+            if (checkpoint.revision() <= revision) {
+                return checkpoint;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Changes after {@code from} up to and including {@code to}
+     */
+    List<Edit> editsBetween(long from, long to) {
+        List<Edit> result = new ArrayList<>();
+        for (Edit edit : edits) {
+            long editRevision = edit.change().getRevision();
+            if (editRevision > to) {
+                break;
+            }
+            if (editRevision > from) {
+                result.add(edit);
+            }
+        }
+        return result;
+    }
+
+    List<Long> checkpointRevisions() {
+        return checkpoints.stream().map(Checkpoint::revision).toList();
+    }
+}
@@ -0,0 +1,245 @@
+package com.itmo.programmingclub.service.editor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+import com.itmo.programmingclub.model.dto.websocket.CodeChangeMessage;
+import com.itmo.programmingclub.model.dto.websocket.CursorBatchMessage;
+import com.itmo.programmingclub.model.dto.websocket.CursorPositionMessage;
+import com.itmo.programmingclub.model.dto.websocket.LineLockBatchMessage;
+import com.itmo.programmingclub.model.dto.websocket.LineLockMessage;
+
+/**
+ * Compact binary format of high-frequency editor frames.
+ * A frame starts with its kind byte; numbers are unsigned varints, nullable numbers are stored as value + 1
+ * (0 means null), strings are a varint byte length followed by UTF-8. Users are referenced by their
+ * {@link UserDictionary} index, team id and role are not repeated per user.
+ * <pre>
+ * CODE_CHANGE  teamId revision? baseLength? user type lineNumber? position? content
+ * CURSOR_BATCH teamId count (user lineNumber? position?)*
+ * LOCK_BATCH   teamId count (user lineNumber? action)*
+ * CHANGE       teamId revision? baseLength? type lineNumber? position? content     client to server
+ * CURSOR       teamId lineNumber? position?                                       client to server
+ * LINE_LOCK    teamId lineNumber? action                                          client to server
+ * </pre>
+ * Client frames carry no user, the server takes it from the session. baseLength is the length of the area
+ * an INSERT / DELETE was made against, as in the JSON frames, so a lost edit is noticed.
+ */
+public final class EditorBinaryCodec {
+    public static final byte CODE_CHANGE = 1;
+    public static final byte CURSOR_BATCH = 2;
+    public static final byte LOCK_BATCH = 3;
+    public static final byte CURSOR = 4;
+    public static final byte LINE_LOCK = 5;
+    public static final byte CHANGE = 6;
+
+    private static final List<String> CHANGE_TYPES = List.of("REPLACE", "INSERT", "DELETE");
+    private static final List<String> LOCK_ACTIONS = List.of("LOCK", "UNLOCK", "EXPIRED", "LOCK_REJECTED");
+
+    private EditorBinaryCodec() {
+    }
+
+    public static byte[] encodeChange(CodeChangeMessage change, ToIntFunction<String> userIndex) {
+        String content = change.getContent() != null ? change.getContent() : "";
+        Writer writer = new Writer(16 + content.length());
+        writer.writeByte(CODE_CHANGE);
+        writer.writeVarLong(change.getTeamId());
+        writer.writeNullable(change.getRevision());
+        writer.writeNullable(change.getBaseLength());
+        writer.writeVarLong(userIndex.applyAsInt(change.getUserId()));
+        writeChangeBody(writer, change, content);
+        return writer.toByteArray();
+    }
+
+    /**
+     * Encode a change the way a client sends it
+     */
+    public static byte[] encodeClientChange(CodeChangeMessage change) {
+        String content = change.getContent() != null ? change.getContent() : "";
+        Writer writer = new Writer(16 + content.length());
+        writer.writeByte(CHANGE);
+        writer.writeVarLong(change.getTeamId());
+        writer.writeNullable(change.getRevision());
+        writer.writeNullable(change.getBaseLength());
+        writeChangeBody(writer, change, content);
+        return writer.toByteArray();
+    }
+
+    public static byte[] encodeCursors(CursorBatchMessage batch, ToIntFunction<String> userIndex) {
+        Writer writer = new Writer(8 + batch.getCursors().size() * 6);
+        writer.writeByte(CURSOR_BATCH);
+        writer.writeVarLong(batch.getTeamId());
+        writer.writeVarLong(batch.getCursors().size());
+        for (CursorPositionMessage cursor : batch.getCursors()) {
+            writer.writeVarLong(userIndex.applyAsInt(cursor.getUserId()));
+            writer.writeNullable(cursor.getLineNumber());
+            writer.writeNullable(cursor.getPosition());
+        }
+        return writer.toByteArray();
+    }
+
+    public static byte[] encodeLocks(LineLockBatchMessage batch, ToIntFunction<String> userIndex) {
+        Writer writer = new Writer(8 + batch.getChanges().size() * 6);
+        writer.writeByte(LOCK_BATCH);
+        writer.writeVarLong(batch.getTeamId());
+        writer.writeVarLong(batch.getChanges().size());
+        for (LineLockMessage change : batch.getChanges()) {
+            writer.writeVarLong(userIndex.applyAsInt(change.getUserId()));
+            writer.writeNullable(change.getLineNumber());
+            writer.writeVarLong(indexOf(LOCK_ACTIONS, change.getAction()));
+        }
+        return writer.toByteArray();
+    }
+
+    /**
+     * Decode a frame sent by a client
+     * @return CodeChangeMessage, CursorPositionMessage or LineLockMessage without user fields
+     * @throws IllegalArgumentException if the frame is malformed
+     */
+    public static Object decodeClientFrame(byte[] frame) {
+        Reader reader = new Reader(frame);
+        try {
+            byte kind = reader.readByte();
+            switch (kind) {
+                case CHANGE -> {
+                    CodeChangeMessage change = new CodeChangeMessage();
+                    change.setTeamId((int) reader.readVarLong());
+                    change.setRevision(reader.readNullable());
+                    change.setBaseLength(toInteger(reader.readNullable()));
+                    change.setType(valueAt(CHANGE_TYPES, reader.readVarLong()));
+                    change.setLineNumber(toInteger(reader.readNullable()));
+                    change.setPosition(toInteger(reader.readNullable()));
+                    change.setContent(reader.readString());
+                    return change;
+                }
+                case CURSOR -> {
+                    CursorPositionMessage cursor = new CursorPositionMessage();
+                    cursor.setTeamId((int) reader.readVarLong());
+                    cursor.setLineNumber(toInteger(reader.readNullable()));
+                    cursor.setPosition(toInteger(reader.readNullable()));
+                    return cursor;
+                }
+                case LINE_LOCK -> {
+                    LineLockMessage lock = new LineLockMessage();
+                    lock.setTeamId((int) reader.readVarLong());
+                    lock.setLineNumber(toInteger(reader.readNullable()));
+                    lock.setAction(valueAt(LOCK_ACTIONS, reader.readVarLong()));
+                    return lock;
+                }
+                default -> throw new IllegalArgumentException("Unknown editor frame kind: " + kind);
+            }
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Truncated editor frame", e);
+        }
+    }
+
+    private static void writeChangeBody(Writer writer, CodeChangeMessage change, String content) {
+        writer.writeVarLong(indexOf(CHANGE_TYPES, change.getType()));
+        writer.writeNullable(change.getLineNumber());
+        writer.writeNullable(change.getPosition());
+        writer.writeString(content);
+    }
+
+    private static int indexOf(List<String> values, String value) {
+        int index = values.indexOf(value);
+        return Math.max(index, 0);
+    }
+
+    private static String valueAt(List<String> values, long index) {
+        if (index < 0 || index >= values.size()) {
+            throw new IllegalArgumentException("Unknown enum index: " + index);
+        }
+        return values.get((int) index);
+    }
+
+    private static Integer toInteger(Long value) {
+        return value != null ? value.intValue() : null;
+    }
+
+    private static final class Writer {
+        private byte[] buffer;
+        private int size;
+
+        private Writer(int capacity) {
+            this.buffer = new byte[Math.max(capacity, 16)];
+        }
+
+        private void writeByte(int value) {
+            ensureCapacity(1);
+            buffer[size++] = (byte) value;
+        }
+
+        private void writeVarLong(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[size++] = (byte) value;
+        }
+
+        private void writeNullable(Number value) {
+            writeVarLong(value != null ? value.longValue() + 1 : 0);
+        }
+
+        private void writeString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length);
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, size, bytes.length);
+            size += bytes.length;
+        }
+
+        private void ensureCapacity(int extra) {
+            if (size + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+            }
+        }
+
+        private byte[] toByteArray() {
+            return Arrays.copyOf(buffer, size);
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] buffer;
+        private int position;
+
+        private Reader(byte[] buffer) {
+            this.buffer = buffer;
+        }
+
+        private byte readByte() {
+            return buffer[position++];
+        }
+
+        private long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = buffer[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint");
+        }
+
+        private Long readNullable() {
+            long value = readVarLong();
+            return value == 0 ? null : value - 1;
+        }
+
+        private String readString() {
+            int length = (int) readVarLong();
+            if (length < 0 || position + length > buffer.length) {
+                throw new IllegalArgumentException("Malformed string length: " + length);
+            }
+            String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.itmo.programmingclub.service.editor;
+
+import java.util.List;
+
+/**
+ * Destinations of the collaborative editor.
+ * Every editor destination ends with the team id: /app/code/change/{teamId}, /topic/cursor/{teamId}, ...
+ */
+public final class EditorDestinations {
+    private static final List<String> PREFIXES = List.of(
+            "/app/code/change/",
+            "/app/code/sync/request/",
+            "/app/cursor/",
+            "/app/lock/",
+            "/topic/code/change/",
+            "/topic/cursor/",
+            "/topic/lock/",
+            "/app/bin/users/",
+            "/topic/bin/code/change/",
+            "/topic/bin/cursor/",
+            "/topic/bin/lock/",
+            "/topic/bin/users/"
+    );
+
+    private EditorDestinations() {
+    }
+
+    /**
+     * @return team id of an editor destination, or null for any other destination
+     */
+    public static Integer teamIdOf(String destination) {
+        if (destination == null) {
+            return null;
+        }
+        for (String prefix : PREFIXES) {
+            if (destination.startsWith(prefix)) {
+                return parseId(destination, prefix.length());
+            }
+        }
+        return null;
+    }
+
+    private static Integer parseId(String destination, int from) {
+        int to = destination.length();
+        if (from >= to || to - from > 9) {
+            return null;
+        }
+        int id = 0;
+        for (int i = from; i < to; i++) {
+            char c = destination.charAt(i);
+            if (c < '0' || c > '9') {
+                return null;
+            }
+            id = id * 10 + (c - '0');
+        }
+        return id;
+    }
+}
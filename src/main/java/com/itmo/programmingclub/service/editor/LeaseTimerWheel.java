@@ -0,0 +1,61 @@
+package com.itmo.programmingclub.service.editor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Hashed timer wheel for lease deadlines.
+ * Scheduling is O(1); each tick only looks at the leases of one slot.
+ * Cancellation is lazy: released or replaced leases stay in their slot and are ignored by
+ * {@link LineLockTable#expire(LineLease, long)}, renewed leases are moved forward when their slot comes up.
+ */
+public class LeaseTimerWheel {
+    private final long tickMillis;
+    private final Queue<LineLease>[] slots;
+    private volatile long currentTick;
+
+    @SuppressWarnings("unchecked")
+    public LeaseTimerWheel(int slotCount, long tickMillis, long now) {
+        this.tickMillis = tickMillis;
+        this.slots = new Queue[slotCount];
+        for (int i = 0; i < slotCount; i++) {
+            slots[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.currentTick = now / tickMillis;
+    }
+
+    public void schedule(LineLease lease) {
+        // A lease is never put into a slot that has already been passed
+        long tick = Math.max(lease.getExpiresAt() / tickMillis, currentTick + 1);
+        slots[(int) (tick % slots.length)].add(lease);
+    }
+
+    /**
+     * Moves the wheel to {@code now}.
+     * @return leases whose deadline has passed; they may have been released or replaced meanwhile
+     */
+    public synchronized List<LineLease> advance(long now) {
+        long targetTick = now / tickMillis;
+        // After a long pause one full revolution visits every slot
+        long fromTick = Math.max(currentTick + 1, targetTick - slots.length + 1);
+        List<LineLease> due = new ArrayList<>();
+        List<LineLease> pending = new ArrayList<>();
+        for (long tick = fromTick; tick <= targetTick; tick++) {
+            Queue<LineLease> slot = slots[(int) (tick % slots.length)];
+            LineLease lease;
+            while ((lease = slot.poll()) != null) {
+                if (lease.isExpired(now)) {
+                    due.add(lease);
+                } else {
+                    // Renewed, or scheduled for a later revolution
+                    pending.add(lease);
+                }
+            }
+        }
+        currentTick = Math.max(currentTick, targetTick);
+        pending.forEach(this::schedule);
+        return due;
+    }
+}
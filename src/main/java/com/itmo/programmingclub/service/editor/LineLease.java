@@ -0,0 +1,52 @@
+package com.itmo.programmingclub.service.editor;
+
+/**
+ * Lock on one line of a team document held by a user until {@link #getExpiresAt()}.
+ * The holder renews the lease by editing; the deadline is the only mutable field,
+ * so a renewal is a single volatile write and never touches the timer wheel.
+ */
+public final class LineLease {
+    private final Integer teamId;
+    private final Integer lineNumber;
+    private final String userId;
+    private final String userRole;
+    private volatile long expiresAt;
+
+    public LineLease(Integer teamId, Integer lineNumber, String userId, String userRole, long expiresAt) {
+        this.teamId = teamId;
+        this.lineNumber = lineNumber;
+        this.userId = userId;
+        this.userRole = userRole;
+        this.expiresAt = expiresAt;
+    }
+
+    public Integer getTeamId() {
+        return teamId;
+    }
+
+    public Integer getLineNumber() {
+        return lineNumber;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public String getUserRole() {
+        return userRole;
+    }
+
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    public boolean isExpired(long now) {
+        return expiresAt <= now;
+    }
+
+    void renew(long expiresAt) {
+        if (expiresAt > this.expiresAt) {
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.itmo.programmingclub.service.editor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.itmo.programmingclub.model.dto.websocket.LineLockMessage;
+
+/**
+ * Line locks of one team.
+ * Every state transition of a line happens inside {@link ConcurrentHashMap#compute}, so acquisition is
+ * an atomic compare-and-set and concurrent requests for one line are serialized without a team-wide lock.
+ * Transitions are also recorded as pending changes (latest per line) that are broadcast in batches.
+ */
+public class LineLockTable {
+    private final Integer teamId;
+    private final LeaseTimerWheel timerWheel;
+    // Map: lineNumber -> current lease
+    private final Map<Integer, LineLease> leases = new ConcurrentHashMap<>();
+    // Map: lineNumber -> latest change not yet broadcast
+    private final Map<Integer, LineLockMessage> pendingChanges = new ConcurrentHashMap<>();
+
+    public LineLockTable(Integer teamId, LeaseTimerWheel timerWheel) {
+        this.teamId = teamId;
+        this.timerWheel = timerWheel;
+    }
+
+    /**
+     * Acquire or renew the lock on a line.
+     * Free and expired lines are granted; a line held by someone else is taken over only by a
+     * higher role (CURATOR > ELDER > STUDENT).
+     * @return true if the user holds the line afterwards
+     */
+    public boolean tryAcquire(Integer lineNumber, String userId, String userRole, long now, long leaseMillis) {
+        boolean[] granted = new boolean[1];
+        leases.compute(lineNumber, (line, current) -> {
+            if (current != null && !current.isExpired(now)) {
+                if (current.getUserId().equals(userId)) {
+                    current.renew(now + leaseMillis);
+                    granted[0] = true;
+                    return current;
+                }
+                if (rolePriority(userRole) <= rolePriority(current.getUserRole())) {
+                    return current;
+                }
+            }
+            LineLease lease = new LineLease(teamId, line, userId, userRole, now + leaseMillis);
+            timerWheel.schedule(lease);
+            recordChange(line, userId, userRole, "LOCK");
+            granted[0] = true;
+            return lease;
+        });
+        return granted[0];
+    }
+
+    /**
+     * Release a line if it is held by the user
+     */
+    public boolean release(Integer lineNumber, String userId) {
+        boolean[] released = new boolean[1];
+        leases.computeIfPresent(lineNumber, (line, current) -> {
+            if (!current.getUserId().equals(userId)) {
+                return current;
+            }
+            recordChange(line, userId, current.getUserRole(), "UNLOCK");
+            released[0] = true;
+            return null;
+        });
+        return released[0];
+    }
+
+    /**
+     * Release every line held by the user (e.g. when they disconnect)
+     */
+    public void releaseAll(String userId) {
+        for (LineLease lease : leases.values()) {
+            if (lease.getUserId().equals(userId)) {
+                release(lease.getLineNumber(), userId);
+            }
+        }
+    }
+
+    /**
+     * Extend every lease held by the user, called on editing activity
+     */
+    public void renewAll(String userId, long now, long leaseMillis) {
+        for (LineLease lease : leases.values()) {
+            if (lease.getUserId().equals(userId)) {
+                lease.renew(now + leaseMillis);
+            }
+        }
+    }
+
+    /**
+     * Remove a lease fired by the timer wheel, unless it has been replaced or renewed meanwhile
+     * @return false if the lease is still alive and has to be rescheduled
+     */
+    public boolean expire(LineLease lease, long now) {
+        boolean[] alive = new boolean[1];
+        leases.computeIfPresent(lease.getLineNumber(), (line, current) -> {
+            if (current != lease) {
+                return current;
+            }
+            if (!current.isExpired(now)) {
+                alive[0] = true;
+                return current;
+            }
+            recordChange(line, current.getUserId(), current.getUserRole(), "EXPIRED");
+            return null;
+        });
+        return !alive[0];
+    }
+
+    public LineLease getLease(Integer lineNumber, long now) {
+        LineLease lease = leases.get(lineNumber);
+        return lease != null && !lease.isExpired(now) ? lease : null;
+    }
+
+    public boolean isEmpty() {
+        return leases.isEmpty();
+    }
+
+    /**
+     * Take all changes recorded since the previous call
+     */
+    public List<LineLockMessage> drainChanges() {
+        List<LineLockMessage> changes = new ArrayList<>();
+        for (Integer lineNumber : pendingChanges.keySet()) {
+            LineLockMessage change = pendingChanges.remove(lineNumber);
+            if (change != null) {
+                changes.add(change);
+            }
+        }
+        return changes;
+    }
+
+    private void recordChange(Integer lineNumber, String userId, String userRole, String action) {
+        pendingChanges.put(lineNumber, new LineLockMessage(teamId, lineNumber, userId, userRole, action));
+    }
+
+    /**
+     * Get role priority (higher number = higher priority)
+     * CURATOR = 3, ELDER = 2, STUDENT = 1
+     */
+    private static int rolePriority(String role) {
+        if ("CURATOR".equalsIgnoreCase(role)) {
+            return 3;
+        } else if ("ELDER".equalsIgnoreCase(role)) {
+            return 2;
+        } else {
+            return 1; // STUDENT
+        }
+    }
+}
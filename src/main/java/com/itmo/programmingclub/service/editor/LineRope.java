@@ -0,0 +1,286 @@
+package com.itmo.programmingclub.service.editor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Mutable text buffer stored as an implicit treap of lines.
+ * Every node keeps the number of lines and characters in its subtree, so
+ * line lookups, line replacements and offset-based range edits run in O(log n)
+ * instead of re-splitting and re-joining the whole document.
+ * <p>
+ * Lines are separated by '\n'; a document always has at least one (possibly empty) line,
+ * which matches {@code String.split("\n", -1)} semantics.
+ * Not thread-safe: callers synchronize on the owning {@link TeamDocument}.
+ */
+public final class LineRope {
+    private Node root;
+
+    private static final class Node {
+        private String line;
+        private final int priority;
+        private Node left;
+        private Node right;
+        private int lines;
+        // Sum of (line length + 1) over the subtree - every line "owns" its trailing newline
+        private long weight;
+
+        private Node(String line) {
+            this.line = line;
+            this.priority = ThreadLocalRandom.current().nextInt();
+            update();
+        }
+
+        private void update() {
+            lines = 1 + count(left) + count(right);
+            weight = line.length() + 1L + weight(left) + weight(right);
+        }
+    }
+
+    private LineRope(Node root) {
+        this.root = root;
+    }
+
+    public static LineRope empty() {
+        return new LineRope(new Node(""));
+    }
+
+    public static LineRope of(CharSequence text) {
+        return new LineRope(build(splitLines(text == null ? "" : text)));
+    }
+
+    public int lineCount() {
+        return count(root);
+    }
+
+    public int length() {
+        return (int) (weight(root) - 1);
+    }
+
+    /**
+     * Returns line by 0-based index.
+     */
+    public String line(int index) {
+        checkLineIndex(index);
+        Node node = root;
+        while (true) {
+            int leftCount = count(node.left);
+            if (index < leftCount) {
+                node = node.left;
+            } else if (index == leftCount) {
+                return node.line;
+            } else {
+                index -= leftCount + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    /**
+     * Replaces line by 0-based index. Missing lines up to {@code index} are appended as empty lines.
+     */
+    public void setLine(int index, String content) {
+        if (index < 0) {
+            throw new IndexOutOfBoundsException("Line index: " + index);
+        }
+        String value = content == null ? "" : content;
+        int missing = index - lineCount();
+        if (missing >= 0) {
+            List<String> padding = new ArrayList<>(missing + 1);
+            for (int i = 0; i < missing; i++) {
+                padding.add("");
+            }
+            padding.add(value);
+            root = merge(root, build(padding));
+            return;
+        }
+        set(root, index, value);
+    }
+
+    /**
+     * Returns absolute character offset of the beginning of a line.
+     */
+    public int offsetOf(int lineIndex) {
+        checkLineIndex(lineIndex);
+        long offset = 0;
+        Node node = root;
+        while (true) {
+            int leftCount = count(node.left);
+            if (lineIndex < leftCount) {
+                node = node.left;
+            } else {
+                offset += weight(node.left);
+                if (lineIndex == leftCount) {
+                    return (int) offset;
+                }
+                offset += node.line.length() + 1;
+                lineIndex -= leftCount + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    /**
+     * Replaces {@code length} characters starting at {@code offset} with {@code text}.
+     * Only the lines touched by the range are rebuilt.
+     */
+    public void replace(int offset, int length, String text) {
+        int total = length();
+        if (offset < 0 || length < 0 || offset + length > total) {
+            throw new IndexOutOfBoundsException(
+                    String.format("Range [%d, %d) is outside of document of length %d", offset, offset + length, total));
+        }
+
+        int[] start = locate(offset);
+        int[] end = locate(offset + length);
+        String prefix = line(start[0]).substring(0, start[1]);
+        String suffix = line(end[0]).substring(end[1]);
+
+        Node[] head = split(root, start[0]);
+        Node[] tail = split(head[1], end[0] - start[0] + 1);
+        Node middle = build(splitLines(prefix + (text == null ? "" : text) + suffix));
+        root = merge(merge(head[0], middle), tail[1]);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(Math.max(length(), 0));
+        append(root, builder);
+        // Every line appended its newline, the last one is not part of the text
+        builder.setLength(builder.length() - 1);
+        return builder.toString();
+    }
+
+    /**
+     * Finds line index and column for an absolute offset.
+     */
+    private int[] locate(int offset) {
+        Node node = root;
+        int lineIndex = 0;
+        long remaining = offset;
+        while (true) {
+            long leftWeight = weight(node.left);
+            if (remaining < leftWeight) {
+                node = node.left;
+            } else if (remaining < leftWeight + node.line.length() + 1) {
+                return new int[]{lineIndex + count(node.left), (int) (remaining - leftWeight)};
+            } else {
+                remaining -= leftWeight + node.line.length() + 1;
+                lineIndex += count(node.left) + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    private void checkLineIndex(int index) {
+        if (index < 0 || index >= lineCount()) {
+            throw new IndexOutOfBoundsException("Line index: " + index + ", line count: " + lineCount());
+        }
+    }
+
+    private static void set(Node node, int index, String content) {
+        int leftCount = count(node.left);
+        if (index < leftCount) {
+            set(node.left, index, content);
+        } else if (index == leftCount) {
+            node.line = content;
+        } else {
+            set(node.right, index - leftCount - 1, content);
+        }
+        node.update();
+    }
+
+    /**
+     * Splits a subtree into the first {@code k} lines and the rest.
+     */
+    private static Node[] split(Node node, int k) {
+        if (node == null) {
+            return new Node[]{null, null};
+        }
+        int leftCount = count(node.left);
+        if (k <= leftCount) {
+            Node[] parts = split(node.left, k);
+            node.left = parts[1];
+            node.update();
+            return new Node[]{parts[0], node};
+        }
+        Node[] parts = split(node.right, k - leftCount - 1);
+        node.right = parts[0];
+        node.update();
+        return new Node[]{node, parts[1]};
+    }
+
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            left.update();
+            return left;
+        }
+        right.left = merge(left, right.left);
+        right.update();
+        return right;
+    }
+
+    /**
+     * Builds a treap from lines in O(n) using the right-spine (Cartesian tree) construction.
+     */
+    private static Node build(List<String> lines) {
+        Node[] spine = new Node[lines.size()];
+        int top = -1;
+        for (String line : lines) {
+            Node node = new Node(line);
+            Node last = null;
+            while (top >= 0 && spine[top].priority < node.priority) {
+                last = spine[top--];
+                last.update();
+            }
+            node.left = last;
+            if (top >= 0) {
+                spine[top].right = node;
+            }
+            spine[++top] = node;
+        }
+        while (top >= 0) {
+            spine[top--].update();
+        }
+        // The bottom of the stack holds the node with the highest priority
+        return lines.isEmpty() ? null : spine[0];
+    }
+
+    private static List<String> splitLines(CharSequence text) {
+        List<String> lines = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') {
+                lines.add(text.subSequence(start, i).toString());
+                start = i + 1;
+            }
+        }
+        lines.add(text.subSequence(start, text.length()).toString());
+        return lines;
+    }
+
+    private static void append(Node node, StringBuilder builder) {
+        if (node == null) {
+            return;
+        }
+        append(node.left, builder);
+        builder.append(node.line).append('\n');
+        append(node.right, builder);
+    }
+
+    private static int count(Node node) {
+        return node == null ? 0 : node.lines;
+    }
+
+    private static long weight(Node node) {
+        return node == null ? 0 : node.weight;
+    }
+}
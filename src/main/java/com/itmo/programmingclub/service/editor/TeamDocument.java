@@ -0,0 +1,296 @@
+package com.itmo.programmingclub.service.editor;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.itmo.programmingclub.model.dto.EditTimelineDTO;
+import com.itmo.programmingclub.model.dto.websocket.CodeChangeMessage;
+import com.itmo.programmingclub.model.dto.websocket.CodeSnapshotMessage;
+import com.itmo.programmingclub.model.dto.websocket.CodeSyncMessage;
+
+/**
+ * Server-side code buffers of one team: every participant edits their own area,
+ * each area is kept in a {@link LineRope}.
+ * All access goes through this object's monitor, so edits of one team are applied one at a time
+ * and every applied edit gets the next team revision.
+ * With {@link #trackHistory(long, int)} the recent edits are also kept in an {@link EditHistory}.
+ * Revisions are only comparable within one epoch: a document restored after a restart or eviction
+ * gets a new epoch, as revisions of edits that were never saved are handed out again.
+ */
+public class TeamDocument {
+    private final Integer teamId;
+    // Creation time in epoch microseconds
+    private final long epoch;
+    private final Map<String, LineRope> userBuffers = new LinkedHashMap<>();
+    private final Map<String, String> userRoles = new LinkedHashMap<>();
+    // Map: userId -> revision of the last change of the user's area
+    private final Map<String, Long> areaRevisions = new LinkedHashMap<>();
+    private long revision;
+    // Revision up to which all areas have been written to the database
+    private long savedRevision;
+    private volatile long lastActivity = System.currentTimeMillis();
+    private EditHistory history;
+    // Dropped from memory; edits must go to the document restored in its place
+    private boolean closed;
+
+    /**
+     * One area of the document as it is saved to the database
+     */
+    public record Area(String userId, String userRole, String code, long revision) {
+    }
+
+    public TeamDocument(Integer teamId) {
+        this.teamId = teamId;
+        Instant now = Instant.now();
+        this.epoch = now.getEpochSecond() * 1_000_000 + now.getNano() / 1_000;
+    }
+
+    /**
+     * Rebuild a document from saved areas; revisions continue after the newest saved one.
+     */
+    public static TeamDocument restore(Integer teamId, List<Area> areas) {
+        TeamDocument document = new TeamDocument(teamId);
+        for (Area area : areas) {
+            document.userBuffers.put(area.userId(), LineRope.of(area.code()));
+            document.userRoles.put(area.userId(), area.userRole());
+            document.areaRevisions.put(area.userId(), area.revision());
+            document.revision = Math.max(document.revision, area.revision());
+        }
+        document.savedRevision = document.revision;
+        return document;
+    }
+
+    /**
+     * Start keeping recent edits in about {@code maxBytes} of memory, with a checkpoint every {@code checkpointInterval} edits.
+     * The history starts at the current revision.
+     */
+    public synchronized void trackHistory(long maxBytes, int checkpointInterval) {
+        history = new EditHistory(maxBytes, checkpointInterval, checkpoint());
+    }
+
+    /**
+     * Apply a change message to the user's buffer and stamp it with the new revision.
+     * INSERT / DELETE edit the range starting at (lineNumber, position), this is what the editor sends per keystroke;
+     * with a baseLength they are rejected unless the area has that length, so a lost edit is noticed.
+     * REPLACE without a line number or with multi-line content replaces the whole area,
+     * REPLACE with single-line content replaces one line.
+     * @return false if the change does not fit into the current buffer
+     */
+    public synchronized boolean apply(String userId, CodeChangeMessage change) {
+        if (!applyToBuffer(userId, change)) {
+            return false;
+        }
+        if (change.getUserRole() != null) {
+            userRoles.put(userId, change.getUserRole());
+        }
+        change.setRevision(++revision);
+        areaRevisions.put(userId, revision);
+        lastActivity = System.currentTimeMillis();
+        if (history != null && history.append(userId, change)) {
+            history.checkpoint(checkpoint());
+        }
+        return true;
+    }
+
+    private boolean applyToBuffer(String userId, CodeChangeMessage change) {
+        String content = change.getContent() != null ? change.getContent() : "";
+        String type = change.getType() != null ? change.getType() : "REPLACE";
+
+        Integer lineNumber = change.getLineNumber();
+        if ("REPLACE".equals(type) && (lineNumber == null || content.contains("\n"))) {
+            userBuffers.put(userId, LineRope.of(content));
+            return true;
+        }
+
+        if (lineNumber == null || lineNumber < 1) {
+            return false;
+        }
+        int lineIndex = lineNumber - 1; // Line numbers are 1-based
+        LineRope buffer = userBuffers.computeIfAbsent(userId, k -> LineRope.empty());
+
+        switch (type) {
+            case "INSERT", "DELETE" -> {
+                if (lineIndex >= buffer.lineCount()
+                        || (change.getBaseLength() != null && change.getBaseLength() != buffer.length())) {
+                    return false;
+                }
+                int column = Math.max(0, Math.min(
+                        change.getPosition() != null ? change.getPosition() : 0,
+                        buffer.line(lineIndex).length()));
+                int offset = buffer.offsetOf(lineIndex) + column;
+                if ("INSERT".equals(type)) {
+                    buffer.replace(offset, 0, content);
+                } else {
+                    buffer.replace(offset, Math.min(content.length(), buffer.length() - offset), "");
+                }
+            }
+            default -> buffer.setLine(lineIndex, content);
+        }
+        return true;
+    }
+
+    public synchronized void replace(String userId, String code) {
+        userBuffers.put(userId, LineRope.of(code));
+        areaRevisions.put(userId, ++revision);
+        lastActivity = System.currentTimeMillis();
+        // There is no change message to replay, the history restarts from here
+        if (history != null) {
+            history.reset(checkpoint());
+        }
+    }
+
+    /**
+     * Consistent copy of all areas together with the revision it corresponds to.
+     */
+    public synchronized CodeSnapshotMessage snapshot() {
+        List<CodeSyncMessage> areas = new ArrayList<>(userBuffers.size());
+        userBuffers.forEach((userId, buffer) -> {
+            CodeSyncMessage area = new CodeSyncMessage();
+            area.setTeamId(teamId);
+            area.setUserId(userId);
+            area.setUserRole(userRoles.getOrDefault(userId, "STUDENT"));
+            area.setCode(buffer.toString());
+            areas.add(area);
+        });
+        return new CodeSnapshotMessage(teamId, revision, areas, epoch);
+    }
+
+    /**
+     * Changes a client at {@code since} of {@code sinceEpoch} is missing, in revision order,
+     * or null if they are no longer kept or belong to another epoch and the client needs a full snapshot.
+     */
+    public synchronized List<CodeChangeMessage> changesSince(long sinceEpoch, long since) {
+        if (history == null || sinceEpoch != epoch || since > revision) {
+            // A client ahead of us has seen revisions of a document lost in a restart
+            return null;
+        }
+        return history.changesSince(since);
+    }
+
+    /**
+     * All areas as they were right after {@code at}: the nearest checkpoint with the edits after it replayed.
+     * @return null if the revision is outside of the kept history
+     */
+    public synchronized CodeSnapshotMessage snapshotAt(long at) {
+        if (history == null || at > revision) {
+            return null;
+        }
+        EditHistory.Checkpoint checkpoint = history.checkpointAt(at);
+        if (checkpoint == null) {
+            return null;
+        }
+        TeamDocument replay = restore(teamId, checkpoint.areas());
+        for (EditHistory.Edit edit : history.editsBetween(checkpoint.revision(), at)) {
+            replay.applyToBuffer(edit.userId(), edit.change());
+            if (edit.change().getUserRole() != null) {
+                replay.userRoles.put(edit.userId(), edit.change().getUserRole());
+            }
+        }
+        replay.revision = at;
+        CodeSnapshotMessage snapshot = replay.snapshot();
+        snapshot.setEpoch(epoch);
+        return snapshot;
+    }
+
+    /**
+     * Range of revisions that can be replayed with {@link #snapshotAt(long)}
+     */
+    public synchronized EditTimelineDTO timeline() {
+        return EditTimelineDTO.builder()
+                .teamId(teamId)
+                .firstRevision(history != null ? history.firstRevision() : revision)
+                .revision(revision)
+                .checkpointRevisions(history != null ? history.checkpointRevisions() : List.of(revision))
+                .build();
+    }
+
+    private EditHistory.Checkpoint checkpoint() {
+        List<Area> areas = new ArrayList<>(userBuffers.size());
+        userBuffers.forEach((userId, buffer) -> areas.add(new Area(userId, userRoles.getOrDefault(userId, "STUDENT"),
+                buffer.toString(), areaRevisions.getOrDefault(userId, 0L))));
+        return new EditHistory.Checkpoint(revision, areas);
+    }
+
+    /**
+     * Areas changed since the last {@link #markSaved(long)}; an area edited many times is returned once.
+     */
+    public synchronized List<Area> getUnsavedAreas() {
+        List<Area> areas = new ArrayList<>();
+        areaRevisions.forEach((userId, areaRevision) -> {
+            if (areaRevision > savedRevision) {
+                areas.add(new Area(userId, userRoles.getOrDefault(userId, "STUDENT"),
+                        userBuffers.get(userId).toString(), areaRevision));
+            }
+        });
+        return areas;
+    }
+
+    public synchronized void markSaved(long revision) {
+        savedRevision = Math.max(savedRevision, revision);
+    }
+
+    public synchronized boolean hasUnsavedChanges() {
+        return revision > savedRevision;
+    }
+
+    /**
+     * Close the document if everything in it is saved. Callers check {@link #isClosed()} under this
+     * document's monitor before editing, so no edit can land in a document that is being evicted.
+     * @return false if there are unsaved changes and the document stays open
+     */
+    public synchronized boolean closeIfSaved() {
+        if (hasUnsavedChanges()) {
+            return false;
+        }
+        closed = true;
+        return true;
+    }
+
+    /**
+     * Close the document even with unsaved changes, they are dropped
+     */
+    public synchronized void close() {
+        closed = true;
+    }
+
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    public Integer getTeamId() {
+        return teamId;
+    }
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * Time of the last applied edit, in epoch millis
+     */
+    public long getLastActivity() {
+        return lastActivity;
+    }
+
+    public synchronized long getRevision() {
+        return revision;
+    }
+
+    public synchronized String getText(String userId) {
+        LineRope buffer = userBuffers.get(userId);
+        return buffer != null ? buffer.toString() : "";
+    }
+
+    public synchronized Map<String, String> getTexts() {
+        Map<String, String> texts = new LinkedHashMap<>();
+        userBuffers.forEach((userId, buffer) -> texts.put(userId, buffer.toString()));
+        return texts;
+    }
+
+    public synchronized boolean isEmpty() {
+        return userBuffers.isEmpty();
+    }
+}
@@ -0,0 +1,48 @@
+package com.itmo.programmingclub.service.editor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.itmo.programmingclub.model.dto.websocket.UserDictionaryMessage;
+
+/**
+ * Small integer ids of a team's users for binary editor frames.
+ * A user's id and role are sent to a client once (with the dictionary), frames only carry the index.
+ * Indexes are never reused while the team is in memory.
+ */
+public class UserDictionary {
+    private final Map<String, Integer> indexes = new HashMap<>();
+    private final List<UserDictionaryMessage.Entry> entries = new ArrayList<>();
+
+    /**
+     * Give the user an index, or update the role of a known user
+     * @return the new or changed entry, which clients have to learn about, or null if nothing changed
+     */
+    public synchronized UserDictionaryMessage.Entry intern(String userId, String userRole) {
+        Integer index = indexes.get(userId);
+        if (index != null) {
+            if (userRole == null || userRole.equals(entries.get(index).getUserRole())) {
+                return null;
+            }
+            // Role changed (e.g. new elder): the index stays, the entry is announced again
+            UserDictionaryMessage.Entry updated = new UserDictionaryMessage.Entry(index, userId, userRole);
+            entries.set(index, updated);
+            return updated;
+        }
+        UserDictionaryMessage.Entry entry = new UserDictionaryMessage.Entry(entries.size(), userId, userRole);
+        indexes.put(userId, entry.getIndex());
+        entries.add(entry);
+        return entry;
+    }
+
+    public synchronized int indexOf(String userId) {
+        Integer index = indexes.get(userId);
+        return index != null ? index : -1;
+    }
+
+    public synchronized List<UserDictionaryMessage.Entry> getEntries() {
+        return new ArrayList<>(entries);
+    }
+}
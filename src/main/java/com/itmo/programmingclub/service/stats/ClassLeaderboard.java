@@ -0,0 +1,144 @@
+package com.itmo.programmingclub.service.stats;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Teams of one class ordered by tasks solved, then penalty minutes, then team id.
+ * An update reports only the teams whose rank or standing it changed: the moved team
+ * and the teams between its old and new place. Not thread-safe, callers synchronize on the instance.
+ * Versions count from 0 under an epoch, the creation time of the leaderboard in microseconds,
+ * so a client can tell a rebuilt leaderboard from an older state of the same one.
+ */
+public class ClassLeaderboard {
+    private static final Comparator<Standing> ORDER = Comparator.comparingInt(Standing::solved).reversed()
+            .thenComparingLong(Standing::penaltyMinutes)
+            .thenComparing(Standing::teamId);
+
+    private final Integer classId;
+    private final OffsetDateTime classStart;
+    private final long failedAttemptPenaltyMinutes;
+    private final TreeSet<Standing> ranking = new TreeSet<>(ORDER);
+    private final Map<Integer, Standing> byTeam = new HashMap<>();
+    private final long epoch;
+    private long version;
+    private long lastActivity = System.currentTimeMillis();
+
+    public ClassLeaderboard(Integer classId, OffsetDateTime classStart, long failedAttemptPenaltyMinutes) {
+        this.classId = classId;
+        this.classStart = classStart;
+        this.failedAttemptPenaltyMinutes = failedAttemptPenaltyMinutes;
+        Instant now = Instant.now();
+        this.epoch = now.getEpochSecond() * 1_000_000 + now.getNano() / 1_000;
+    }
+
+    /**
+     * @param penaltyMinutes minutes from the class start to each solve, plus a fixed penalty per failed attempt before it
+     */
+    public record Standing(Integer teamId, int solved, long penaltyMinutes, OffsetDateTime lastSolvedAt) {
+    }
+
+    public record Ranked(int rank, Standing standing) {
+    }
+
+    /**
+     * Replace the standing of a team, adding the team if it isn't ranked yet
+     * @return ranked teams whose rank or standing changed, best first; empty when nothing did
+     */
+    public List<Ranked> update(Standing standing) {
+        lastActivity = System.currentTimeMillis();
+        Standing old = byTeam.get(standing.teamId());
+        if (standing.equals(old)) {
+            return List.of();
+        }
+
+        // Only the places between the old and the new position move
+        int oldRank = old != null ? ranking.headSet(old).size() + 1 : ranking.size() + 1;
+        if (old != null) {
+            ranking.remove(old);
+        }
+        ranking.add(standing);
+        byTeam.put(standing.teamId(), standing);
+        int newRank = ranking.headSet(standing).size() + 1;
+        version++;
+
+        int from = Math.min(oldRank, newRank);
+        int to = Math.max(oldRank, newRank);
+        List<Ranked> changed = new ArrayList<>();
+        int rank = 0;
+        for (Standing current : ranking) {
+            rank++;
+            if (rank > to) {
+                break;
+            }
+            if (rank >= from) {
+                changed.add(new Ranked(rank, current));
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Standing of a team from the class's counters: every solved task adds the minutes from the class start
+     * to the solve and {@code failedAttemptPenaltyMinutes} for each failed attempt before it
+     */
+    public Standing standingOf(ClassStats stats, Integer teamId) {
+        int solved = 0;
+        long penaltyMinutes = 0;
+        OffsetDateTime lastSolvedAt = null;
+        synchronized (stats) {
+            for (Map.Entry<ClassStats.TeamTask, ClassStats.TeamTaskStats> entry : stats.getTeamTasks().entrySet()) {
+                ClassStats.TeamTaskStats teamTask = entry.getValue();
+                if (!entry.getKey().teamId().equals(teamId) || teamTask.getSolvedAt() == null) {
+                    continue;
+                }
+                solved++;
+                penaltyMinutes += Math.max(0, Duration.between(classStart, teamTask.getSolvedAt()).toMinutes())
+                        + teamTask.getFailedBeforeSolve() * failedAttemptPenaltyMinutes;
+                if (lastSolvedAt == null || teamTask.getSolvedAt().isAfter(lastSolvedAt)) {
+                    lastSolvedAt = teamTask.getSolvedAt();
+                }
+            }
+        }
+        return new Standing(teamId, solved, penaltyMinutes, lastSolvedAt);
+    }
+
+    public List<Ranked> getRanking() {
+        List<Ranked> ranked = new ArrayList<>(ranking.size());
+        int rank = 0;
+        for (Standing standing : ranking) {
+            ranked.add(new Ranked(++rank, standing));
+        }
+        return ranked;
+    }
+
+    public Integer getClassId() {
+        return classId;
+    }
+
+    public OffsetDateTime getClassStart() {
+        return classStart;
+    }
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * Number of updates so far; every message sent for the leaderboard carries the epoch and version it reflects
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public long getLastActivity() {
+        return lastActivity;
+    }
+}
@@ -0,0 +1,298 @@
+package com.itmo.programmingclub.service.stats;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.itmo.programmingclub.model.entity.ClassTaskStats;
+import com.itmo.programmingclub.model.entity.ClassTeamTaskStats;
+import com.itmo.programmingclub.model.entity.Submission;
+
+/**
+ * Solve counters of one class, updated one verdict at a time.
+ * Keeps what changed since the last save so only those rows are written, as increments of the saved counters:
+ * nodes of a cluster counting verdicts of the same class add up instead of overwriting each other.
+ * Not thread-safe, callers synchronize on the instance.
+ */
+public class ClassStats {
+    private final Integer classId;
+    private final Map<Integer, TaskStats> tasks = new HashMap<>();
+    private final Map<TeamTask, TeamTaskStats> teamTasks = new HashMap<>();
+    private final Set<Integer> dirtyTasks = new HashSet<>();
+    private final Set<TeamTask> dirtyTeamTasks = new HashSet<>();
+    private long lastActivity = System.currentTimeMillis();
+
+    public ClassStats(Integer classId) {
+        this.classId = classId;
+    }
+
+    public record TeamTask(Integer teamId, Integer taskId) {
+    }
+
+    /**
+     * Counters of one task over all teams of the class
+     */
+    public static final class TaskStats {
+        private final Integer taskId;
+        private int attempts;
+        private int okVerdicts;
+        private int solvedTeams;
+        private OffsetDateTime firstOkAt;
+        private final LatencyHistogram latency;
+        private OffsetDateTime updatedAt;
+        // Counters as of the last save
+        private int savedAttempts;
+        private int savedOkVerdicts;
+        private int[] savedLatency;
+
+        private TaskStats(Integer taskId, LatencyHistogram latency) {
+            this.taskId = taskId;
+            this.latency = latency;
+            this.savedLatency = latency.toArray();
+        }
+
+        public Integer getTaskId() {
+            return taskId;
+        }
+
+        public int getAttempts() {
+            return attempts;
+        }
+
+        public int getOkVerdicts() {
+            return okVerdicts;
+        }
+
+        public int getSolvedTeams() {
+            return solvedTeams;
+        }
+
+        public OffsetDateTime getFirstOkAt() {
+            return firstOkAt;
+        }
+
+        public Long getMedianLatencyMs() {
+            return latency.medianMs();
+        }
+    }
+
+    /**
+     * Attempts of one team on one task
+     */
+    public static final class TeamTaskStats {
+        private int attempts;
+        private int failedBeforeSolve;
+        private OffsetDateTime solvedAt;
+        private OffsetDateTime updatedAt;
+        // Counters as of the last save
+        private int savedAttempts;
+        private int savedFailedBeforeSolve;
+
+        public int getAttempts() {
+            return attempts;
+        }
+
+        public int getFailedBeforeSolve() {
+            return failedBeforeSolve;
+        }
+
+        public OffsetDateTime getSolvedAt() {
+            return solvedAt;
+        }
+    }
+
+    public static ClassStats restore(Integer classId, Collection<ClassTaskStats> taskRows,
+                                     Collection<ClassTeamTaskStats> teamTaskRows) {
+        ClassStats stats = new ClassStats(classId);
+        for (ClassTaskStats row : taskRows) {
+            TaskStats task = new TaskStats(row.getId().getTaskId(), LatencyHistogram.from(row.getLatencyHistogram()));
+            task.attempts = row.getAttempts();
+            task.okVerdicts = row.getOkVerdicts();
+            task.savedAttempts = task.attempts;
+            task.savedOkVerdicts = task.okVerdicts;
+            task.firstOkAt = row.getFirstOkAt();
+            task.updatedAt = row.getUpdatedAt();
+            stats.tasks.put(task.taskId, task);
+        }
+        for (ClassTeamTaskStats row : teamTaskRows) {
+            TeamTaskStats teamTask = new TeamTaskStats();
+            teamTask.attempts = row.getAttempts();
+            teamTask.failedBeforeSolve = row.getFailedBeforeSolve();
+            teamTask.savedAttempts = teamTask.attempts;
+            teamTask.savedFailedBeforeSolve = teamTask.failedBeforeSolve;
+            teamTask.solvedAt = row.getSolvedAt();
+            teamTask.updatedAt = row.getUpdatedAt();
+            stats.teamTasks.put(new TeamTask(row.getId().getTeamId(), row.getId().getTaskId()), teamTask);
+            if (teamTask.solvedAt != null) {
+                stats.tasks.computeIfAbsent(row.getId().getTaskId(), id -> new TaskStats(id, new LatencyHistogram()))
+                        .solvedTeams++;
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * Count one verdict; a team's task counts as solved at its first OK, later verdicts only add attempts
+     * @return the updated counters of the task
+     */
+    public TaskStats apply(Integer teamId, Integer taskId, Submission.SubmissionStatus status,
+                           Duration latency, OffsetDateTime time) {
+        lastActivity = System.currentTimeMillis();
+        TaskStats task = tasks.computeIfAbsent(taskId, id -> new TaskStats(id, new LatencyHistogram()));
+        TeamTask key = new TeamTask(teamId, taskId);
+        TeamTaskStats teamTask = teamTasks.computeIfAbsent(key, k -> new TeamTaskStats());
+        boolean ok = status == Submission.SubmissionStatus.OK;
+
+        task.attempts++;
+        teamTask.attempts++;
+        if (latency != null) {
+            task.latency.record(latency);
+        }
+        if (ok) {
+            task.okVerdicts++;
+            if (task.firstOkAt == null || time.isBefore(task.firstOkAt)) {
+                task.firstOkAt = time;
+            }
+            if (teamTask.solvedAt == null) {
+                teamTask.solvedAt = time;
+                task.solvedTeams++;
+            }
+        } else if (teamTask.solvedAt == null) {
+            teamTask.failedBeforeSolve++;
+        }
+        task.updatedAt = time;
+        teamTask.updatedAt = time;
+        dirtyTasks.add(taskId);
+        dirtyTeamTasks.add(key);
+        return task;
+    }
+
+    /**
+     * Count a verdict another node has counted and saves: counters change as in {@link #apply}, but the saved
+     * counters move with them, so this instance never writes the verdict
+     * @return the updated counters of the task
+     */
+    public TaskStats applySaved(Integer teamId, Integer taskId, Submission.SubmissionStatus status,
+                                Duration latency, OffsetDateTime time) {
+        TeamTask key = new TeamTask(teamId, taskId);
+        boolean taskDirty = dirtyTasks.contains(taskId);
+        boolean teamTaskDirty = dirtyTeamTasks.contains(key);
+        TaskStats taskBefore = tasks.get(taskId);
+        int[] latencyBefore = taskBefore != null ? taskBefore.latency.toArray() : new int[LatencyHistogram.BUCKETS];
+        TeamTaskStats teamTaskBefore = teamTasks.get(key);
+        int failedBefore = teamTaskBefore != null ? teamTaskBefore.failedBeforeSolve : 0;
+
+        TaskStats task = apply(teamId, taskId, status, latency, time);
+        TeamTaskStats teamTask = teamTasks.get(key);
+        task.savedAttempts++;
+        if (status == Submission.SubmissionStatus.OK) {
+            task.savedOkVerdicts++;
+        }
+        int[] latencyAfter = task.latency.toArray();
+        int[] savedLatency = task.savedLatency.clone();
+        for (int i = 0; i < savedLatency.length; i++) {
+            savedLatency[i] += latencyAfter[i] - latencyBefore[i];
+        }
+        task.savedLatency = savedLatency;
+        teamTask.savedAttempts++;
+        teamTask.savedFailedBeforeSolve += teamTask.failedBeforeSolve - failedBefore;
+        if (!taskDirty) {
+            dirtyTasks.remove(taskId);
+        }
+        if (!teamTaskDirty) {
+            dirtyTeamTasks.remove(key);
+        }
+        return task;
+    }
+
+    public Integer getClassId() {
+        return classId;
+    }
+
+    public Collection<TaskStats> getTasks() {
+        return tasks.values();
+    }
+
+    public Map<TeamTask, TeamTaskStats> getTeamTasks() {
+        return teamTasks;
+    }
+
+    public long getLastActivity() {
+        return lastActivity;
+    }
+
+    public boolean isDirty() {
+        return !dirtyTasks.isEmpty() || !dirtyTeamTasks.isEmpty();
+    }
+
+    /**
+     * Rows changed since the last call, counting only what was added since then; first OK, solve and update times
+     * are the current ones. The rows stay clean unless {@link #markUnsaved} gives them back
+     */
+    public Unsaved takeUnsaved() {
+        List<ClassTaskStats> taskRows = new ArrayList<>();
+        for (Integer taskId : dirtyTasks) {
+            TaskStats task = tasks.get(taskId);
+            int[] latency = task.latency.toArray();
+            int[] latencyDelta = new int[latency.length];
+            for (int i = 0; i < latency.length; i++) {
+                latencyDelta[i] = latency[i] - task.savedLatency[i];
+            }
+            taskRows.add(new ClassTaskStats(new ClassTaskStats.ClassTaskStatsId(classId, taskId),
+                    task.attempts - task.savedAttempts, task.okVerdicts - task.savedOkVerdicts, task.firstOkAt,
+                    latencyDelta, task.updatedAt));
+            task.savedAttempts = task.attempts;
+            task.savedOkVerdicts = task.okVerdicts;
+            task.savedLatency = latency;
+        }
+        List<ClassTeamTaskStats> teamTaskRows = new ArrayList<>();
+        for (TeamTask key : dirtyTeamTasks) {
+            TeamTaskStats teamTask = teamTasks.get(key);
+            teamTaskRows.add(new ClassTeamTaskStats(
+                    new ClassTeamTaskStats.ClassTeamTaskStatsId(classId, key.teamId(), key.taskId()),
+                    teamTask.attempts - teamTask.savedAttempts,
+                    teamTask.failedBeforeSolve - teamTask.savedFailedBeforeSolve,
+                    teamTask.solvedAt, teamTask.updatedAt));
+            teamTask.savedAttempts = teamTask.attempts;
+            teamTask.savedFailedBeforeSolve = teamTask.failedBeforeSolve;
+        }
+        Unsaved unsaved = new Unsaved(new HashSet<>(dirtyTasks), new HashSet<>(dirtyTeamTasks), taskRows, teamTaskRows);
+        dirtyTasks.clear();
+        dirtyTeamTasks.clear();
+        return unsaved;
+    }
+
+    /**
+     * Mark rows taken by {@link #takeUnsaved} as changed again after a failed save, their increments
+     * are added to the next ones
+     */
+    public void markUnsaved(Unsaved unsaved) {
+        for (ClassTaskStats row : unsaved.taskRows()) {
+            TaskStats task = tasks.get(row.getId().getTaskId());
+            task.savedAttempts -= row.getAttempts();
+            task.savedOkVerdicts -= row.getOkVerdicts();
+            int[] savedLatency = task.savedLatency.clone();
+            for (int i = 0; i < savedLatency.length; i++) {
+                savedLatency[i] -= row.getLatencyHistogram()[i];
+            }
+            task.savedLatency = savedLatency;
+        }
+        for (ClassTeamTaskStats row : unsaved.teamTaskRows()) {
+            TeamTaskStats teamTask = teamTasks.get(new TeamTask(row.getId().getTeamId(), row.getId().getTaskId()));
+            teamTask.savedAttempts -= row.getAttempts();
+            teamTask.savedFailedBeforeSolve -= row.getFailedBeforeSolve();
+        }
+        dirtyTasks.addAll(unsaved.taskIds());
+        dirtyTeamTasks.addAll(unsaved.teamTasks());
+    }
+
+    public record Unsaved(Set<Integer> taskIds, Set<TeamTask> teamTasks,
+                          List<ClassTaskStats> taskRows, List<ClassTeamTaskStats> teamTaskRows) {
+    }
+}
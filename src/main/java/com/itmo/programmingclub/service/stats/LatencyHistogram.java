@@ -0,0 +1,80 @@
+package com.itmo.programmingclub.service.stats;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Verdict latencies counted in buckets whose bounds grow by a quarter from 50 ms up to about five minutes,
+ * so the median is known to within one bucket from a fixed 40 counters however many verdicts a class has.
+ * Not thread-safe, guarded by the owning {@link ClassStats}.
+ */
+public final class LatencyHistogram {
+    public static final int BUCKETS = 40;
+
+    private static final double FIRST_BOUND_MS = 50;
+    private static final double GROWTH = 1.25;
+
+    private final int[] counts;
+    private long total;
+
+    public LatencyHistogram() {
+        this(new int[BUCKETS]);
+    }
+
+    private LatencyHistogram(int[] counts) {
+        this.counts = counts;
+        this.total = Arrays.stream(counts).asLongStream().sum();
+    }
+
+    /**
+     * Histogram from saved counts; a saved array of another length is resized, its extra tail added to the last bucket
+     */
+    public static LatencyHistogram from(int[] saved) {
+        int[] counts = new int[BUCKETS];
+        if (saved != null) {
+            for (int i = 0; i < saved.length; i++) {
+                counts[Math.min(i, BUCKETS - 1)] += saved[i];
+            }
+        }
+        return new LatencyHistogram(counts);
+    }
+
+    public void record(Duration latency) {
+        counts[bucketOf(latency.toMillis())]++;
+        total++;
+    }
+
+    /**
+     * Upper bound of the bucket holding the median latency in milliseconds, null before the first verdict
+     */
+    public Long medianMs() {
+        if (total == 0) {
+            return null;
+        }
+        long rank = (total + 1) / 2;
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.round(upperBoundMs(i));
+            }
+        }
+        return Math.round(upperBoundMs(BUCKETS - 1));
+    }
+
+    public int[] toArray() {
+        return counts.clone();
+    }
+
+    private static int bucketOf(long ms) {
+        if (ms <= FIRST_BOUND_MS) {
+            return 0;
+        }
+        int bucket = (int) Math.ceil(Math.log(ms / FIRST_BOUND_MS) / Math.log(GROWTH));
+        return Math.min(bucket, BUCKETS - 1);
+    }
+
+    private static double upperBoundMs(int bucket) {
+        return FIRST_BOUND_MS * Math.pow(GROWTH, bucket);
+    }
+}
@@ -0,0 +1,11 @@
+-- Last saved code of every editor area (one row per team member)
+CREATE TABLE team_code
+(
+    team_id    INTEGER     NOT NULL REFERENCES team (id) ON DELETE CASCADE,
+    username   VARCHAR(50) NOT NULL,
+    user_role  VARCHAR(50) NOT NULL,
+    code       TEXT        NOT NULL,
+    revision   BIGINT      NOT NULL,
+    updated_at TIMESTAMPTZ NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (team_id, username)
+);
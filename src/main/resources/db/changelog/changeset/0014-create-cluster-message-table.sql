@@ -0,0 +1,7 @@
+-- Batches of relayed STOMP messages too large for a NOTIFY payload (8000 bytes)
+CREATE TABLE cluster_message
+(
+    id         BIGSERIAL PRIMARY KEY,
+    payload    TEXT        NOT NULL,
+    created_at TIMESTAMPTZ NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
@@ -0,0 +1,71 @@
+-- Live state of every team, maintained from events by TeamStateService
+CREATE TABLE team_state
+(
+    team_id                    INTEGER     NOT NULL PRIMARY KEY REFERENCES team (id) ON DELETE CASCADE,
+    blocked                    BOOLEAN     NOT NULL DEFAULT false,
+    hand_raised                BOOLEAN     NOT NULL DEFAULT false,
+    selected_task_id           INTEGER REFERENCES task (id) ON DELETE SET NULL,
+    last_verdict               VARCHAR(50),
+    last_verdict_submission_id INTEGER REFERENCES submission (id) ON DELETE SET NULL,
+    updated_at                 TIMESTAMPTZ NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Curators currently joined to a team
+CREATE TABLE team_state_curator
+(
+    team_id      INTEGER NOT NULL REFERENCES team_state (team_id) ON DELETE CASCADE,
+    user_role_id INTEGER NOT NULL REFERENCES user_role (id) ON DELETE CASCADE,
+    PRIMARY KEY (team_id, user_role_id)
+);
+
+-- Backfill from the events recorded so far
+INSERT INTO team_state (team_id)
+SELECT DISTINCT team_id
+FROM app_event
+WHERE team_id IS NOT NULL;
+
+UPDATE team_state s
+SET blocked = (last.type = 'CURATOR_BLOCKED_TEAM')
+FROM (SELECT DISTINCT ON (team_id) team_id, type
+      FROM app_event
+      WHERE type IN ('CURATOR_BLOCKED_TEAM', 'CURATOR_UNBLOCKED_TEAM')
+      ORDER BY team_id, time DESC, id DESC) last
+WHERE s.team_id = last.team_id;
+
+UPDATE team_state s
+SET hand_raised = (last.type = 'TEAM_RAISED_HAND')
+FROM (SELECT DISTINCT ON (team_id) team_id, type
+      FROM app_event
+      WHERE type IN ('TEAM_RAISED_HAND', 'TEAM_LOWERED_HAND')
+      ORDER BY team_id, time DESC, id DESC) last
+WHERE s.team_id = last.team_id;
+
+UPDATE team_state s
+SET selected_task_id = last.task_id
+FROM (SELECT DISTINCT ON (team_id) team_id, task_id
+      FROM app_event
+      WHERE type = 'TEAM_BEGAN_TO_COMPLETE_TASK'
+        AND task_id IS NOT NULL
+      ORDER BY team_id, time DESC, id DESC) last
+WHERE s.team_id = last.team_id;
+
+UPDATE team_state s
+SET last_verdict               = sub.status,
+    last_verdict_submission_id = sub.id
+FROM (SELECT DISTINCT ON (team_id) team_id, submission_id
+      FROM app_event
+      WHERE type = 'RESULT_OF_SOLUTION'
+        AND submission_id IS NOT NULL
+      ORDER BY team_id, time DESC, id DESC) last
+         JOIN submission sub ON sub.id = last.submission_id
+WHERE s.team_id = last.team_id;
+
+INSERT INTO team_state_curator (team_id, user_role_id)
+SELECT team_id, user_role_id
+FROM (SELECT DISTINCT ON (team_id, user_role_id) team_id, user_role_id, type
+      FROM app_event
+      WHERE type IN ('CURATOR_JOINED_TEAM', 'CURATOR_LEFT_TEAM')
+        AND team_id IS NOT NULL
+        AND user_role_id IS NOT NULL
+      ORDER BY team_id, user_role_id, time DESC, id DESC) last
+WHERE last.type = 'CURATOR_JOINED_TEAM';
@@ -0,0 +1,70 @@
+-- Monthly range partitions of app_event on time, maintained and archived by EventPartitionService
+ALTER TABLE app_event RENAME TO app_event_legacy;
+ALTER TABLE app_event_legacy RENAME CONSTRAINT app_event_pkey TO app_event_legacy_pkey;
+DROP INDEX idx_event_time;
+
+-- The partition key must be part of the primary key
+CREATE TABLE app_event
+(
+    id            INTEGER     NOT NULL DEFAULT nextval('app_event_id_seq'),
+    time          TIMESTAMPTZ NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    type          VARCHAR(50) NOT NULL CHECK (type in ('TEAM_RAISED_HAND', 'TEAM_LOWERED_HAND', 'CURATOR_JOINED_TEAM',
+                                                       'CURATOR_LEFT_TEAM', 'CURATOR_JOINED_CLASS',
+                                                       'CURATOR_LEFT_CLASS', 'STUDENT_JOINED_CLASS',
+                                                       'STUDENT_LEFT_CLASS', 'TEAM_SENT_SOLUTION', 'RESULT_OF_SOLUTION',
+                                                       'TEAM_BEGAN_TO_COMPLETE_TASK')),
+    team_id       INTEGER REFERENCES team (id) ON DELETE CASCADE,
+    user_role_id  INTEGER REFERENCES user_role (id) ON DELETE CASCADE,
+    submission_id INTEGER REFERENCES submission (id) ON DELETE CASCADE,
+    class_id      INTEGER REFERENCES app_class (id) ON DELETE CASCADE,
+    task_id       INTEGER REFERENCES task (id) ON DELETE CASCADE,
+    PRIMARY KEY (id, time)
+) PARTITION BY RANGE (time);
+
+ALTER SEQUENCE app_event_id_seq OWNED BY app_event.id;
+
+-- Created on the parent, so every partition gets its own copy
+CREATE INDEX idx_event_time ON app_event (time);
+CREATE INDEX idx_event_class_time ON app_event (class_id, time DESC);
+CREATE INDEX idx_event_team_time ON app_event (team_id, time DESC);
+
+-- Partition app_event_yYYYYmMM holding the UTC month that contains p_month, if it doesn't exist yet.
+-- Bounds are explicit UTC instants, so they don't depend on the time zone of the session creating the partition
+CREATE OR REPLACE FUNCTION create_app_event_partition(p_month DATE)
+RETURNS TEXT AS $$
+DECLARE
+    v_from DATE := date_trunc('month', p_month)::DATE;
+    v_name TEXT := 'app_event_' || to_char(v_from, '"y"YYYY"m"MM');
+BEGIN
+    EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF app_event FOR VALUES FROM (%L) TO (%L)',
+                   v_name, v_from::TIMESTAMP AT TIME ZONE 'UTC',
+                   (v_from + INTERVAL '1 month')::TIMESTAMP AT TIME ZONE 'UTC');
+RETURN v_name;
+END;
+$$ LANGUAGE plpgsql;
+
+-- One partition per UTC month from the oldest event up to two months ahead
+DO $$
+DECLARE
+    v_month DATE := date_trunc('month', COALESCE((SELECT min(time) FROM app_event_legacy), CURRENT_TIMESTAMP)
+                                        AT TIME ZONE 'UTC')::DATE;
+BEGIN
+    WHILE v_month <= (date_trunc('month', CURRENT_TIMESTAMP AT TIME ZONE 'UTC') + INTERVAL '2 months')::DATE LOOP
+        PERFORM create_app_event_partition(v_month);
+        v_month := (v_month + INTERVAL '1 month')::DATE;
+END LOOP;
+END;
+$$;
+
+-- Catches rows outside the created months until the maintenance job adds their partition
+CREATE TABLE app_event_default PARTITION OF app_event DEFAULT;
+
+INSERT INTO app_event (id, time, type, team_id, user_role_id, submission_id, class_id, task_id)
+SELECT id, time, type, team_id, user_role_id, submission_id, class_id, task_id
+FROM app_event_legacy;
+
+DROP TABLE app_event_legacy;
+
+CREATE OR REPLACE TRIGGER check_event_constraints
+BEFORE INSERT OR UPDATE ON app_event
+                               FOR EACH ROW EXECUTE FUNCTION check_event_constraints();
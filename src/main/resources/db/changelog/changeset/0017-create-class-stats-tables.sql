@@ -0,0 +1,78 @@
+-- Solve statistics of every task of a class, written behind by ClassStatsService
+CREATE TABLE class_task_stats
+(
+    class_id          INTEGER     NOT NULL REFERENCES app_class (id) ON DELETE CASCADE,
+    task_id           INTEGER     NOT NULL REFERENCES task (id) ON DELETE CASCADE,
+    attempts          INTEGER     NOT NULL DEFAULT 0,
+    ok_verdicts       INTEGER     NOT NULL DEFAULT 0,
+    first_ok_at       TIMESTAMPTZ,
+    -- Verdict latencies counted in LatencyHistogram buckets
+    latency_histogram INTEGER[]   NOT NULL DEFAULT '{}',
+    updated_at        TIMESTAMPTZ NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (class_id, task_id)
+);
+
+-- Attempts and first solve of every team on every task it tried
+CREATE TABLE class_team_task_stats
+(
+    class_id            INTEGER     NOT NULL REFERENCES app_class (id) ON DELETE CASCADE,
+    team_id             INTEGER     NOT NULL REFERENCES team (id) ON DELETE CASCADE,
+    task_id             INTEGER     NOT NULL REFERENCES task (id) ON DELETE CASCADE,
+    attempts            INTEGER     NOT NULL DEFAULT 0,
+    failed_before_solve INTEGER     NOT NULL DEFAULT 0,
+    solved_at           TIMESTAMPTZ,
+    updated_at          TIMESTAMPTZ NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (class_id, team_id, task_id)
+);
+
+-- Backfill from the verdicts recorded so far, one RESULT_OF_SOLUTION event per verdict.
+-- Latencies go into the buckets of LatencyHistogram: 50 ms and below in the first, bounds growing by a quarter
+CREATE TEMPORARY VIEW class_verdict AS
+SELECT e.class_id,
+       e.team_id,
+       sub.task_id,
+       sub.status,
+       e.time,
+       LEAST(39, ceil(ln(GREATEST(floor(extract(EPOCH FROM sub.complition_time) * 1000), 50) / 50) / ln(1.25)))::INTEGER
+           AS latency_bucket,
+       min(e.time) FILTER (WHERE sub.status = 'OK') OVER (PARTITION BY e.class_id, e.team_id, sub.task_id) AS solved_at
+FROM app_event e
+         JOIN submission sub ON sub.id = e.submission_id
+WHERE e.type = 'RESULT_OF_SOLUTION'
+  AND e.class_id IS NOT NULL
+  AND e.team_id IS NOT NULL;
+
+WITH latency AS (SELECT class_id, task_id, latency_bucket, count(*) AS verdicts
+                 FROM class_verdict
+                 GROUP BY class_id, task_id, latency_bucket),
+     histogram AS (SELECT t.class_id, t.task_id,
+                          array_agg(COALESCE(l.verdicts, 0)::INTEGER ORDER BY bucket) AS latency_histogram
+                   FROM (SELECT DISTINCT class_id, task_id FROM latency) t
+                            CROSS JOIN generate_series(0, 39) bucket
+                            LEFT JOIN latency l ON l.class_id = t.class_id AND l.task_id = t.task_id
+                                                   AND l.latency_bucket = bucket
+                   GROUP BY t.class_id, t.task_id)
+INSERT INTO class_task_stats (class_id, task_id, attempts, ok_verdicts, first_ok_at, latency_histogram, updated_at)
+SELECT v.class_id,
+       v.task_id,
+       count(*),
+       count(*) FILTER (WHERE v.status = 'OK'),
+       min(v.time) FILTER (WHERE v.status = 'OK'),
+       h.latency_histogram,
+       max(v.time)
+FROM class_verdict v
+         JOIN histogram h ON h.class_id = v.class_id AND h.task_id = v.task_id
+GROUP BY v.class_id, v.task_id, h.latency_histogram;
+
+INSERT INTO class_team_task_stats (class_id, team_id, task_id, attempts, failed_before_solve, solved_at, updated_at)
+SELECT class_id,
+       team_id,
+       task_id,
+       count(*),
+       count(*) FILTER (WHERE status <> 'OK' AND (solved_at IS NULL OR time < solved_at)),
+       min(solved_at),
+       max(time)
+FROM class_verdict
+GROUP BY class_id, team_id, task_id;
+
+DROP VIEW class_verdict;
@@ -0,0 +1,7 @@
+-- Node holding the in-memory editor state of a team when the application runs as a cluster
+CREATE TABLE editor_team_owner
+(
+    team_id    INTEGER     NOT NULL PRIMARY KEY REFERENCES team (id) ON DELETE CASCADE,
+    node_id    VARCHAR(36) NOT NULL,
+    expires_at TIMESTAMPTZ NOT NULL
+);
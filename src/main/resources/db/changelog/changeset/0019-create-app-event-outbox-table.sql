@@ -0,0 +1,12 @@
+-- Deferred events, written in the transaction that records them and moved to app_event in batches.
+-- No foreign keys or secondary indexes, so the caller's insert stays cheap; app_event checks references when the row is moved
+CREATE TABLE app_event_outbox
+(
+    id            INTEGER     NOT NULL PRIMARY KEY,
+    type          VARCHAR(50) NOT NULL,
+    team_id       INTEGER,
+    user_role_id  INTEGER,
+    submission_id INTEGER,
+    class_id      INTEGER,
+    task_id       INTEGER
+);
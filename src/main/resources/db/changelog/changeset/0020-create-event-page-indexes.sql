@@ -0,0 +1,8 @@
+-- Keyset pages of the event log are ordered by (time DESC, id DESC), id breaking ties between events of the same instant.
+-- Indexes ending in id serve them without a sort and replace the (time) and (class_id, time) indexes of 0016,
+-- which they cover: the oldest-first export scans them backwards
+CREATE INDEX idx_event_time_id ON app_event (time DESC, id DESC);
+CREATE INDEX idx_event_class_time_id ON app_event (class_id, time DESC, id DESC);
+
+DROP INDEX idx_event_time;
+DROP INDEX idx_event_class_time;
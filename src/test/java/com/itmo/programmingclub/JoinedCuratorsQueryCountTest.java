@@ -0,0 +1,109 @@
+package com.itmo.programmingclub;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Joined curators of a team must cost a fixed number of queries, however many curators visited the team.
+ * Runs against the real repositories and counts the JDBC statements Hibernate prepares; seeded rows are rolled back.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+@Transactional
+public class JoinedCuratorsQueryCountTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    @WithMockUser(username = "curator", roles = "CURATOR")
+    void joinedCuratorsTakeTheSameQueriesRegardlessOfCuratorCount() throws Exception {
+        Map<Integer, Integer> teamsByCuratorCount = new LinkedHashMap<>();
+        for (int curators : new int[]{1, 10, 100}) {
+            teamsByCuratorCount.put(curators, seedTeam(curators));
+        }
+
+        Map<Integer, Long> firstReadStatements = new LinkedHashMap<>();
+        for (Map.Entry<Integer, Integer> team : teamsByCuratorCount.entrySet()) {
+            firstReadStatements.put(team.getKey(), statementsOf(team.getValue(), team.getKey()));
+            // Later reads are served from memory
+            assertEquals(0, statementsOf(team.getValue(), team.getKey()),
+                    "repeated read of a team with " + team.getKey() + " curators");
+        }
+
+        long oneCurator = firstReadStatements.get(1);
+        assertTrue(oneCurator > 0, "the first read must load the team state");
+        firstReadStatements.forEach((curators, statements) ->
+                assertEquals(oneCurator, statements, "first read of a team with " + curators + " curators"));
+    }
+
+    private long statementsOf(Integer teamId, int curators) throws Exception {
+        statistics.clear();
+        mockMvc.perform(get("/api/class-session/team/" + teamId + "/joined-curators"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(curators)));
+        return statistics.getPrepareStatementCount();
+    }
+
+    /**
+     * A team whose state lists {@code curators} joined curators
+     */
+    private Integer seedTeam(int curators) {
+        jdbcTemplate.update("INSERT INTO app_role (role) SELECT 'CURATOR' WHERE NOT EXISTS (SELECT 1 FROM app_role WHERE role = 'CURATOR')");
+        Integer roleId = jdbcTemplate.queryForObject("SELECT min(id) FROM app_role WHERE role = 'CURATOR'", Integer.class);
+        Integer userId = jdbcTemplate.queryForObject(
+                "INSERT INTO app_user (is_active, username, full_name, password, email) "
+                        + "VALUES (true, ?, 'Query Count', 'query', ?) RETURNING id",
+                Integer.class, "query_count_" + curators, "query.count." + curators + "@example.com");
+        Integer groupId = jdbcTemplate.queryForObject("INSERT INTO app_group DEFAULT VALUES RETURNING id", Integer.class);
+        Integer scheduleId = jdbcTemplate.queryForObject(
+                "INSERT INTO schedule (class_start_time, class_end_time, day_of_week, group_id) "
+                        + "VALUES ('10:00', '12:00', 'MONDAY', ?) RETURNING id",
+                Integer.class, groupId);
+        Integer classId = jdbcTemplate.queryForObject(
+                "INSERT INTO app_class (schedule_id, class_date) VALUES (?, CURRENT_DATE) RETURNING id",
+                Integer.class, scheduleId);
+        Integer teamId = jdbcTemplate.queryForObject(
+                "INSERT INTO team (class_id, elder_id) VALUES (?, ?) RETURNING id", Integer.class, classId, userId);
+        jdbcTemplate.update("INSERT INTO team_state (team_id) VALUES (?)", teamId);
+        jdbcTemplate.update("""
+                WITH curator AS (
+                    INSERT INTO user_role (role_id, user_id) SELECT ?, ? FROM generate_series(1, ?) RETURNING id
+                )
+                INSERT INTO team_state_curator (team_id, user_role_id) SELECT ?, id FROM curator
+                """, roleId, userId, curators, teamId);
+        return teamId;
+    }
+}
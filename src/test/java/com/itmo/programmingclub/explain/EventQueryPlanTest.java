@@ -0,0 +1,215 @@
+package com.itmo.programmingclub.explain;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.itmo.programmingclub.model.dto.EventCursor;
+import com.itmo.programmingclub.repository.EventRepository;
+import com.itmo.programmingclub.repository.EventRepositoryCustomImpl;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Seeds app_event with a few months of a realistic class load and checks with EXPLAIN that every
+ * EventRepository lookup is served by an index scan in the requested order, without a sort step.
+ * Each lookup is run once and the SQL it sent (prepared by Hibernate, or built for the keyset pages)
+ * is explained with the same arguments.
+ * All seeded rows are rolled back. Run with {@code ./gradlew explainTest}, volumes can be changed
+ * with -Dexplain.classes, -Dexplain.teams-per-class and -Dexplain.events-per-team.
+ */
+@Tag("explain")
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.itmo.programmingclub.explain.EventQueryPlanTest$SqlCapture")
+@Transactional
+public class EventQueryPlanTest {
+    private static final int CLASSES = Integer.getInteger("explain.classes", 40);
+    private static final int TEAMS_PER_CLASS = Integer.getInteger("explain.teams-per-class", 10);
+    private static final int EVENTS_PER_TEAM = Integer.getInteger("explain.events-per-team", 500);
+    private static final int CURATORS = 20;
+    private static final int MONTHS = 6;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EventRepository eventRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * Remembers every statement Hibernate prepares while {@link #capture} runs a lookup
+     */
+    public static class SqlCapture implements StatementInspector {
+        private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+
+    /**
+     * Remembers the last query of the keyset pages, run on the test's transaction like the repository's own template
+     */
+    private static class PageCapture extends JdbcTemplate {
+        private String sql;
+        private Object[] args;
+
+        PageCapture(DataSource dataSource) {
+            super(dataSource);
+        }
+
+        @Override
+        public <T> List<T> query(String sql, RowMapper<T> rowMapper, Object... args) {
+            this.sql = sql;
+            this.args = args;
+            return super.query(sql, rowMapper, args);
+        }
+    }
+
+    @Test
+    void eventQueriesUseIndexesWithoutSorting() throws Exception {
+        Seed seed = seed();
+        OffsetDateTime now = OffsetDateTime.now();
+
+        assertAll(
+                plan("findByClassEntityId",
+                        capture(() -> eventRepository.findByClassEntityId(seed.classId())),
+                        seed.classId()),
+                plan("findDTOsByClassEntityId",
+                        capture(() -> eventRepository.findDTOsByClassEntityId(seed.classId())),
+                        seed.classId()),
+                plan("findByTimeBetween",
+                        capture(() -> eventRepository.findByTimeBetween(now.minusDays(1), now)),
+                        now.minusDays(1), now),
+                plan("findByClassEntityIdAndTimeBetween",
+                        capture(() -> eventRepository.findByClassEntityIdAndTimeBetween(seed.classId(), now.minusDays(30), now)),
+                        seed.classId(), now.minusDays(30), now),
+                plan("findByTeamId",
+                        capture(() -> eventRepository.findByTeamId(seed.teamId())),
+                        seed.teamId()));
+    }
+
+    @Test
+    void eventPagesUseIndexesWithoutSorting() {
+        Seed seed = seed();
+        OffsetDateTime now = OffsetDateTime.now();
+        PageCapture pages = new PageCapture(dataSource);
+        EventRepositoryCustomImpl repository = new EventRepositoryCustomImpl(pages);
+        List<Executable> plans = new ArrayList<>();
+
+        for (Integer classId : Arrays.asList(seed.classId(), null)) {
+            String scope = classId != null ? "class" : "all";
+            repository.findPage(classId, null, null, null, 51);
+            plans.add(plan("findPage first of " + scope, pages.sql, pages.args));
+            EventCursor after = new EventCursor(now.minusDays(3), Integer.MAX_VALUE);
+            repository.findPage(classId, now.minusDays(30), now, after, 51);
+            plans.add(plan("findPage next of " + scope, pages.sql, pages.args));
+        }
+        assertAll(plans);
+    }
+
+    /**
+     * SQL of the lookup itself: the first statement it prepares, eager associations are loaded after it
+     */
+    private static String capture(Runnable lookup) {
+        SqlCapture.STATEMENTS.clear();
+        lookup.run();
+        assertFalse(SqlCapture.STATEMENTS.isEmpty(), "The lookup did not reach the database");
+        return SqlCapture.STATEMENTS.get(0);
+    }
+
+    private record Seed(int classId, int teamId) {
+    }
+
+    private Seed seed() {
+        jdbcTemplate.update("INSERT INTO app_role (role) SELECT 'CURATOR' WHERE NOT EXISTS (SELECT 1 FROM app_role WHERE role = 'CURATOR')");
+        Integer roleId = jdbcTemplate.queryForObject("SELECT min(id) FROM app_role WHERE role = 'CURATOR'", Integer.class);
+        Integer userId = jdbcTemplate.queryForObject(
+                "INSERT INTO app_user (is_active, username, full_name, password, email) "
+                        + "VALUES (true, 'explain_seed', 'Explain Seed', 'explain', 'explain.seed@example.com') RETURNING id",
+                Integer.class);
+        List<Integer> userRoleIds = jdbcTemplate.queryForList(
+                "INSERT INTO user_role (role_id, user_id) SELECT ?, ? FROM generate_series(1, ?) RETURNING id",
+                Integer.class, roleId, userId, CURATORS);
+        Integer groupId = jdbcTemplate.queryForObject("INSERT INTO app_group DEFAULT VALUES RETURNING id", Integer.class);
+        Integer scheduleId = jdbcTemplate.queryForObject(
+                "INSERT INTO schedule (class_start_time, class_end_time, day_of_week, group_id) "
+                        + "VALUES ('10:00', '12:00', 'MONDAY', ?) RETURNING id",
+                Integer.class, groupId);
+        List<Integer> classIds = jdbcTemplate.queryForList(
+                "INSERT INTO app_class (schedule_id, class_date) "
+                        + "SELECT ?, CURRENT_DATE - d FROM generate_series(0, ? - 1) d RETURNING id",
+                Integer.class, scheduleId, CLASSES);
+        List<Integer> teamIds = jdbcTemplate.queryForList(
+                "INSERT INTO team (class_id, elder_id) "
+                        + "SELECT c.id, ? FROM app_class c, generate_series(1, ?) WHERE c.schedule_id = ? RETURNING id",
+                Integer.class, userId, TEAMS_PER_CLASS, scheduleId);
+        Integer taskId = jdbcTemplate.queryForObject(
+                "INSERT INTO task (condition, author_id) VALUES ('explain', ?) RETURNING id", Integer.class, userId);
+
+        // Past months get their own partitions like in a server that has been running for a while
+        jdbcTemplate.queryForList(
+                "SELECT create_app_event_partition("
+                        + "(date_trunc('month', now() AT TIME ZONE 'UTC') - make_interval(months => m))::date) "
+                        + "FROM generate_series(1, ?) m",
+                String.class, MONTHS);
+        jdbcTemplate.update("""
+                INSERT INTO app_event (time, type, team_id, user_role_id, class_id, task_id)
+                SELECT now() - random() * make_interval(months => ?),
+                       (ARRAY['TEAM_RAISED_HAND', 'TEAM_LOWERED_HAND', 'CURATOR_JOINED_TEAM',
+                              'CURATOR_LEFT_TEAM', 'TEAM_BEGAN_TO_COMPLETE_TASK'])[1 + floor(random() * 5)::int],
+                       t.id, ? + floor(random() * ?)::int, t.class_id, ?
+                FROM team t, generate_series(1, ?)
+                WHERE t.class_id IN (SELECT id FROM app_class WHERE schedule_id = ?)
+                """, MONTHS, userRoleIds.get(0), CURATORS, taskId, EVENTS_PER_TEAM, scheduleId);
+        jdbcTemplate.execute("ANALYZE app_event");
+
+        return new Seed(classIds.get(classIds.size() / 2), teamIds.get(teamIds.size() / 2));
+    }
+
+    private Executable plan(String query, String sql, Object... args) {
+        return () -> {
+            assertEquals(args.length, sql.chars().filter(c -> c == '?').count(), query + " parameters of " + sql);
+            String json = jdbcTemplate.queryForObject("EXPLAIN (FORMAT JSON) " + sql, String.class, args);
+            JsonNode root = objectMapper.readTree(json).get(0).get("Plan");
+            List<String> nodeTypes = new ArrayList<>();
+            collectNodeTypes(root, nodeTypes);
+            String message = query + " plan:\n" + root.toPrettyString();
+
+            assertFalse(nodeTypes.contains("Sort") || nodeTypes.contains("Incremental Sort"), message);
+            assertFalse(nodeTypes.contains("Seq Scan"), message);
+            assertTrue(nodeTypes.contains("Index Scan") || nodeTypes.contains("Index Only Scan"), message);
+        };
+    }
+
+    private static void collectNodeTypes(JsonNode node, List<String> nodeTypes) {
+        nodeTypes.add(node.get("Node Type").asText());
+        JsonNode children = node.get("Plans");
+        if (children != null) {
+            children.forEach(child -> collectNodeTypes(child, nodeTypes));
+        }
+    }
+}
@@ -0,0 +1,416 @@
+package com.itmo.programmingclub.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.itmo.programmingclub.model.entity.User;
+import com.itmo.programmingclub.security.CustomUserDetails;
+import com.itmo.programmingclub.security.CustomUserDetailsService;
+import com.itmo.programmingclub.security.JwtTokenProvider;
+import com.itmo.programmingclub.service.EditorPersistenceService;
+import com.itmo.programmingclub.service.EditorRoleService;
+import com.itmo.programmingclub.service.editor.TeamDocument;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import org.springframework.web.socket.sockjs.client.SockJsClient;
+import org.springframework.web.socket.sockjs.client.WebSocketTransport;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+/**
+ * Headless load generator for the collaborative editor: opens N STOMP sessions per team across M teams,
+ * replays a typing / cursor / lock trace per session and measures how long a code change takes
+ * from being sent to reaching every other session of the team.
+ * <p>
+ * Excluded from {@code test}; run with {@code ./gradlew loadTest}, sized with system properties, e.g.
+ * {@code ./gradlew loadTest -Dload.teams=50 -Dload.sessions-per-team=5 -Dload.duration-seconds=60}.
+ * Code changes have the shape CodeEditor.tsx sends ({@code -Dload.payload=range}: INSERT / DELETE of the edited
+ * range with the area length it was made against); {@code -Dload.payload=replace} sends the whole area per keystroke.
+ * Clients run in the same JVM as the server, so CPU and heap figures include the generator itself.
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        // Measure the editor pipeline itself, not the throttling in front of it
+        "app.websocket.rate-limit.enabled=false"
+})
+public class EditorLoadTest {
+    private static final int TEAMS = Integer.getInteger("load.teams", 20);
+    private static final int SESSIONS_PER_TEAM = Integer.getInteger("load.sessions-per-team", 4);
+    private static final int DURATION_SECONDS = Integer.getInteger("load.duration-seconds", 30);
+    // Average delay between two keystrokes of one simulated user
+    private static final int KEYSTROKE_INTERVAL_MS = Integer.getInteger("load.keystroke-interval-ms", 150);
+    private static final String ENDPOINT = System.getProperty("load.endpoint", "/ws");
+    private static final String PAYLOAD = System.getProperty("load.payload", "range");
+    private static final long MAX_P99_MS = Long.getLong("load.max-p99-ms", 1000);
+    // Teams of the run get ids far from real data, documents are never restored from the database
+    private static final int FIRST_TEAM_ID = 1_000_000;
+
+    @Value("${local.server.port}")
+    private int port;
+
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+
+    @MockitoBean
+    private CustomUserDetailsService userDetailsService;
+
+    @MockitoBean
+    private EditorRoleService editorRoleService;
+
+    @MockitoBean
+    private EditorPersistenceService editorPersistenceService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<StompSession> sessions = new ArrayList<>();
+    private ScheduledExecutorService typists;
+    private WebSocketStompClient stompClient;
+
+    // Map: username -> send time (nanoTime) of the user's n-th code change
+    private final Map<String, AtomicLongArray> sendTimes = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> sentChanges = new ConcurrentHashMap<>();
+    private final LatencyRecorder latencies = new LatencyRecorder();
+    private final LongAdder cursorBatches = new LongAdder();
+    private final LongAdder lockBatches = new LongAdder();
+
+    @AfterEach
+    void tearDown() {
+        if (typists != null) {
+            typists.shutdownNow();
+        }
+        sessions.forEach(session -> {
+            if (session.isConnected()) {
+                session.disconnect();
+            }
+        });
+        if (stompClient != null) {
+            stompClient.stop();
+        }
+    }
+
+    @Test
+    void editorFanOutUnderLoad() throws Exception {
+        when(userDetailsService.loadUserByUsername(anyString()))
+                .thenAnswer(invocation -> userDetails(invocation.getArgument(0)));
+        when(editorRoleService.getRole(any(), any(), anyInt())).thenReturn("STUDENT");
+        when(editorPersistenceService.restore(anyInt()))
+                .thenAnswer(invocation -> new TeamDocument(invocation.getArgument(0)));
+
+        stompClient = new WebSocketStompClient(ENDPOINT.equals("/ws")
+                ? new SockJsClient(List.of(new WebSocketTransport(new StandardWebSocketClient())))
+                : new StandardWebSocketClient());
+        stompClient.setInboundMessageSizeLimit(1024 * 1024);
+
+        int opsPerUser = DURATION_SECONDS * 1000 / KEYSTROKE_INTERVAL_MS * 2 + 16;
+        List<Typist> trace = new ArrayList<>();
+        for (int t = 0; t < TEAMS; t++) {
+            int teamId = FIRST_TEAM_ID + t;
+            for (int s = 0; s < SESSIONS_PER_TEAM; s++) {
+                String username = "load-" + teamId + "-" + s;
+                sendTimes.put(username, new AtomicLongArray(opsPerUser));
+                sentChanges.put(username, new AtomicInteger());
+                StompSession session = connect(teamId, username);
+                sessions.add(session);
+                trace.add(new Typist(session, teamId, username));
+            }
+        }
+        // Subscriptions are asynchronous, let them settle before anybody types
+        Thread.sleep(1000);
+
+        ResourceSampler sampler = new ResourceSampler();
+        typists = Executors.newScheduledThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()));
+        ScheduledFuture<?> sampling = typists.scheduleAtFixedRate(sampler::sample, 0, 500, TimeUnit.MILLISECONDS);
+        List<ScheduledFuture<?>> typing = new ArrayList<>();
+        for (Typist typist : trace) {
+            long jitter = ThreadLocalRandom.current().nextLong(KEYSTROKE_INTERVAL_MS);
+            typing.add(typists.scheduleAtFixedRate(typist::step, jitter, KEYSTROKE_INTERVAL_MS, TimeUnit.MILLISECONDS));
+        }
+
+        Thread.sleep(TimeUnit.SECONDS.toMillis(DURATION_SECONDS));
+        typing.forEach(future -> future.cancel(false));
+        // Let the last changes drain through the lanes and send queues
+        Thread.sleep(2000);
+        sampling.cancel(false);
+
+        long sent = sentChanges.values().stream().mapToLong(AtomicInteger::get).sum();
+        long expected = sent * (SESSIONS_PER_TEAM - 1);
+        long[] sorted = latencies.sorted();
+
+        System.out.println("=== Editor load test ===");
+        System.out.printf("endpoint %s, %s payload, %d teams x %d sessions, %d s, keystroke every %d ms%n",
+                ENDPOINT, PAYLOAD, TEAMS, SESSIONS_PER_TEAM, DURATION_SECONDS, KEYSTROKE_INTERVAL_MS);
+        System.out.printf("code changes: sent %d, delivered %d of %d expected (%.1f/s fan-out)%n",
+                sent, sorted.length, expected, sorted.length / (double) DURATION_SECONDS);
+        System.out.printf("fan-out latency ms: p50 %.2f, p90 %.2f, p99 %.2f, p99.9 %.2f, max %.2f%n",
+                percentile(sorted, 50), percentile(sorted, 90), percentile(sorted, 99),
+                percentile(sorted, 99.9), percentile(sorted, 100));
+        System.out.printf("cursor batches %d, lock batches %d received%n", cursorBatches.sum(), lockBatches.sum());
+        System.out.printf("process CPU: avg %.0f%%, max %.0f%%; heap used: avg %d MB, max %d MB%n",
+                sampler.averageCpu() * 100, sampler.maxCpu * 100,
+                sampler.averageHeap() >> 20, sampler.maxHeap >> 20);
+
+        assertTrue(sent > 0, "No code changes were sent");
+        assertEquals(expected, sorted.length, "Some code changes never reached the other sessions of the team");
+        assertTrue(percentile(sorted, 99) <= MAX_P99_MS, "p99 fan-out latency is above " + MAX_P99_MS + " ms");
+    }
+
+    private StompSession connect(int teamId, String username) throws Exception {
+        String token = jwtTokenProvider.generateToken(
+                new UsernamePasswordAuthenticationToken(userDetails(username), null, List.of()));
+        StompHeaders connectHeaders = new StompHeaders();
+        connectHeaders.add("Authorization", "Bearer " + token);
+        StompSession session = stompClient.connectAsync("ws://localhost:" + port + ENDPOINT,
+                        new WebSocketHttpHeaders(), connectHeaders, new StompSessionHandlerAdapter() {
+                        })
+                .get(10, TimeUnit.SECONDS);
+
+        Map<String, Integer> received = new ConcurrentHashMap<>();
+        session.subscribe("/topic/code/change/" + teamId, frameHandler(payload -> {
+            long now = System.nanoTime();
+            String sender = objectMapper.readTree(payload).path("userId").asText();
+            if (sender.equals(username)) {
+                return;
+            }
+            // Changes of one sender reach a session in the order they were sent
+            int index = received.merge(sender, 1, Integer::sum) - 1;
+            latencies.add(now - sendTimes.get(sender).get(index));
+        }));
+        session.subscribe("/topic/cursor/" + teamId, frameHandler(payload -> cursorBatches.increment()));
+        session.subscribe("/topic/lock/" + teamId, frameHandler(payload -> lockBatches.increment()));
+        return session;
+    }
+
+    private StompFrameHandler frameHandler(PayloadConsumer consumer) {
+        return new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return byte[].class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                try {
+                    consumer.accept((byte[]) payload);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        };
+    }
+
+    private static CustomUserDetails userDetails(String username) {
+        User user = new User();
+        user.setId(Math.abs(username.hashCode()));
+        user.setUsername(username);
+        user.setPassword("");
+        user.setIsActive(true);
+        return new CustomUserDetails(user, Collections.emptyList());
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+    }
+
+    @FunctionalInterface
+    private interface PayloadConsumer {
+        void accept(byte[] payload) throws Exception;
+    }
+
+    /**
+     * One simulated participant: types at the end of their area, starts a new line and erases a character
+     * now and then, moves the cursor with every keystroke and holds a lock on the line being edited.
+     */
+    private class Typist {
+        private final StompSession session;
+        private final int teamId;
+        private final String username;
+        // The area as the server has it after every change sent so far
+        private final StringBuilder code = new StringBuilder();
+        private int line = 1;
+        private int column;
+        private int keystrokes;
+        private Integer lockedLine;
+
+        private Typist(StompSession session, int teamId, String username) {
+            this.session = session;
+            this.teamId = teamId;
+            this.username = username;
+        }
+
+        private void step() {
+            AtomicLongArray times = sendTimes.get(username);
+            int index = sentChanges.get(username).get();
+            if (index >= times.length() || !session.isConnected()) {
+                return;
+            }
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            boolean newLine = column > 20 && random.nextInt(10) == 0;
+            boolean erase = !newLine && column > 0 && random.nextInt(15) == 0;
+            String content = newLine ? "\n" : String.valueOf((char) ('a' + random.nextInt(26)));
+
+            if (lockedLine == null || lockedLine != line) {
+                if (lockedLine != null) {
+                    send("/app/lock/" + teamId, lock("UNLOCK", lockedLine));
+                }
+                send("/app/lock/" + teamId, lock("LOCK", line));
+                lockedLine = line;
+            } else if (++keystrokes % 20 == 0) {
+                // Typing keeps the lease alive, an explicit renewal now and then mirrors the editor
+                send("/app/lock/" + teamId, lock("LOCK", line));
+            }
+
+            Map<String, Object> change = erase
+                    ? change("DELETE", column - 1, code.substring(code.length() - 1))
+                    : change("INSERT", column, content);
+            if (erase) {
+                code.setLength(code.length() - 1);
+            } else {
+                code.append(content);
+            }
+            if ("replace".equals(PAYLOAD)) {
+                change = change("REPLACE", 0, code.toString());
+                change.put("lineNumber", null);
+                change.remove("baseLength");
+            }
+            times.set(index, System.nanoTime());
+            sentChanges.get(username).incrementAndGet();
+            send("/app/code/change/" + teamId, change);
+
+            if (newLine) {
+                line++;
+                column = 0;
+            } else if (erase) {
+                column--;
+            } else {
+                column++;
+            }
+            Map<String, Object> cursor = new LinkedHashMap<>();
+            cursor.put("lineNumber", line);
+            cursor.put("position", column);
+            send("/app/cursor/" + teamId, cursor);
+        }
+
+        /**
+         * Change at the cursor line against the area before it, the fields CodeEditor.tsx sends
+         */
+        private Map<String, Object> change(String type, int position, String content) {
+            Map<String, Object> change = new LinkedHashMap<>();
+            change.put("type", type);
+            change.put("teamId", teamId);
+            change.put("lineNumber", line);
+            change.put("content", content);
+            change.put("position", position);
+            change.put("userId", username);
+            change.put("userRole", "STUDENT");
+            change.put("baseLength", code.length());
+            return change;
+        }
+
+        private Map<String, Object> lock(String action, int lineNumber) {
+            Map<String, Object> lock = new LinkedHashMap<>();
+            lock.put("action", action);
+            lock.put("lineNumber", lineNumber);
+            return lock;
+        }
+
+        private void send(String destination, Map<String, Object> body) {
+            StompHeaders headers = new StompHeaders();
+            headers.setDestination(destination);
+            headers.setContentType(MimeTypeUtils.APPLICATION_JSON);
+            try {
+                session.send(headers, objectMapper.writeValueAsBytes(body));
+            } catch (Exception e) {
+                throw new IllegalStateException("Failed to send to " + destination, e);
+            }
+        }
+    }
+
+    private static class LatencyRecorder {
+        private long[] values = new long[1 << 16];
+        private int size;
+
+        private synchronized void add(long nanos) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = nanos;
+        }
+
+        private synchronized long[] sorted() {
+            long[] copy = Arrays.copyOf(values, size);
+            Arrays.sort(copy);
+            return copy;
+        }
+    }
+
+    /**
+     * Process CPU load and used heap, sampled while the trace runs
+     */
+    private static class ResourceSampler {
+        private final com.sun.management.OperatingSystemMXBean os =
+                ManagementFactory.getPlatformMXBean(com.sun.management.OperatingSystemMXBean.class);
+        private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        private double cpuSum;
+        private long heapSum;
+        private int samples;
+        private double maxCpu;
+        private long maxHeap;
+
+        private synchronized void sample() {
+            double cpu = Math.max(0, os.getProcessCpuLoad());
+            long heap = memory.getHeapMemoryUsage().getUsed();
+            cpuSum += cpu;
+            heapSum += heap;
+            samples++;
+            maxCpu = Math.max(maxCpu, cpu);
+            maxHeap = Math.max(maxHeap, heap);
+        }
+
+        private synchronized double averageCpu() {
+            return samples == 0 ? 0 : cpuSum / samples;
+        }
+
+        private synchronized long averageHeap() {
+            return samples == 0 ? 0 : heapSum / samples;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.itmo.programmingclub.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import com.itmo.programmingclub.model.entity.ClassTaskStats;
+import com.itmo.programmingclub.model.entity.ClassTeamTaskStats;
+import com.itmo.programmingclub.model.entity.Submission;
+import com.itmo.programmingclub.repository.ClassTaskStatsRepository;
+import com.itmo.programmingclub.repository.ClassTeamTaskStatsRepository;
+
+import tools.jackson.databind.json.JsonMapper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ClassStatsServiceTest {
+    private static final OffsetDateTime START = OffsetDateTime.parse("2026-01-12T10:00:00Z");
+
+    private final ClassTaskStatsRepository taskRepository = mock(ClassTaskStatsRepository.class);
+    private final ClassTeamTaskStatsRepository teamTaskRepository = mock(ClassTeamTaskStatsRepository.class);
+    private final RecordingTransactionManager transactionManager = new RecordingTransactionManager();
+    private ClassStatsService service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        when(taskRepository.findByIdClassId(1)).thenReturn(List.of());
+        when(teamTaskRepository.findByIdClassId(1)).thenReturn(List.of());
+        service = new ClassStatsService(taskRepository, teamTaskRepository, mock(SimpMessagingTemplate.class),
+                new TransactionTemplate(transactionManager), mock(ObjectProvider.class), JsonMapper.builder().build(),
+                event -> { });
+    }
+
+    @Test
+    void failedSecondUpsertRollsBackBothTablesAndRetriesTheSameCounts() {
+        service.getClassStats(1).apply(7, 10, Submission.SubmissionStatus.FAILED, Duration.ofSeconds(1), START);
+        service.getClassStats(1).apply(7, 10, Submission.SubmissionStatus.OK, Duration.ofSeconds(2), START);
+        doThrow(new DataAccessResourceFailureException("connection lost"))
+                .doNothing()
+                .when(teamTaskRepository).upsertAll(anyList());
+
+        service.save();
+
+        assertEquals(1, transactionManager.rollbacks);
+        assertEquals(0, transactionManager.commits);
+
+        service.save();
+
+        assertEquals(1, transactionManager.commits);
+        List<List<ClassTaskStats>> taskRows = captureTaskRows(2);
+        List<List<ClassTeamTaskStats>> teamTaskRows = captureTeamTaskRows(2);
+        // The retry sends what the rolled back save sent, not nothing and not the counts twice
+        assertEquals(2, taskRows.get(0).get(0).getAttempts());
+        assertEquals(2, taskRows.get(1).get(0).getAttempts());
+        assertEquals(1, taskRows.get(1).get(0).getOkVerdicts());
+        assertEquals(2, teamTaskRows.get(1).get(0).getAttempts());
+        assertEquals(1, teamTaskRows.get(1).get(0).getFailedBeforeSolve());
+    }
+
+    @Test
+    void savedCountsAreNotSentAgain() {
+        service.getClassStats(1).apply(7, 10, Submission.SubmissionStatus.OK, Duration.ofSeconds(1), START);
+
+        service.save();
+        service.save();
+
+        assertEquals(1, transactionManager.commits);
+        verify(taskRepository, times(1)).upsertAll(anyList());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<List<ClassTaskStats>> captureTaskRows(int calls) {
+        ArgumentCaptor<List<ClassTaskStats>> rows = ArgumentCaptor.forClass(List.class);
+        verify(taskRepository, times(calls)).upsertAll(rows.capture());
+        return rows.getAllValues();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<List<ClassTeamTaskStats>> captureTeamTaskRows(int calls) {
+        ArgumentCaptor<List<ClassTeamTaskStats>> rows = ArgumentCaptor.forClass(List.class);
+        verify(teamTaskRepository, times(calls)).upsertAll(rows.capture());
+        return rows.getAllValues();
+    }
+
+    private static final class RecordingTransactionManager implements PlatformTransactionManager {
+        private int commits;
+        private int rollbacks;
+
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+            commits++;
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+            rollbacks++;
+        }
+    }
+}
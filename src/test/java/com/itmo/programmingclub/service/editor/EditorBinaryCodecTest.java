@@ -0,0 +1,165 @@
+package com.itmo.programmingclub.service.editor;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.itmo.programmingclub.model.dto.websocket.CodeChangeMessage;
+import com.itmo.programmingclub.model.dto.websocket.CursorBatchMessage;
+import com.itmo.programmingclub.model.dto.websocket.CursorPositionMessage;
+import com.itmo.programmingclub.model.dto.websocket.LineLockMessage;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class EditorBinaryCodecTest {
+
+    @Test
+    void changeRoundTripsAcrossVarintBoundaries() {
+        for (int value : new int[]{0, 1, 126, 127, 128, 16383, 16384, Integer.MAX_VALUE - 1}) {
+            CodeChangeMessage change = change("INSERT", value, value, value, "x", (long) value);
+
+            CodeChangeMessage decoded = decodeChange(EditorBinaryCodec.encodeClientChange(change));
+
+            assertEquals(value, decoded.getTeamId());
+            assertEquals(value, decoded.getLineNumber());
+            assertEquals(value, decoded.getPosition());
+            assertEquals((long) value, decoded.getRevision());
+        }
+    }
+
+    @Test
+    void largeRevisionRoundTrips() {
+        CodeChangeMessage change = change("DELETE", 1, 0, 0, "", 1L << 40);
+
+        assertEquals(1L << 40, decodeChange(EditorBinaryCodec.encodeClientChange(change)).getRevision());
+    }
+
+    @Test
+    void nullNumbersRoundTrip() {
+        CodeChangeMessage change = change("REPLACE", 7, null, null, "whole\narea", null);
+
+        CodeChangeMessage decoded = decodeChange(EditorBinaryCodec.encodeClientChange(change));
+
+        assertEquals("REPLACE", decoded.getType());
+        assertNull(decoded.getLineNumber());
+        assertNull(decoded.getPosition());
+        assertNull(decoded.getRevision());
+        assertEquals("whole\narea", decoded.getContent());
+    }
+
+    @Test
+    void baseLengthRoundTrips() {
+        CodeChangeMessage change = change("DELETE", 3, 2, 4, "", 9L);
+        change.setBaseLength(120);
+
+        assertEquals(120, decodeChange(EditorBinaryCodec.encodeClientChange(change)).getBaseLength());
+        assertNull(decodeChange(EditorBinaryCodec.encodeClientChange(change("REPLACE", 3, null, null, "", 9L)))
+                .getBaseLength());
+    }
+
+    @Test
+    void serverChangeCarriesBaseLengthBeforeUser() {
+        CodeChangeMessage change = change("INSERT", 5, 0, 1, "x", 7L);
+        change.setBaseLength(3);
+
+        // kind, teamId, revision + 1, baseLength + 1, user, INSERT, line + 1, position + 1, content
+        assertArrayEquals(new byte[]{EditorBinaryCodec.CODE_CHANGE, 5, 8, 4, 2, 1, 1, 2, 1, 'x'},
+                EditorBinaryCodec.encodeChange(change, user -> 2));
+    }
+
+    @Test
+    void serverChangeIsNotAClientFrame() {
+        byte[] frame = EditorBinaryCodec.encodeChange(change("INSERT", 1, 0, 0, "x", 1L), user -> 0);
+
+        assertThrows(IllegalArgumentException.class, () -> EditorBinaryCodec.decodeClientFrame(frame));
+    }
+
+    @Test
+    void multiByteContentRoundTrips() {
+        String content = "привет, 世界 😀";
+        CodeChangeMessage change = change("INSERT", 1, 0, 0, content, 5L);
+
+        assertEquals(content, decodeChange(EditorBinaryCodec.encodeClientChange(change)).getContent());
+    }
+
+    @Test
+    void varintUsesSevenBitGroupsLowFirst() {
+        // Cursor from a client: kind, teamId 300, line 127 + 1, position null
+        byte[] frame = {EditorBinaryCodec.CURSOR, (byte) 0xAC, 0x02, (byte) 0x80, 0x01, 0x00};
+
+        CursorPositionMessage cursor = (CursorPositionMessage) EditorBinaryCodec.decodeClientFrame(frame);
+
+        assertEquals(300, cursor.getTeamId());
+        assertEquals(127, cursor.getLineNumber());
+        assertNull(cursor.getPosition());
+    }
+
+    @Test
+    void cursorBatchIsEncodedWithUserIndexes() {
+        CursorBatchMessage batch = new CursorBatchMessage(5, List.of(
+                new CursorPositionMessage(5, 0, 200, "alice", "STUDENT"),
+                new CursorPositionMessage(5, null, 1, "bob", "ELDER")));
+
+        byte[] frame = EditorBinaryCodec.encodeCursors(batch, user -> "alice".equals(user) ? 0 : 1);
+
+        assertArrayEquals(new byte[]{EditorBinaryCodec.CURSOR_BATCH, 5, 2,
+                0, 1, (byte) 0xC9, 0x01,
+                1, 0, 2}, frame);
+    }
+
+    @Test
+    void lockFrameDecodes() {
+        byte[] frame = {EditorBinaryCodec.LINE_LOCK, 9, 4, 1};
+
+        LineLockMessage lock = (LineLockMessage) EditorBinaryCodec.decodeClientFrame(frame);
+
+        assertEquals(9, lock.getTeamId());
+        assertEquals(3, lock.getLineNumber());
+        assertEquals("UNLOCK", lock.getAction());
+    }
+
+    @Test
+    void truncatedVarintIsRejected() {
+        byte[] frame = {EditorBinaryCodec.CURSOR, (byte) 0xAC};
+
+        assertThrows(IllegalArgumentException.class, () -> EditorBinaryCodec.decodeClientFrame(frame));
+    }
+
+    @Test
+    void overlongVarintIsRejected() {
+        byte[] frame = new byte[12];
+        frame[0] = EditorBinaryCodec.CURSOR;
+        for (int i = 1; i < frame.length; i++) {
+            frame[i] = (byte) 0x80;
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> EditorBinaryCodec.decodeClientFrame(frame));
+    }
+
+    @Test
+    void stringLongerThanTheFrameIsRejected() {
+        byte[] frame = EditorBinaryCodec.encodeClientChange(change("INSERT", 1, 0, 0, "abc", 1L));
+
+        byte[] truncated = Arrays.copyOf(frame, frame.length - 1);
+
+        assertThrows(IllegalArgumentException.class, () -> EditorBinaryCodec.decodeClientFrame(truncated));
+    }
+
+    @Test
+    void unknownKindIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> EditorBinaryCodec.decodeClientFrame(new byte[]{42}));
+    }
+
+    private static CodeChangeMessage change(String type, int teamId, Integer lineNumber, Integer position,
+                                            String content, Long revision) {
+        return new CodeChangeMessage(type, teamId, lineNumber, content, position, "user", "STUDENT", revision, null);
+    }
+
+    private static CodeChangeMessage decodeChange(byte[] frame) {
+        return (CodeChangeMessage) EditorBinaryCodec.decodeClientFrame(frame);
+    }
+}
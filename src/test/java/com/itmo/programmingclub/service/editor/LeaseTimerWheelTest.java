@@ -0,0 +1,87 @@
+package com.itmo.programmingclub.service.editor;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LeaseTimerWheelTest {
+    private static final long TICK = 100;
+
+    @Test
+    void leaseFiresOnTheTickAfterItsDeadline() {
+        LeaseTimerWheel wheel = new LeaseTimerWheel(8, TICK, 0);
+        LineLease lease = lease(250);
+        wheel.schedule(lease);
+
+        assertTrue(wheel.advance(100).isEmpty());
+        assertTrue(wheel.advance(200).isEmpty());
+        assertEquals(List.of(), wheel.advance(249));
+        assertEquals(List.of(lease), wheel.advance(300));
+        assertTrue(wheel.advance(400).isEmpty());
+    }
+
+    @Test
+    void renewedLeaseIsMovedForward() {
+        LeaseTimerWheel wheel = new LeaseTimerWheel(8, TICK, 0);
+        LineLease lease = lease(250);
+        wheel.schedule(lease);
+
+        lease.renew(650);
+
+        assertTrue(wheel.advance(300).isEmpty());
+        assertTrue(wheel.advance(600).isEmpty());
+        assertEquals(List.of(lease), wheel.advance(700));
+    }
+
+    @Test
+    void renewalNeverShortensALease() {
+        LineLease lease = lease(500);
+
+        lease.renew(300);
+
+        assertEquals(500, lease.getExpiresAt());
+    }
+
+    @Test
+    void deadlineBeyondOneRevolutionWrapsAround() {
+        // 4 slots of 100 ms: a deadline at 1000 shares its slot with ticks 2 and 6
+        LeaseTimerWheel wheel = new LeaseTimerWheel(4, TICK, 0);
+        LineLease lease = lease(1000);
+        wheel.schedule(lease);
+
+        assertTrue(wheel.advance(300).isEmpty());
+        assertTrue(wheel.advance(700).isEmpty());
+        assertTrue(wheel.advance(900).isEmpty());
+        assertEquals(List.of(lease), wheel.advance(1000));
+    }
+
+    @Test
+    void longPauseVisitsEverySlotOnce() {
+        LeaseTimerWheel wheel = new LeaseTimerWheel(4, TICK, 0);
+        LineLease first = lease(150);
+        LineLease second = lease(350);
+        wheel.schedule(first);
+        wheel.schedule(second);
+
+        List<LineLease> due = wheel.advance(10_000);
+
+        assertEquals(2, due.size());
+        assertTrue(due.containsAll(List.of(first, second)));
+    }
+
+    @Test
+    void overdueLeaseFiresOnTheNextTick() {
+        LeaseTimerWheel wheel = new LeaseTimerWheel(8, TICK, 1000);
+        LineLease lease = lease(500);
+        wheel.schedule(lease);
+
+        assertEquals(List.of(lease), wheel.advance(1100));
+    }
+
+    private static LineLease lease(long expiresAt) {
+        return new LineLease(1, 1, "user", "STUDENT", expiresAt);
+    }
+}
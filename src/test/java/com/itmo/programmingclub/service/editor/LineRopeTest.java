@@ -0,0 +1,155 @@
+package com.itmo.programmingclub.service.editor;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LineRopeTest {
+
+    @Test
+    void emptyDocumentHasOneEmptyLine() {
+        LineRope rope = LineRope.empty();
+
+        assertEquals(1, rope.lineCount());
+        assertEquals(0, rope.length());
+        assertEquals("", rope.line(0));
+        assertEquals("", rope.toString());
+        assertEquals(LineRope.of("").toString(), rope.toString());
+    }
+
+    @Test
+    void trailingNewlineStartsAnEmptyLine() {
+        LineRope rope = LineRope.of("a\nb\n");
+
+        assertEquals(3, rope.lineCount());
+        assertEquals("", rope.line(2));
+        assertEquals(4, rope.length());
+        assertEquals(4, rope.offsetOf(2));
+        assertEquals("a\nb\n", rope.toString());
+    }
+
+    @Test
+    void insertAtStartAndEnd() {
+        LineRope rope = LineRope.of("b\nc");
+
+        rope.replace(0, 0, "a\n");
+        rope.replace(rope.length(), 0, "\nd");
+
+        assertEquals("a\nb\nc\nd", rope.toString());
+        assertEquals(4, rope.lineCount());
+    }
+
+    @Test
+    void insertIntoEmptyDocument() {
+        LineRope rope = LineRope.empty();
+
+        rope.replace(0, 0, "x\n");
+
+        assertEquals("x\n", rope.toString());
+        assertEquals(2, rope.lineCount());
+    }
+
+    @Test
+    void insertNewlineSplitsLine() {
+        LineRope rope = LineRope.of("hello world");
+
+        rope.replace(5, 1, "\n");
+
+        assertEquals(2, rope.lineCount());
+        assertEquals("hello", rope.line(0));
+        assertEquals("world", rope.line(1));
+    }
+
+    @Test
+    void deleteNewlineJoinsLines() {
+        LineRope rope = LineRope.of("ab\ncd\nef");
+
+        rope.replace(2, 1, "");
+
+        assertEquals("abcd\nef", rope.toString());
+        assertEquals(2, rope.lineCount());
+    }
+
+    @Test
+    void deleteAcrossSeveralLines() {
+        LineRope rope = LineRope.of("one\ntwo\nthree\nfour");
+
+        rope.replace(2, 10, "");
+
+        assertEquals("one\nfour", rope.toString());
+    }
+
+    @Test
+    void deleteEverything() {
+        LineRope rope = LineRope.of("a\nb\n");
+
+        rope.replace(0, rope.length(), "");
+
+        assertEquals("", rope.toString());
+        assertEquals(1, rope.lineCount());
+    }
+
+    @Test
+    void deleteTrailingNewline() {
+        LineRope rope = LineRope.of("a\n");
+
+        rope.replace(1, 1, "");
+
+        assertEquals("a", rope.toString());
+        assertEquals(1, rope.lineCount());
+    }
+
+    @Test
+    void setLinePadsMissingLines() {
+        LineRope rope = LineRope.of("a");
+
+        rope.setLine(3, "d");
+        rope.setLine(0, "first");
+
+        assertEquals("first\n\n\nd", rope.toString());
+        assertEquals(4, rope.lineCount());
+    }
+
+    @Test
+    void rangesOutsideTheDocumentAreRejected() {
+        LineRope rope = LineRope.of("abc");
+
+        assertThrows(IndexOutOfBoundsException.class, () -> rope.replace(-1, 0, "x"));
+        assertThrows(IndexOutOfBoundsException.class, () -> rope.replace(2, 2, ""));
+        assertThrows(IndexOutOfBoundsException.class, () -> rope.replace(4, 0, "x"));
+        assertThrows(IndexOutOfBoundsException.class, () -> rope.line(1));
+        assertThrows(IndexOutOfBoundsException.class, () -> rope.offsetOf(-1));
+        assertThrows(IndexOutOfBoundsException.class, () -> rope.setLine(-1, "x"));
+    }
+
+    @Test
+    void randomEditsMatchPlainString() {
+        Random random = new Random(42);
+        StringBuilder expected = new StringBuilder("line\n\nanother line\n");
+        LineRope rope = LineRope.of(expected);
+        String[] inserts = {"", "x", "\n", "ab\ncd", "\n\n", "tail\n"};
+
+        for (int i = 0; i < 2000; i++) {
+            int offset = random.nextInt(expected.length() + 1);
+            int length = random.nextInt(Math.min(8, expected.length() - offset) + 1);
+            String text = inserts[random.nextInt(inserts.length)];
+
+            expected.replace(offset, offset + length, text);
+            rope.replace(offset, length, text);
+
+            assertEquals(expected.length(), rope.length());
+        }
+        assertEquals(expected.toString(), rope.toString());
+        String[] lines = expected.toString().split("\n", -1);
+        assertEquals(lines.length, rope.lineCount());
+        int offset = 0;
+        for (int i = 0; i < lines.length; i++) {
+            assertEquals(lines[i], rope.line(i));
+            assertEquals(offset, rope.offsetOf(i));
+            offset += lines[i].length() + 1;
+        }
+    }
+}
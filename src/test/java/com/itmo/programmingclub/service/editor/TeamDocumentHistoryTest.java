@@ -0,0 +1,82 @@
+package com.itmo.programmingclub.service.editor;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import com.itmo.programmingclub.model.dto.websocket.CodeChangeMessage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TeamDocumentHistoryTest {
+    private static final long MAX_BYTES = 30_000;
+
+    @Test
+    void smallDocumentKeepsItsWholeHistory() {
+        TeamDocument document = new TeamDocument(1);
+        document.trackHistory(MAX_BYTES, 2);
+
+        typeCharacters(document, 20);
+
+        assertEquals(0L, document.timeline().getFirstRevision());
+        assertEquals(20, document.changesSince(document.getEpoch(), 0).size());
+    }
+
+    @Test
+    void checkpointsOfALargeDocumentCountAgainstTheBound() {
+        TeamDocument document = new TeamDocument(1);
+        document.replace("alice", "x".repeat(10_000));
+        document.trackHistory(MAX_BYTES, 2);
+
+        typeCharacters(document, 20);
+
+        List<Long> checkpoints = document.timeline().getCheckpointRevisions();
+        assertTrue(checkpoints.size() <= 3, "kept checkpoints: " + checkpoints);
+        assertTrue(document.timeline().getFirstRevision() > 1);
+        assertNull(document.changesSince(document.getEpoch(), 1));
+    }
+
+    @Test
+    void newestSegmentIsKeptEvenOverTheBound() {
+        TeamDocument document = new TeamDocument(1);
+        document.replace("alice", "x".repeat(50_000));
+        document.trackHistory(MAX_BYTES, 2);
+
+        typeCharacters(document, 4);
+
+        long revision = document.getRevision();
+        assertEquals(List.of(revision), document.timeline().getCheckpointRevisions());
+        assertEquals(0, document.changesSince(document.getEpoch(), revision).size());
+    }
+
+    @Test
+    void changesOfAnotherEpochAreNotResumed() {
+        TeamDocument document = new TeamDocument(1);
+        document.trackHistory(MAX_BYTES, 2);
+
+        typeCharacters(document, 3);
+
+        assertEquals(2, document.changesSince(document.getEpoch(), 1).size());
+        assertNull(document.changesSince(document.getEpoch() - 1, 1));
+    }
+
+    @Test
+    void snapshotCarriesTheEpoch() {
+        TeamDocument document = new TeamDocument(1);
+        document.trackHistory(MAX_BYTES, 2);
+
+        typeCharacters(document, 3);
+
+        assertEquals(document.getEpoch(), document.snapshot().getEpoch());
+        assertEquals(document.getEpoch(), document.snapshotAt(2).getEpoch());
+    }
+
+    private static void typeCharacters(TeamDocument document, int count) {
+        for (int i = 0; i < count; i++) {
+            CodeChangeMessage change = new CodeChangeMessage("INSERT", 1, 1, "y", 0, "alice", "STUDENT", null, null);
+            assertTrue(document.apply("alice", change));
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.itmo.programmingclub.service.stats;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import com.itmo.programmingclub.model.entity.Submission;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClassLeaderboardTest {
+    private static final OffsetDateTime START = OffsetDateTime.parse("2026-01-12T10:00:00Z");
+    private static final long PENALTY = 20;
+
+    @Test
+    void newTeamIsAddedAtItsPlace() {
+        ClassLeaderboard leaderboard = leaderboard(standing(1, 2, 50), standing(2, 1, 10));
+
+        List<ClassLeaderboard.Ranked> changed = leaderboard.update(standing(3, 0, 0));
+
+        assertEquals(List.of(new ClassLeaderboard.Ranked(3, standing(3, 0, 0))), changed);
+        assertEquals(List.of(1, 2, 3), teamIds(leaderboard));
+    }
+
+    @Test
+    void teamMovingUpReportsEveryPlaceItPassed() {
+        ClassLeaderboard leaderboard = leaderboard(standing(1, 2, 50), standing(2, 1, 10), standing(3, 0, 0));
+
+        List<ClassLeaderboard.Ranked> changed = leaderboard.update(standing(3, 2, 40));
+
+        assertEquals(List.of(
+                new ClassLeaderboard.Ranked(1, standing(3, 2, 40)),
+                new ClassLeaderboard.Ranked(2, standing(1, 2, 50)),
+                new ClassLeaderboard.Ranked(3, standing(2, 1, 10))), changed);
+        assertEquals(List.of(3, 1, 2), teamIds(leaderboard));
+    }
+
+    @Test
+    void teamMovingDownReportsEveryPlaceItLeft() {
+        ClassLeaderboard leaderboard = leaderboard(standing(1, 2, 50), standing(2, 2, 60), standing(3, 1, 10));
+
+        // Same solves as team 2 with a greater penalty
+        List<ClassLeaderboard.Ranked> changed = leaderboard.update(standing(1, 2, 70));
+
+        assertEquals(List.of(
+                new ClassLeaderboard.Ranked(1, standing(2, 2, 60)),
+                new ClassLeaderboard.Ranked(2, standing(1, 2, 70))), changed);
+        assertEquals(List.of(2, 1, 3), teamIds(leaderboard));
+    }
+
+    @Test
+    void unchangedStandingReportsNothing() {
+        ClassLeaderboard leaderboard = leaderboard(standing(1, 2, 50), standing(2, 1, 10));
+        long version = leaderboard.getVersion();
+
+        assertTrue(leaderboard.update(standing(2, 1, 10)).isEmpty());
+        assertEquals(version, leaderboard.getVersion());
+    }
+
+    @Test
+    void standingChangedInPlaceReportsOnlyThatTeam() {
+        ClassLeaderboard leaderboard = leaderboard(standing(1, 2, 50), standing(2, 1, 10), standing(3, 0, 0));
+
+        List<ClassLeaderboard.Ranked> changed = leaderboard.update(standing(2, 1, 30));
+
+        assertEquals(List.of(new ClassLeaderboard.Ranked(2, standing(2, 1, 30))), changed);
+    }
+
+    @Test
+    void penaltyAddsSolveMinutesAndFailedAttemptsBeforeEachSolve() {
+        ClassStats stats = new ClassStats(1);
+        stats.apply(7, 100, Submission.SubmissionStatus.FAILED, Duration.ofSeconds(1), START.plusMinutes(5));
+        stats.apply(7, 100, Submission.SubmissionStatus.FAILED, Duration.ofSeconds(1), START.plusMinutes(8));
+        stats.apply(7, 100, Submission.SubmissionStatus.OK, Duration.ofSeconds(1), START.plusMinutes(12));
+        // Attempts after the solve cost nothing
+        stats.apply(7, 100, Submission.SubmissionStatus.FAILED, Duration.ofSeconds(1), START.plusMinutes(15));
+        stats.apply(7, 200, Submission.SubmissionStatus.OK, Duration.ofSeconds(1), START.plusMinutes(30));
+        // Unsolved tasks and other teams don't count
+        stats.apply(7, 300, Submission.SubmissionStatus.FAILED, Duration.ofSeconds(1), START.plusMinutes(31));
+        stats.apply(8, 100, Submission.SubmissionStatus.OK, Duration.ofSeconds(1), START.plusMinutes(1));
+
+        ClassLeaderboard.Standing standing = new ClassLeaderboard(1, START, PENALTY).standingOf(stats, 7);
+
+        assertEquals(2, standing.solved());
+        assertEquals(12 + 2 * PENALTY + 30, standing.penaltyMinutes());
+        assertEquals(START.plusMinutes(30), standing.lastSolvedAt());
+    }
+
+    @Test
+    void solveBeforeTheClassStartCostsNoMinutes() {
+        ClassStats stats = new ClassStats(1);
+        stats.apply(7, 100, Submission.SubmissionStatus.OK, Duration.ofSeconds(1), START.minusMinutes(10));
+
+        ClassLeaderboard.Standing standing = new ClassLeaderboard(1, START, PENALTY).standingOf(stats, 7);
+
+        assertEquals(1, standing.solved());
+        assertEquals(0, standing.penaltyMinutes());
+    }
+
+    @Test
+    void teamWithoutSolvesHasNoPenalty() {
+        ClassStats stats = new ClassStats(1);
+        stats.apply(7, 100, Submission.SubmissionStatus.FAILED, Duration.ofSeconds(1), START.plusMinutes(5));
+
+        ClassLeaderboard.Standing standing = new ClassLeaderboard(1, START, PENALTY).standingOf(stats, 7);
+
+        assertEquals(new ClassLeaderboard.Standing(7, 0, 0, null), standing);
+        assertNull(standing.lastSolvedAt());
+    }
+
+    private static ClassLeaderboard leaderboard(ClassLeaderboard.Standing... standings) {
+        ClassLeaderboard leaderboard = new ClassLeaderboard(1, START, PENALTY);
+        for (ClassLeaderboard.Standing standing : standings) {
+            leaderboard.update(standing);
+        }
+        return leaderboard;
+    }
+
+    private static ClassLeaderboard.Standing standing(int teamId, int solved, long penaltyMinutes) {
+        return new ClassLeaderboard.Standing(teamId, solved, penaltyMinutes, solved > 0 ? START : null);
+    }
+
+    private static List<Integer> teamIds(ClassLeaderboard leaderboard) {
+        return leaderboard.getRanking().stream().map(ranked -> ranked.standing().teamId()).toList();
+    }
+}
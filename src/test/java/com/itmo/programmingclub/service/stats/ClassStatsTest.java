@@ -0,0 +1,106 @@
+package com.itmo.programmingclub.service.stats;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import com.itmo.programmingclub.model.entity.ClassTaskStats;
+import com.itmo.programmingclub.model.entity.ClassTeamTaskStats;
+import com.itmo.programmingclub.model.entity.Submission;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClassStatsTest {
+    private static final OffsetDateTime START = OffsetDateTime.parse("2026-01-12T10:00:00Z");
+
+    @Test
+    void savedRowsCountOnlyVerdictsSinceThePreviousSave() {
+        ClassStats stats = new ClassStats(1);
+        verdict(stats, 7, Submission.SubmissionStatus.FAILED, 0);
+        verdict(stats, 7, Submission.SubmissionStatus.OK, 1);
+        stats.takeUnsaved();
+
+        verdict(stats, 7, Submission.SubmissionStatus.OK, 2);
+        ClassStats.Unsaved unsaved = stats.takeUnsaved();
+
+        ClassTaskStats task = unsaved.taskRows().get(0);
+        assertEquals(1, task.getAttempts());
+        assertEquals(1, task.getOkVerdicts());
+        assertEquals(1, Arrays.stream(task.getLatencyHistogram()).sum());
+        assertEquals(START.plusMinutes(1), task.getFirstOkAt());
+        ClassTeamTaskStats teamTask = unsaved.teamTaskRows().get(0);
+        assertEquals(1, teamTask.getAttempts());
+        assertEquals(0, teamTask.getFailedBeforeSolve());
+        assertEquals(START.plusMinutes(1), teamTask.getSolvedAt());
+        assertFalse(stats.isDirty());
+    }
+
+    @Test
+    void restoredCountersAreNotSavedAgain() {
+        ClassStats stats = ClassStats.restore(1,
+                List.of(new ClassTaskStats(new ClassTaskStats.ClassTaskStatsId(1, 10), 5, 2, START,
+                        new int[LatencyHistogram.BUCKETS], START)),
+                List.of(new ClassTeamTaskStats(new ClassTeamTaskStats.ClassTeamTaskStatsId(1, 7, 10), 5, 3, START, START)));
+
+        verdict(stats, 7, Submission.SubmissionStatus.FAILED, 1);
+        ClassStats.Unsaved unsaved = stats.takeUnsaved();
+
+        assertEquals(6, stats.getTasks().iterator().next().getAttempts());
+        assertEquals(1, unsaved.taskRows().get(0).getAttempts());
+        assertEquals(0, unsaved.taskRows().get(0).getOkVerdicts());
+        assertEquals(1, unsaved.teamTaskRows().get(0).getAttempts());
+        assertEquals(0, unsaved.teamTaskRows().get(0).getFailedBeforeSolve());
+    }
+
+    @Test
+    void failedSaveIsAddedToTheNextOne() {
+        ClassStats stats = new ClassStats(1);
+        verdict(stats, 7, Submission.SubmissionStatus.FAILED, 0);
+        ClassStats.Unsaved failed = stats.takeUnsaved();
+        verdict(stats, 7, Submission.SubmissionStatus.OK, 1);
+        stats.markUnsaved(failed);
+        assertTrue(stats.isDirty());
+
+        ClassStats.Unsaved unsaved = stats.takeUnsaved();
+
+        ClassTaskStats task = unsaved.taskRows().get(0);
+        assertEquals(2, task.getAttempts());
+        assertEquals(1, task.getOkVerdicts());
+        assertEquals(2, Arrays.stream(task.getLatencyHistogram()).sum());
+        ClassTeamTaskStats teamTask = unsaved.teamTaskRows().get(0);
+        assertEquals(2, teamTask.getAttempts());
+        assertEquals(1, teamTask.getFailedBeforeSolve());
+    }
+
+    @Test
+    void verdictsSavedByAnotherNodeAreCountedButNotSaved() {
+        ClassStats stats = new ClassStats(1);
+        stats.applySaved(7, 10, Submission.SubmissionStatus.FAILED, Duration.ofSeconds(3), START);
+        assertFalse(stats.isDirty());
+
+        verdict(stats, 7, Submission.SubmissionStatus.OK, 1);
+        stats.applySaved(8, 10, Submission.SubmissionStatus.OK, Duration.ofSeconds(3), START.plusMinutes(2));
+        ClassStats.Unsaved unsaved = stats.takeUnsaved();
+
+        ClassStats.TaskStats counted = stats.getTasks().iterator().next();
+        assertEquals(3, counted.getAttempts());
+        assertEquals(2, counted.getSolvedTeams());
+        assertEquals(1, unsaved.taskRows().size());
+        assertEquals(1, unsaved.taskRows().get(0).getAttempts());
+        assertEquals(1, unsaved.taskRows().get(0).getOkVerdicts());
+        assertEquals(1, Arrays.stream(unsaved.taskRows().get(0).getLatencyHistogram()).sum());
+        assertEquals(1, unsaved.teamTaskRows().size());
+        assertEquals(1, unsaved.teamTaskRows().get(0).getAttempts());
+        assertEquals(0, unsaved.teamTaskRows().get(0).getFailedBeforeSolve());
+        assertEquals(1, stats.getTeamTasks().get(new ClassStats.TeamTask(7, 10)).getFailedBeforeSolve());
+    }
+
+    private static void verdict(ClassStats stats, int teamId, Submission.SubmissionStatus status, int minute) {
+        stats.apply(teamId, 10, status, Duration.ofSeconds(3), START.plusMinutes(minute));
+    }
+}